@@ -0,0 +1,90 @@
+package cz.wedo.api.benchmarks;
+
+import cz.wedo.api.models.AdditionalService;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.Receiver;
+import cz.wedo.api.models.Sender;
+
+/**
+ * Sample payloads shared by the benchmarks.
+ */
+final class Fixtures {
+
+  private Fixtures() {
+  }
+
+  /**
+   * Returns a fully populated package, as sent by createPackage.
+   *
+   * @return the package
+   */
+  static Pkg pkg() {
+    Pkg pkg = new Pkg();
+
+    Receiver r = new Receiver();
+    r.setName("Test");
+    r.setStreet("Testovaci 45");
+    r.setCity("Praha");
+    r.setPostalCode("11000");
+    r.setState("CZ");
+    r.setFirstname("Tester");
+    r.setSurname("Testovic");
+    r.setEmail("tester@testovic.net");
+    r.setPhone("+420 111 222 333");
+    r.setNote("křehké!!");
+    pkg.setReceiver(r);
+
+    Sender s = new Sender();
+    s.setName("Firma.cz");
+    s.setStreet("Minská 48");
+    s.setCity("Brno");
+    s.setPostalCode("61600");
+    s.setState("CZ");
+    s.setEmail("tester@testovic.cz");
+    s.setPhone("+420 222 333 444");
+    pkg.setSender(s);
+
+    AdditionalService as = new AdditionalService();
+    as.setCashOnDelivery(126.0);
+    pkg.setAdditionalService(as);
+
+    pkg.setReferenceNumber("777888993");
+    pkg.setReferenceNumber2("111222335");
+    pkg.setPackageCount(1);
+    pkg.setWeight(1.0);
+    pkg.setVolumetricWeight(1.0);
+    pkg.setValue(100.0);
+    pkg.setComment("Nejaky komentar");
+    pkg.setAdditive(false);
+    pkg.setProduct("S-24-CZ");
+    return pkg;
+  }
+
+  /**
+   * Returns a package list response with the given number of packages.
+   *
+   * @param count number of packages
+   * @return the JSON array
+   */
+  static String pkgListJson(int count) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(String.format("{\"reference_number\": \"%09d\", \"order_number\": \"46F%08d\", \"last_change\": \"2023-04-11T11:32:34\", \"delivered\": null}", i, i));
+    }
+    return json.append(']').toString();
+  }
+
+  /**
+   * Returns a package response, as returned by createPackage.
+   *
+   * @return the JSON object
+   */
+  static String pkgResponseJson() {
+    return "{\"order_number\": \"46F00000012\", \"reference_number\": \"777888999\", \"barcode\": [\"46FS00000012*001001\"], "
+        + "\"sorting_code\": \"S1PR053\", \"product_name\": \"Medium Colli 24-CZ - hmotnost do 30 kg\", \"delivery_price\": 0, "
+        + "\"product_code\": \"M-24-CZ\", \"last_state\": {\"id\": 99983622, \"code\": \"DELIVERED\", \"created\": \"2023-08-28 13:47:34\"}}";
+  }
+}
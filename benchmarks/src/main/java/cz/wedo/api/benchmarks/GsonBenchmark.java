@@ -0,0 +1,58 @@
+package cz.wedo.api.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.responses.PkgList;
+import cz.wedo.api.utils.GsonUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing and deserializing the models with a Gson object built per call (the former reflective path)
+ * against the shared Gson objects of {@link GsonUtils} which keep their type adapters cached.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonBenchmark {
+  private static final Type PKG_LIST_TYPE = new TypeToken<ArrayList<PkgList>>() {}.getType();
+
+  private Pkg pkg;
+
+  private String pkgListJson;
+
+  @Setup
+  public void setup() {
+    pkg = Fixtures.pkg();
+    pkgListJson = Fixtures.pkgListJson(100);
+  }
+
+  @Benchmark
+  public String serializePkgNewGson() {
+    return new Gson().toJson(pkg);
+  }
+
+  @Benchmark
+  public String serializePkgSharedGson() {
+    return GsonUtils.getGsonDefault().toJson(pkg);
+  }
+
+  @Benchmark
+  public ArrayList<PkgList> deserializePkgListNewGson() {
+    Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss").create();
+    return gson.fromJson(pkgListJson, PKG_LIST_TYPE);
+  }
+
+  @Benchmark
+  public ArrayList<PkgList> deserializePkgListSharedGson() {
+    return GsonUtils.getGsonTDate().fromJson(pkgListJson, PKG_LIST_TYPE);
+  }
+}
@@ -0,0 +1,57 @@
+package cz.wedo.api.benchmarks;
+
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.utils.HttpBasicAuth;
+import org.apache.http.client.methods.HttpPost;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request side hot paths: body serialization, URL assembly and the authorization header.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestSerializationBenchmark {
+  private Pkg pkg;
+
+  private URL url;
+
+  private HashMap<Object, Object> query;
+
+  private RequesterBaseAccess requester;
+
+  @Setup
+  public void setup() throws MalformedURLException {
+    pkg = Fixtures.pkg();
+    url = new URL("https://api.test.wedo.cz/v2/");
+    query = new HashMap<>();
+    query.put("format", "a4_2x2");
+    query.put("skip_first", 2);
+    requester = new RequesterBaseAccess();
+  }
+
+  @Benchmark
+  public HttpPost addPostEntityPkg() {
+    HttpPost request = new HttpPost("https://api.test.wedo.cz/v2/package");
+    RequesterBaseAccess.postEntity(pkg, request);
+    return request;
+  }
+
+  @Benchmark
+  public String assembleGetUrl() {
+    return requester.getUrl(url, "package/46F00000012/labels.pdf", query);
+  }
+
+  @Benchmark
+  public String basicAuthenticationHeader() {
+    return HttpBasicAuth.getBasicAuthenticationHeader("api_user", "a0b1c2d3e4f5a6b7c8d9");
+  }
+}
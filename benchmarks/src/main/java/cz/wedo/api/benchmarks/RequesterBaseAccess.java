@@ -0,0 +1,29 @@
+package cz.wedo.api.benchmarks;
+
+import com.google.gson.Gson;
+import cz.wedo.api.services.commons.RequesterBase;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.util.HashMap;
+
+/**
+ * Exposes the protected helpers of {@link RequesterBase} to the benchmarks.
+ */
+class RequesterBaseAccess extends RequesterBase {
+
+  static <T> void postEntity(T body, HttpPost request) {
+    RequesterBase.addPostEntity(body, request, false);
+  }
+
+  static <K> K gsonResponse(Type responseType, HttpResponse response, Gson gson) throws IOException {
+    return RequesterBase.processGsonResponse(responseType, response, gson);
+  }
+
+  String getUrl(URL url, String path, HashMap<Object, Object> data) {
+    return assembleGetUrl(url, path, data);
+  }
+}
@@ -0,0 +1,52 @@
+package cz.wedo.api.benchmarks;
+
+import com.google.gson.reflect.TypeToken;
+import cz.wedo.api.definitions.API;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.responses.PkgResponse;
+import cz.wedo.api.services.Requester;
+import cz.wedo.api.services.transport.HttpTransport;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end Requester.callGet against the local WeDo API simulator over the pooled transport.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RequesterEndToEndBenchmark {
+  private static final Type PKG_RESPONSE_TYPE = new TypeToken<PkgResponse>() {}.getType();
+
+  private WeDoSimulator simulator;
+
+  private HttpTransport transport;
+
+  private Requester<Pkg, PkgResponse> requester;
+
+  @Setup
+  public void setup() throws IOException {
+    simulator = new WeDoSimulator.Builder().start();
+    transport = new HttpTransport();
+    requester = new Requester<>("api_user", "api_key", false, transport, simulator.getBaseUrl());
+  }
+
+  @TearDown
+  public void tearDown() {
+    transport.close();
+    simulator.close();
+  }
+
+  @Benchmark
+  public PkgResponse callGet() throws Exception {
+    return requester.callGet(API.TESTV2, "package/46F00000012", null, false, false, PKG_RESPONSE_TYPE, null, null);
+  }
+}
@@ -0,0 +1,60 @@
+package cz.wedo.api.benchmarks;
+
+import com.google.gson.reflect.TypeToken;
+import cz.wedo.api.models.responses.PkgList;
+import cz.wedo.api.models.responses.PkgResponse;
+import cz.wedo.api.utils.GsonUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response side hot path: decoding API responses through processGsonResponse.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDeserializationBenchmark {
+  private static final Type PKG_LIST_TYPE = new TypeToken<ArrayList<PkgList>>() {}.getType();
+
+  @Param({"10", "1000"})
+  public int packages;
+
+  private byte[] pkgListJson;
+
+  private byte[] pkgResponseJson;
+
+  @Setup
+  public void setup() {
+    pkgListJson = Fixtures.pkgListJson(packages).getBytes(StandardCharsets.UTF_8);
+    pkgResponseJson = Fixtures.pkgResponseJson().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public ArrayList<PkgList> processPkgList() throws IOException {
+    return RequesterBaseAccess.gsonResponse(PKG_LIST_TYPE, response(pkgListJson), GsonUtils.getGsonTDate());
+  }
+
+  @Benchmark
+  public PkgResponse processPkgResponse() throws IOException {
+    return RequesterBaseAccess.gsonResponse(PkgResponse.class, response(pkgResponseJson), GsonUtils.getGsonStandardDate());
+  }
+
+  private static HttpResponse response(byte[] content) {
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(new ByteArrayEntity(content, ContentType.APPLICATION_JSON));
+    return response;
+  }
+}
@@ -0,0 +1,93 @@
+package cz.wedo.api.benchmarks;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.responses.PkgResponse;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.services.transport.TransportType;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent package creation against the local WeDo API simulator over the blocking transports (Apache, JDK, OkHttp)
+ * and the non-blocking transport with HTTP/1.1 or HTTP/2.
+ * The sample mode reports the latency percentiles (p99 included); the {@code connections} and {@code requests}
+ * secondary results report the connections opened by each transport and the requests served per iteration.
+ * The simulator speaks HTTP/1.1 only, so HTTP/2 measures the fallback; run it against an HTTP/2 server to see multiplexing.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+  @Param({"APACHE", "JDK", "OKHTTP", "ASYNC_HTTP_1_1", "ASYNC_HTTP_2"})
+  private String transport;
+
+  private WeDoSimulator simulator;
+
+  private WeDoApi api;
+
+  /**
+   * Connections of the simulator already reported by a thread.
+   */
+  private final AtomicLong reportedConnections = new AtomicLong();
+
+  /**
+   * Connections opened and requests served, summed over the threads.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long connections;
+
+    public long requests;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      connections = 0;
+      requests = 0;
+    }
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(5)).start();
+    api = new WeDoApi.Builder()
+        .setApiUser("api_user")
+        .setApiKey("api_key")
+        .setBaseUrl(simulator.getBaseUrl())
+        .setRetryPolicy(RetryPolicy.NONE)
+        .setTransportType(transport.startsWith("ASYNC") ? TransportType.APACHE : TransportType.valueOf(transport))
+        .setHttpVersion(transport.equals("ASYNC_HTTP_2") ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+        .build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    api.close();
+    simulator.close();
+  }
+
+  @Benchmark
+  public PkgResponse createPackage(Counters counters) throws Exception {
+    PkgResponse response = transport.startsWith("ASYNC")
+        ? api.async().createPackage(new Pkg(), "N2079").get()
+        : api.createPackage(new Pkg(), "N2079");
+    counters.requests++;
+    long reported = reportedConnections.get();
+    long opened = simulator.getConnectionCount();
+    if (opened > reported && reportedConnections.compareAndSet(reported, opened)) {
+      counters.connections += opened - reported;
+    }
+    return response;
+  }
+}
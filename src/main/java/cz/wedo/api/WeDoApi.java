@@ -4,99 +4,660 @@ import com.google.gson.reflect.TypeToken;
 import cz.wedo.api.definitions.API;
 import cz.wedo.api.definitions.Dimensions;
 import cz.wedo.api.definitions.Format;
+import cz.wedo.api.definitions.RequestType;
 import cz.wedo.api.exceptions.BadRequestException;
+import cz.wedo.api.exceptions.CircuitBreakerOpenException;
 import cz.wedo.api.exceptions.UnauthorizedException;
 import cz.wedo.api.models.Articles;
 import cz.wedo.api.models.Pkg;
 import cz.wedo.api.models.errors.ErrorMessageException;
 import cz.wedo.api.models.responses.*;
 import cz.wedo.api.services.Requester;
+import cz.wedo.api.services.breaker.CircuitBreakerRegistry;
+import cz.wedo.api.services.bulk.BulkExecutor;
+import cz.wedo.api.services.bulk.BulkProgressListener;
+import cz.wedo.api.services.bulk.BulkResult;
+import cz.wedo.api.services.cache.CachePolicy;
+import cz.wedo.api.services.cache.RefreshingCache;
+import cz.wedo.api.services.coalescing.SingleFlight;
+import cz.wedo.api.services.idempotency.PackageIndex;
+import cz.wedo.api.services.metrics.MetricsRegistry;
+import cz.wedo.api.services.pickup.PickupPlaceIndex;
+import cz.wedo.api.services.ratelimit.RateLimiter;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.services.tenant.ConcurrencyQuota;
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import cz.wedo.api.services.transport.HttpTransport;
+import cz.wedo.api.services.transport.JdkHttpTransport;
+import cz.wedo.api.services.transport.Transport;
+import cz.wedo.api.services.transport.TransportType;
+import cz.wedo.api.utils.ErrorUtils;
 import cz.wedo.api.utils.GsonUtils;
-import lombok.Setter;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * This class represents an API client for interacting with the WeDoApi service.
  */
 @Slf4j
-@Setter
-public class WeDoApi {
+public class WeDoApi implements AutoCloseable {
 	/**
 	 * Represents the username used for API authentication.
 	 */
-	private String apiUser;
+	@Getter(AccessLevel.PACKAGE)
+	private final String apiUser;
 
 	/**
 	 * The API key used for authentication.
 	 */
-	private String apiKey;
+	@Getter(AccessLevel.PACKAGE)
+	private final String apiKey;
 
 	/**
 	 * Represents the environment of the application.
 	 */
-	private API env = API.TESTV2;
+	@Getter(AccessLevel.PACKAGE)
+	private final API env;
+
+	/**
+	 * Custom base URL overriding the URL of the environment, e.g. a local simulator.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final URL baseUrl;
+
+	/**
+	 * Registry receiving per-endpoint call counts, errors, transferred bytes and latencies.
+	 */
+	@Getter
+	private final MetricsRegistry metrics;
+
+	/**
+	 * Policy deciding which failed calls are retried.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final RetryPolicy retryPolicy;
+
+	/**
+	 * Rate limiter pacing the requests of this client, null for no limit.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final RateLimiter rateLimiter;
+
+	/**
+	 * Circuit breakers failing fast while an endpoint group is degraded, null for none.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final CircuitBreakerRegistry circuitBreakers;
+
+	/**
+	 * Coalescing of identical concurrent GET calls, null to send every call.
+	 * Coalesced callers share the same response object, which must be treated as read-only.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final SingleFlight singleFlight;
+
+	/**
+	 * Lifetime of the cached pickup places and distribution points, null to call the API on every read.
+	 */
+	private final CachePolicy cachePolicy;
+
+	/**
+	 * Cached pickup places, null without cache policy.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final RefreshingCache<PickupPlaceResponse> pickupPlaceCache;
+
+	/**
+	 * Cached distribution points, null without cache policy.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final RefreshingCache<PickupPlaceResponse> distributionPointCache;
+
+	/**
+	 * Search index of the pickup places, updated when the list changes.
+	 */
+	private volatile PickupPlaceIndex pickupPlaceIndex = PickupPlaceIndex.EMPTY;
+
+	/**
+	 * Pickup place list the search index was built from.
+	 */
+	private volatile PickupPlaceResponse indexedPickupPlaces;
+
+	private final Object pickupPlaceIndexLock = new Object();
+
+	/**
+	 * Connect, read and pool-acquire timeouts and the deadline of the calls.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final TimeoutPolicy timeoutPolicy;
+
+	/**
+	 * Index making package creation idempotent, null to post every package.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final PackageIndex packageIndex;
+
+	/**
+	 * Package creations in progress by department and reference number, joined by concurrent submissions of the same package.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<List<String>, CompletableFuture<PkgResponse>> packagesInFlight = new ConcurrentHashMap<>();
 
 	/**
 	 * The customer ID is a unique identifier assigned to each customer.
 	 */
-	private String customerId = null;
+	@Getter(AccessLevel.PACKAGE)
+	private final String customerId;
+
+	/**
+	 * Whether responses are requested gzip-compressed and large request bodies are compressed.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final boolean gzip;
+
+	/**
+	 * Maximum number of calls of this client in flight, null for no limit.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final ConcurrencyQuota quota;
+
+	/**
+	 * HTTP version of the non-blocking transport; with HTTP/2, bulk operations multiplex their calls over it.
+	 */
+	private final HttpClient.Version httpVersion;
+
+	/**
+	 * Maximum number of pooled connections in total.
+	 */
+	private final int maxConnections;
+
+	/**
+	 * Maximum number of pooled connections per route.
+	 */
+	private final int maxConnectionsPerRoute;
+
+	/**
+	 * HTTP engine of the blocking calls.
+	 */
+	private final TransportType transportType;
+
+	/**
+	 * Whether server certificates must be trusted by the JVM; otherwise self-signed certificates are accepted too.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final boolean sslVerify;
+
+	/**
+	 * Transport shared by all blocking requests of this client, created on first use.
+	 */
+	private volatile Transport transport;
+
+	/**
+	 * Non-blocking transport used by the asynchronous view, created on first use.
+	 */
+	private volatile JdkHttpTransport asyncTransport;
 
-	private static WeDoApi instance;
+	/**
+	 * Guards the creation and closing of the transports; calls with a transport in place do not lock.
+	 */
+	private final Object transportLock = new Object();
+
+	/**
+	 * Whether the transports are shared with other clients, see {@link WeDoClientRegistry}, and closed by their owner.
+	 */
+	private final boolean sharedTransports;
 
-	public static synchronized WeDoApi getInstance() {
-		if (instance == null) {
-			instance = new WeDoApi();
+	/**
+	 * Whether {@link #close()} was called; a closed client does not create new transports.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Asynchronous view of this client.
+	 */
+	private final WeDoAsyncApi async;
+
+	/**
+	 * Client returned by {@link #getInstance()}: the last one built.
+	 */
+	private static volatile WeDoApi instance;
+
+	WeDoApi(Builder builder) {
+		this.apiUser = builder.apiUser;
+		this.apiKey = builder.apiKey;
+		this.env = builder.env;
+		this.baseUrl = builder.baseUrl;
+		this.metrics = builder.metrics;
+		this.retryPolicy = withPackageRetries(builder.retryPolicy, builder.packageIndex);
+		this.rateLimiter = builder.rateLimiter;
+		this.circuitBreakers = builder.circuitBreakers;
+		this.timeoutPolicy = builder.timeoutPolicy;
+		this.singleFlight = builder.coalesceRequests ? new SingleFlight() : null;
+		this.cachePolicy = builder.cachePolicy;
+		this.pickupPlaceCache = cachePolicy != null ? new RefreshingCache<>(cachePolicy, this::fetchPickupPlaceList) : null;
+		this.distributionPointCache = cachePolicy != null ? new RefreshingCache<>(cachePolicy, this::fetchDistributionPointList) : null;
+		this.packageIndex = builder.packageIndex;
+		this.customerId = builder.customerId;
+		this.gzip = builder.gzip;
+		this.maxConnections = builder.maxConnections;
+		this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+		this.httpVersion = builder.httpVersion;
+		this.transportType = builder.transportType;
+		this.sslVerify = builder.sslVerify;
+		this.quota = builder.maxConcurrentCalls > 0 ? new ConcurrencyQuota(builder.maxConcurrentCalls) : null;
+		this.transport = builder.transport;
+		this.asyncTransport = builder.asyncTransport;
+		this.sharedTransports = builder.transport != null;
+		this.async = new WeDoAsyncApi(this);
+	}
+
+	/**
+	 * Returns the client built last, or a client with the default settings when none was built yet.
+	 *
+	 * @return the shared client
+	 * @deprecated kept for compatibility; keep the client returned by {@link Builder#build()} instead,
+	 * several differently configured clients can be used side by side.
+	 */
+	@Deprecated
+	public static WeDoApi getInstance() {
+		WeDoApi current = instance;
+		if (current != null) {
+			return current;
+		}
+		synchronized (WeDoApi.class) {
+			if (instance == null) {
+				instance = new WeDoApi(new Builder());
+			}
+			return instance;
 		}
-		return instance;
 	}
 
 	/**
 	 * The Builder class is used to construct an instance of WeDoApi.
+	 * Every {@link #build()} returns a new immutable client, safe to share across threads.
 	 */
 	public static class Builder {
-		public Builder() {
-			WeDoApi.getInstance().cleanDefault();
-		}
+		private String apiUser = null;
+		private String apiKey = null;
+		private API env = API.TESTV2;
+		private URL baseUrl = null;
+		private MetricsRegistry metrics = MetricsRegistry.NOOP;
+		private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+		private RateLimiter rateLimiter = null;
+		private CircuitBreakerRegistry circuitBreakers = null;
+		private TimeoutPolicy timeoutPolicy = TimeoutPolicy.DEFAULT;
+		private boolean coalesceRequests = false;
+		private CachePolicy cachePolicy = null;
+		private PackageIndex packageIndex = null;
+		private String customerId = null;
+		private boolean gzip = false;
+		private int maxConnections = HttpTransport.DEFAULT_MAX_TOTAL;
+		private int maxConnectionsPerRoute = HttpTransport.DEFAULT_MAX_PER_ROUTE;
+		private int maxConcurrentCalls = 0;
+		private HttpClient.Version httpVersion = HttpClient.Version.HTTP_1_1;
+		private TransportType transportType = TransportType.APACHE;
+		private boolean sslVerify = false;
+		private Transport transport = null;
+		private JdkHttpTransport asyncTransport = null;
 
 		public Builder setApiUser(String apiUser) {
-			WeDoApi.getInstance().setApiUser(apiUser);
+			this.apiUser = apiUser;
 			return this;
 		}
 
 		public Builder setApiKey(String apiKey) {
-			WeDoApi.getInstance().setApiKey(apiKey);
+			this.apiKey = apiKey;
 			return this;
 		}
 
 		public Builder setApi(API env) {
-			WeDoApi.getInstance().setEnv(env);
+			this.env = env;
+			return this;
+		}
+
+		public Builder setBaseUrl(URL baseUrl) {
+			this.baseUrl = baseUrl != null ? API.normalizeBaseUrl(baseUrl) : null;
+			return this;
+		}
+
+		public Builder setBaseUrl(String baseUrl) {
+			this.baseUrl = API.parseBaseUrl(baseUrl);
+			return this;
+		}
+
+		public Builder setMetrics(MetricsRegistry metrics) {
+			this.metrics = metrics != null ? metrics : MetricsRegistry.NOOP;
+			return this;
+		}
+
+		public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+			this.retryPolicy = retryPolicy != null ? retryPolicy : RetryPolicy.NONE;
+			return this;
+		}
+
+		public Builder setRateLimiter(RateLimiter rateLimiter) {
+			this.rateLimiter = rateLimiter;
+			return this;
+		}
+
+		public Builder setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+			this.circuitBreakers = circuitBreakers;
+			return this;
+		}
+
+		public Builder setTimeoutPolicy(TimeoutPolicy timeoutPolicy) {
+			this.timeoutPolicy = timeoutPolicy != null ? timeoutPolicy : TimeoutPolicy.DEFAULT;
+			return this;
+		}
+
+		/**
+		 * Lets identical concurrent GET calls share one request, off by default.
+		 * The callers then receive the same response object, which they must treat as read-only.
+		 *
+		 * @param coalesceRequests whether identical concurrent GET calls are coalesced
+		 * @return this builder
+		 */
+		public Builder setCoalesceRequests(boolean coalesceRequests) {
+			this.coalesceRequests = coalesceRequests;
+			return this;
+		}
+
+		/**
+		 * Sets the lifetime of the cached pickup places and distribution points.
+		 *
+		 * @param cachePolicy the cache policy, null to call the API on every read
+		 * @return this builder
+		 */
+		public Builder setCachePolicy(CachePolicy cachePolicy) {
+			this.cachePolicy = cachePolicy;
+			return this;
+		}
+
+		public Builder setPackageIndex(PackageIndex packageIndex) {
+			this.packageIndex = packageIndex;
 			return this;
 		}
 
 		public Builder setCustomerId(String customerId) {
-			WeDoApi.getInstance().setCustomerId(customerId);
+			this.customerId = customerId;
+			return this;
+		}
+
+		public Builder setGzip(boolean gzip) {
+			this.gzip = gzip;
+			return this;
+		}
+
+		public Builder setMaxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+			return this;
+		}
+
+		public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		/**
+		 * Sets the HTTP version of the non-blocking transport used by {@link WeDoApi#async()}.
+		 * With {@link HttpClient.Version#HTTP_2}, concurrent calls are multiplexed over few connections, falling back to HTTP/1.1
+		 * when the server does not negotiate HTTP/2; the bulk operations then send their calls over this transport too.
+		 *
+		 * @param httpVersion the HTTP version, HTTP/1.1 by default
+		 * @return this builder
+		 */
+		public Builder setHttpVersion(HttpClient.Version httpVersion) {
+			this.httpVersion = httpVersion != null ? httpVersion : HttpClient.Version.HTTP_1_1;
+			return this;
+		}
+
+		/**
+		 * Sets the HTTP engine of the blocking calls; the asynchronous API always runs on the JDK client.
+		 *
+		 * @param transportType the engine, Apache HttpClient by default
+		 * @return this builder
+		 */
+		public Builder setTransportType(TransportType transportType) {
+			this.transportType = transportType != null ? transportType : TransportType.APACHE;
+			return this;
+		}
+
+		/**
+		 * Enables verification of server certificates against the trust store of the JVM; by default self-signed
+		 * certificates are accepted as well. Host names are verified in both cases.
+		 *
+		 * @param sslVerify whether server certificates must be trusted by the JVM
+		 * @return this builder
+		 */
+		public Builder setSslVerify(boolean sslVerify) {
+			this.sslVerify = sslVerify;
 			return this;
 		}
 
+		/**
+		 * Limits the number of calls of the client in flight at once.
+		 *
+		 * @param maxConcurrentCalls the maximum number of calls in flight, 0 for no limit
+		 * @return this builder
+		 */
+		public Builder setMaxConcurrentCalls(int maxConcurrentCalls) {
+			this.maxConcurrentCalls = maxConcurrentCalls;
+			return this;
+		}
+
+		/**
+		 * Makes the client use the given transports, owned and closed by the caller.
+		 */
+		Builder setTransports(Transport transport, JdkHttpTransport asyncTransport) {
+			this.transport = transport;
+			this.asyncTransport = asyncTransport;
+			return this;
+		}
+
+		/**
+		 * Returns a builder with the settings of this one.
+		 */
+		Builder copy() {
+			Builder copy = new Builder();
+			copy.apiUser = apiUser;
+			copy.apiKey = apiKey;
+			copy.env = env;
+			copy.baseUrl = baseUrl;
+			copy.metrics = metrics;
+			copy.retryPolicy = retryPolicy;
+			copy.rateLimiter = rateLimiter;
+			copy.circuitBreakers = circuitBreakers;
+			copy.timeoutPolicy = timeoutPolicy;
+			copy.coalesceRequests = coalesceRequests;
+			copy.cachePolicy = cachePolicy;
+			copy.packageIndex = packageIndex;
+			copy.customerId = customerId;
+			copy.gzip = gzip;
+			copy.maxConnections = maxConnections;
+			copy.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			copy.maxConcurrentCalls = maxConcurrentCalls;
+			copy.httpVersion = httpVersion;
+			copy.transportType = transportType;
+			copy.sslVerify = sslVerify;
+			copy.transport = transport;
+			copy.asyncTransport = asyncTransport;
+			return copy;
+		}
+
+		TimeoutPolicy getTimeoutPolicy() {
+			return timeoutPolicy;
+		}
+
+		HttpClient.Version getHttpVersion() {
+			return httpVersion;
+		}
+
+		boolean isSslVerify() {
+			return sslVerify;
+		}
+
+		RateLimiter getRateLimiter() {
+			return rateLimiter;
+		}
+
+		PackageIndex getPackageIndex() {
+			return packageIndex;
+		}
+
+		/**
+		 * Creates a transport of the configured engine.
+		 */
+		Transport createTransport() {
+			return transportType.create(maxConnections, maxConnectionsPerRoute, timeoutPolicy, httpVersion, sslVerify);
+		}
+
+		/**
+		 * Builds a new client; it also becomes the client returned by {@link WeDoApi#getInstance()}.
+		 *
+		 * @return the client
+		 */
 		public WeDoApi build() {
-			return WeDoApi.getInstance();
+			WeDoApi api = new WeDoApi(this);
+			instance = api;
+			return api;
+		}
+	}
+
+	/**
+	 * Drops the cached pickup places and distribution points, the next reads call the API.
+	 * The pickup place index is updated by the next call of {@link #getPickupPlaceIndex()}.
+	 */
+	public void invalidateReferenceData() {
+		Optional.ofNullable(pickupPlaceCache).ifPresent(RefreshingCache::invalidate);
+		Optional.ofNullable(distributionPointCache).ifPresent(RefreshingCache::invalidate);
+		indexedPickupPlaces = null;
+	}
+
+	/**
+	 * Returns the transport of the blocking calls, creating it on first use.
+	 *
+	 * @return the shared transport of this client
+	 */
+	private Transport transport() {
+		checkOpen();
+		Transport current = transport;
+		if (current != null) {
+			return current;
+		}
+		synchronized (transportLock) {
+			checkOpen();
+			if (transport == null) {
+				transport = transportType.create(maxConnections, maxConnectionsPerRoute, timeoutPolicy, httpVersion, sslVerify);
+			}
+			return transport;
+		}
+	}
+
+	/**
+	 * Creates a requester bound to the credentials, transport and resilience policies of this client.
+	 *
+	 * @param <T> The type of the request body.
+	 * @param <K> The type of the response body.
+	 * @return the requester
+	 */
+	private <T, K> Requester<T, K> requester() {
+		Requester<T, K> requester = new Requester<>(apiUser, apiKey, sslVerify, transport(), baseUrl);
+		requester.setMetrics(metrics);
+		requester.setRetryPolicy(retryPolicy);
+		requester.setRateLimiter(rateLimiter);
+		requester.setCircuitBreakers(circuitBreakers);
+		requester.setTimeoutPolicy(timeoutPolicy);
+		requester.setSingleFlight(singleFlight);
+		requester.setQuota(quota);
+		return requester;
+	}
+
+	/**
+	 * Returns the non-blocking transport, creating it on first use.
+	 *
+	 * @return the non-blocking transport of this client
+	 */
+	JdkHttpTransport asyncTransport() {
+		checkOpen();
+		JdkHttpTransport current = asyncTransport;
+		if (current != null) {
+			return current;
+		}
+		synchronized (transportLock) {
+			checkOpen();
+			if (asyncTransport == null) {
+				asyncTransport = new JdkHttpTransport(timeoutPolicy.getConnectTimeout(), httpVersion, sslVerify);
+			}
+			return asyncTransport;
+		}
+	}
+
+	/**
+	 * Fails calls on a client that was closed.
+	 *
+	 * @throws IllegalStateException if the client is closed
+	 */
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("The client is closed");
 		}
 	}
 
 	/**
-	 * Sets the API version to API.V2 and clears the values of username, apiKey, eshopName, and serverCode.
+	 * Returns the asynchronous view of this client.
+	 * Its methods return {@link java.util.concurrent.CompletableFuture} and run on a non-blocking HTTP engine.
+	 *
+	 * @return the asynchronous API
 	 */
-	private void cleanDefault() {
-		apiUser = null;
-		apiKey = null;
-		env = API.TESTV2;
-		customerId = null;
+	public WeDoAsyncApi async() {
+		return async;
+	}
+
+	/**
+	 * Closes the pooled transports and releases all their connections.
+	 * Calls made after closing fail with {@link IllegalStateException}.
+	 * Transports shared through a {@link WeDoClientRegistry} are left open, the registry closes them.
+	 */
+	@Override
+	public void close() {
+		synchronized (transportLock) {
+			closed = true;
+			if (sharedTransports) {
+				return;
+			}
+			if (transport != null) {
+				transport.close();
+				transport = null;
+			}
+			if (asyncTransport != null) {
+				asyncTransport.close();
+				asyncTransport = null;
+			}
+		}
 	}
 
 	/**
@@ -107,8 +668,8 @@ public class WeDoApi {
 	 */
 	public ArrayList<PkgList> getPackageList() throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, ArrayList<PkgList>>(apiUser, apiKey, false);
-      return (ArrayList<PkgList>) requester.callGet(env, "package", null, false, false, new TypeToken<ArrayList<PkgList>>() {}.getType(), GsonUtils.getGsonTDate(), customerId, null);
+			Requester requester = this.<Pkg, ArrayList<PkgList>>requester();
+      return (ArrayList<PkgList>) requester.callGet(env, "package", null, false, gzip, new TypeToken<ArrayList<PkgList>>() {}.getType(), GsonUtils.getGsonTDate(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -130,8 +691,8 @@ public class WeDoApi {
 	 */
 	public ArrayList<PkgList> getPackageList(String department) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, ArrayList<PkgList>>(apiUser, apiKey, false);
-      return (ArrayList<PkgList>) requester.callGet(env, "package", null, false, false, new TypeToken<ArrayList<PkgList>>() {}.getType(), GsonUtils.getGsonTDate(), customerId, department);
+			Requester requester = this.<Pkg, ArrayList<PkgList>>requester();
+      return (ArrayList<PkgList>) requester.callGet(env, "package", null, false, gzip, new TypeToken<ArrayList<PkgList>>() {}.getType(), GsonUtils.getGsonTDate(), customerId, department);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -144,8 +705,40 @@ public class WeDoApi {
 		}
 	}
 
+	/**
+	 * Vrací seznam vlastních zásilek jako stream, který čte zásilky postupně z otevřené odpovědi.
+	 * Memory use stays constant whatever the number of packages; close the stream to release the connection.
+	 *
+	 * @return a stream of PkgList objects representing the packages
+	 * @throws ErrorMessageException If an error occurs while retrieving the package list.
+	 */
+	public Stream<PkgList> streamPackageList() throws ErrorMessageException {
+		return streamPackageList(null);
+	}
+
+	/**
+	 * Vrací seznam vlastních zásilek pro pickup point jako stream, který čte zásilky postupně z otevřené odpovědi.
+	 * Memory use stays constant whatever the number of packages; close the stream to release the connection.
+	 *
+	 * @param department the department to filter the packages by, null for all packages
+	 * @return a stream of PkgList objects representing the packages
+	 * @throws ErrorMessageException if there is an error retrieving the package list
+	 */
+	public Stream<PkgList> streamPackageList(String department) throws ErrorMessageException {
+		try {
+			Requester<Pkg, PkgList> requester = requester();
+			return requester.callGetStream(env, "package", null, gzip, PkgList.class, GsonUtils.getGsonTDate(), customerId, department);
+		} catch (ErrorMessageException e) {
+			log.error(String.format("Exception error message request: %s", e.getMessage()), e);
+			throw e;
+		}
+	}
+
 	/**
 	 * Vytvoří novou zásilku. V těle požadavku je datová struktura.
+	 * With a {@link PackageIndex} set, a package whose reference number was already created in the department is answered
+	 * from the index instead of being created again, and a package whose creation ended without a known outcome is reconciled
+	 * with the package list before it is posted again, so that failed calls can be retried without creating duplicates.
 	 *
 	 * @param pkg The package to be created.
 	 * @param department The department associated with the package.
@@ -153,9 +746,173 @@ public class WeDoApi {
 	 * @throws ErrorMessageException If an error occurs while creating the package.
 	 */
 	public PkgResponse createPackage(Pkg pkg, String department) throws ErrorMessageException {
+		if (packageIndex == null || pkg.getReferenceNumber() == null) {
+			return postPackage(pkg, department);
+		}
+		List<String> key = Arrays.asList(department, pkg.getReferenceNumber());
+		CompletableFuture<PkgResponse> created = new CompletableFuture<>();
+		CompletableFuture<PkgResponse> running = packagesInFlight.putIfAbsent(key, created);
+		if (running != null) {
+			return await(running);
+		}
+		try {
+			PkgResponse response = createIndexedPackage(pkg, department);
+			created.complete(response);
+			return response;
+		} catch (ErrorMessageException | RuntimeException e) {
+			created.completeExceptionally(e);
+			throw e;
+		} finally {
+			packagesInFlight.remove(key, created);
+		}
+	}
+
+	/**
+	 * Vytvoří nové zásilky. Creates the packages concurrently over the pooled transport, see {@link #createPackage(Pkg, String)}.
+	 *
+	 * @param packages    The packages to be created.
+	 * @param department  The department associated with the packages.
+	 * @param parallelism The maximum number of packages created at once.
+	 * @return The outcome of every package in the order of the packages.
+	 */
+	public List<BulkResult<PkgResponse>> createPackages(List<Pkg> packages, String department, int parallelism) {
+		return createPackages(packages, department, parallelism, null);
+	}
+
+	/**
+	 * Vytvoří nové zásilky. Creates the packages concurrently over the pooled transport, see {@link #createPackage(Pkg, String)}.
+	 * At most {@code parallelism} packages are in flight, capped by the pooled connections per route; with HTTP/2
+	 * (see {@link Builder#setHttpVersion(HttpClient.Version)}) they are multiplexed over the non-blocking transport instead, without the cap;
+	 * a failed package does not stop the others, its outcome carries the ErrorMessageException instead.
+	 * The listener is notified from the worker threads, or with HTTP/2 from the threads completing the calls, as each package completes.
+	 *
+	 * @param packages    The packages to be created.
+	 * @param department  The department associated with the packages.
+	 * @param parallelism The maximum number of packages created at once.
+	 * @param listener    The listener notified about every created or failed package, null for none.
+	 * @return The outcome of every package in the order of the packages.
+	 */
+	public List<BulkResult<PkgResponse>> createPackages(List<Pkg> packages, String department, int parallelism, BulkProgressListener<PkgResponse> listener) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(String.format("Invalid parallelism: %d", parallelism));
+		}
+		if (httpVersion == HttpClient.Version.HTTP_2) {
+			return BulkExecutor.runAsync(packages, parallelism, pkg -> async.createPackage(pkg, department), listener);
+		}
+		return BulkExecutor.run(packages, Math.min(parallelism, maxConnectionsPerRoute), pkg -> createPackage(pkg, department), listener);
+	}
+
+	/**
+	 * Creates a package unless the index knows it, see {@link #createPackage(Pkg, String)}.
+	 */
+	private PkgResponse createIndexedPackage(Pkg pkg, String department) throws ErrorMessageException {
+		String referenceNumber = pkg.getReferenceNumber();
+		String orderNumber = packageIndex.get(department, referenceNumber);
+		if (PackageIndex.PENDING.equals(orderNumber)) {
+			orderNumber = reconcilePackage(department, referenceNumber);
+		}
+		if (orderNumber != null) {
+			return getPackageListByOrderNumber(orderNumber);
+		}
+
+		packageIndex.put(department, referenceNumber, PackageIndex.PENDING);
+		try {
+			PkgResponse response = postPackage(pkg, department);
+			if (response != null && response.getOrderNumber() != null) {
+				packageIndex.put(department, referenceNumber, response.getOrderNumber());
+			}
+			return response;
+		} catch (ErrorMessageException | RuntimeException e) {
+			if (!isOutcomeUnknown(e)) {
+				packageIndex.remove(department, referenceNumber);
+				throw e;
+			}
+			try {
+				orderNumber = reconcilePackage(department, referenceNumber);
+			} catch (ErrorMessageException | RuntimeException lookupError) {
+				log.warn(String.format("Package %s left pending: %s", referenceNumber, lookupError.getMessage()));
+			}
+			if (orderNumber == null) {
+				throw e;
+			}
+			return getPackageListByOrderNumber(orderNumber);
+		}
+	}
+
+	/**
+	 * Looks a package up in the package list of the department and indexes it when found.
+	 *
+	 * @param department      the department
+	 * @param referenceNumber the reference number of the package
+	 * @return the order number, null if the package was not created
+	 * @throws ErrorMessageException if the package list cannot be retrieved
+	 */
+	private String reconcilePackage(String department, String referenceNumber) throws ErrorMessageException {
+		try (Stream<PkgList> packages = streamPackageList(department)) {
+			String orderNumber = PackageIndex.findOrderNumber(packages, referenceNumber);
+			if (orderNumber != null) {
+				log.info(String.format("Package %s reconciled as %s", referenceNumber, orderNumber));
+				packageIndex.put(department, referenceNumber, orderNumber);
+			}
+			return orderNumber;
+		}
+	}
+
+	/**
+	 * Allows the package creation to be retried on 503 responses when a package index reconciles resubmitted packages,
+	 * unless the policy overrides the endpoint itself. Other POST endpoints keep the retries of the policy.
+	 */
+	private static RetryPolicy withPackageRetries(RetryPolicy policy, PackageIndex packageIndex) {
+		if (packageIndex == null || policy.forEndpoint(RequestType.POST, "package") != policy) {
+			return policy;
+		}
+		return policy.toBuilder()
+				.setEndpointPolicy(RequestType.POST, "package", policy.toBuilder().setRetryPostUnavailable(true).build())
+				.build();
+	}
+
+	/**
+	 * Waits for a call running asynchronously, e.g. the creation of the same package started by another call.
+	 */
+	private static <V> V await(CompletableFuture<V> running) throws ErrorMessageException {
+		try {
+			return running.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw ErrorUtils.getErrorMessageException(new InterruptedIOException("Interrupted while waiting for the call"));
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ErrorMessageException) {
+				throw (ErrorMessageException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Tells whether a failed package creation may have been processed by the server: network errors and 5xx responses
+	 * leave the outcome unknown, rejected requests (4xx) were not processed and open circuit breakers did not send them.
+	 *
+	 * @param e the failure, possibly wrapped
+	 * @return true if the package may have been created
+	 */
+	static boolean isOutcomeUnknown(Throwable e) {
+		while ((e instanceof CompletionException || e instanceof ExecutionException || e.getClass() == RuntimeException.class) && e.getCause() != null) {
+			e = e.getCause();
+		}
+		if (e instanceof ErrorMessageException) {
+			Integer statusCode = ((ErrorMessageException) e).getStatusCode();
+			return statusCode == null || statusCode == 0 || statusCode >= 500;
+		}
+		return !(e instanceof BadRequestException || e instanceof UnauthorizedException || e instanceof CircuitBreakerOpenException);
+	}
+
+	private PkgResponse postPackage(Pkg pkg, String department) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, ArrayList<PkgResponse>>(apiUser, apiKey, false);
-      return (PkgResponse) requester.callPostObject(env, "package", pkg, false, false, new TypeToken<PkgResponse>() {}.getType(), customerId, department);
+			Requester requester = this.<Pkg, ArrayList<PkgResponse>>requester();
+      return (PkgResponse) requester.callPostObject(env, "package", pkg, false, gzip, new TypeToken<PkgResponse>() {}.getType(), customerId, department);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -177,8 +934,8 @@ public class WeDoApi {
 	 */
 	public ArrayList<DeleteResponse> deletePackageByOrderNumber(String orderNumber) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, ArrayList<DeleteResponse>>(apiUser, apiKey, false);
-      return (ArrayList<DeleteResponse>) requester.callDelete(env, String.format("package/%s", orderNumber), null, false, false, new TypeToken<ArrayList<DeleteResponse>>() {}.getType(), customerId, null);
+			Requester requester = this.<Pkg, ArrayList<DeleteResponse>>requester();
+      return (ArrayList<DeleteResponse>) requester.callDelete(env, String.format("package/%s", orderNumber), null, false, gzip, new TypeToken<ArrayList<DeleteResponse>>() {}.getType(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -200,8 +957,8 @@ public class WeDoApi {
 	 */
 	public PkgResponse getPackageListByOrderNumber(String orderNumber) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, ArrayList<PkgResponse>>(apiUser, apiKey, false);
-      return (PkgResponse) requester.callGet(env, String.format("package/%s", orderNumber), null, false, false, new TypeToken<PkgResponse>() {}.getType(), customerId, null);
+			Requester requester = this.<Pkg, ArrayList<PkgResponse>>requester();
+      return (PkgResponse) requester.callGet(env, String.format("package/%s", orderNumber), null, false, gzip, new TypeToken<PkgResponse>() {}.getType(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -232,10 +989,10 @@ public class WeDoApi {
 		try {
 			format = Optional.ofNullable(format).orElse(Format.PDF);
 			dimensions = Optional.ofNullable(dimensions).orElse(Dimensions.LABEL);
-			Requester requester = new Requester(apiUser, apiKey, false);
+			Requester requester = requester();
 			HashMap<Object, Object> data = new HashMap<>();
 			data.put("format", dimensions.label); // label, a4_2x2, a4, a6.
-			return requester.callGetSaveResponseToFile(env, String.format("package/%s/colli/labels.%s", id, format.label), data, false, false, targetFilename);
+			return requester.callGetSaveResponseToFile(env, String.format("package/%s/colli/labels.%s", id, format.label), data, false, gzip, targetFilename);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -263,11 +1020,11 @@ public class WeDoApi {
 		try {
 			format = Optional.ofNullable(format).orElse(Format.PDF);
 			dimensions = Optional.ofNullable(dimensions).orElse(Dimensions.LABEL);
-			Requester requester = new Requester(apiUser, apiKey, false);
+			Requester requester = requester();
 			HashMap<Object, Object> data = new HashMap<>();
 			data.put("format", dimensions.label); // label, a4_2x2, a4, a6.
 			// /package/{order_number}/labels.{return_type}
-			return requester.callGetSaveResponseToFile(env, String.format("package/%s/labels.%s", id, format.label), data, false, false, targetFilename);
+			return requester.callGetSaveResponseToFile(env, String.format("package/%s/labels.%s", id, format.label), data, false, gzip, targetFilename);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -277,6 +1034,74 @@ public class WeDoApi {
 		}
 	}
 
+	/**
+	 * Získá štítky pro zásilky v zadaném formátu (pdf, zpl) a uloží je do adresáře jako {@code <order number>.<format>}.
+	 *
+	 * @param orderNumbers The order numbers of the packages.
+	 * @param format       The format of the labels. If null, PDF will be used.
+	 * @param dimensions   The dimensions of the labels. If null, LABEL will be used.
+	 * @param directory    The directory to save the labels to, created if missing.
+	 * @param parallelism  The maximum number of labels downloaded at once.
+	 * @return The saved file or the error of every package in the order of the order numbers.
+	 * @throws ErrorMessageException If the directory cannot be created.
+	 */
+	public List<BulkResult<Path>> saveLabels(Collection<String> orderNumbers, Format format, Dimensions dimensions, Path directory, int parallelism) throws ErrorMessageException {
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw ErrorUtils.getErrorMessageException(e);
+		}
+		String extension = Optional.ofNullable(format).orElse(Format.PDF).label;
+		return saveLabels(orderNumbers, format, dimensions, id -> directory.resolve(String.format("%s.%s", id, extension)), parallelism, null);
+	}
+
+	/**
+	 * Získá štítky pro zásilky v zadaném formátu (pdf, zpl), see {@link #savePdfLabelsForIdAs(Format, Dimensions, String, String)}.
+	 * At most {@code parallelism} labels are downloaded at once, capped by the pooled connections per route unless they are
+	 * multiplexed over HTTP/2 (see {@link Builder#setHttpVersion(HttpClient.Version)}); each label is
+	 * streamed to its file as it arrives. A failed label does not stop the others, its outcome carries the ErrorMessageException instead.
+	 * The listener is notified from the worker threads, or with HTTP/2 from the threads completing the calls, as each label completes.
+	 *
+	 * @param orderNumbers The order numbers of the packages.
+	 * @param format       The format of the labels. If null, PDF will be used.
+	 * @param dimensions   The dimensions of the labels. If null, LABEL will be used.
+	 * @param target       The file to save the labels of an order number to.
+	 * @param parallelism  The maximum number of labels downloaded at once.
+	 * @param listener     The listener notified about every saved or failed label, null for none.
+	 * @return The saved file or the error of every package in the order of the order numbers.
+	 */
+	public List<BulkResult<Path>> saveLabels(Collection<String> orderNumbers, Format format, Dimensions dimensions, Function<String, Path> target,
+	                                         int parallelism, BulkProgressListener<Path> listener) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(String.format("Invalid parallelism: %d", parallelism));
+		}
+		if (httpVersion == HttpClient.Version.HTTP_2) {
+			return BulkExecutor.runAsync(new ArrayList<>(orderNumbers), parallelism, id -> {
+				Path file = target.apply(id);
+				return async.savePdfLabelsForIdAs(format, dimensions, id, file.toString()).thenApply(saved -> {
+					if (!saved) {
+						throw new CompletionException(labelsNotSaved(id));
+					}
+					return file;
+				});
+			}, listener);
+		}
+		return BulkExecutor.run(new ArrayList<>(orderNumbers), Math.min(parallelism, maxConnectionsPerRoute), id -> {
+			Path file = target.apply(id);
+			if (!savePdfLabelsForIdAs(format, dimensions, id, file.toString())) {
+				throw labelsNotSaved(id);
+			}
+			return file;
+		}, listener);
+	}
+
+	private static ErrorMessageException labelsNotSaved(String id) {
+		ErrorMessageException e = new ErrorMessageException();
+		e.setMessage(String.format("Labels of %s were not saved", id));
+		e.setStatusCode(0);
+		return e;
+	}
+
 	/**
 	 * Vytvoří a odešle dávku zásilek ke zpracování.
 	 *
@@ -286,8 +1111,8 @@ public class WeDoApi {
 	 */
 	public BatchResponse createBatch(Articles articles) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Articles, BatchResponse>(apiUser, apiKey, false);
-      return (BatchResponse) requester.callPostObject(env, "batch", articles, false, false, new TypeToken<BatchResponse>() {}.getType(), customerId, null);
+			Requester requester = this.<Articles, BatchResponse>requester();
+      return (BatchResponse) requester.callPostObject(env, "batch", articles, false, gzip, new TypeToken<BatchResponse>() {}.getType(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -310,11 +1135,11 @@ public class WeDoApi {
 	 */
 	public PickupResponse orderPickup(Date date, String department) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Articles, PickupResponse>(apiUser, apiKey, false);
+			Requester requester = this.<Articles, PickupResponse>requester();
 			HashMap<Object, Object> data = new HashMap<>();
 			SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
 			data.put("pickup_date", sdf.format(date));
-      return (PickupResponse) requester.callPostGsonTDate(env, "pickup", data, false, false, new TypeToken<PickupResponse>() {}.getType(), customerId, department);
+      return (PickupResponse) requester.callPostGsonTDate(env, "pickup", data, false, gzip, new TypeToken<PickupResponse>() {}.getType(), customerId, department);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -336,8 +1161,8 @@ public class WeDoApi {
 	 */
 	public BatchDetailResponse getBatchByNumber(String number) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, BatchDetailResponse>(apiUser, apiKey, false);
-      return (BatchDetailResponse) requester.callGet(env, String.format("batch/%s", number), null, false, false, new TypeToken<BatchDetailResponse>() {}.getType(), customerId, null);
+			Requester requester = this.<Pkg, BatchDetailResponse>requester();
+      return (BatchDetailResponse) requester.callGet(env, String.format("batch/%s", number), null, false, gzip, new TypeToken<BatchDetailResponse>() {}.getType(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -360,8 +1185,8 @@ public class WeDoApi {
 	 */
 	public boolean saveBatchManifestPdfByNumber(String number, String targetFilename) throws ErrorMessageException {
 		try {
-			Requester requester = new Requester(apiUser, apiKey, false);
-			return requester.callGetSaveResponseToFile(env, String.format("batch/%s/manifest.pdf", number), null, false, false, targetFilename);
+			Requester requester = requester();
+			return requester.callGetSaveResponseToFile(env, String.format("batch/%s/manifest.pdf", number), null, false, gzip, targetFilename);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -390,8 +1215,8 @@ public class WeDoApi {
 			}
 			HashMap<Object, Object> data = new HashMap<>();
 			data.put("format", dimensions.label); // label, a4_2x2, a4, a6.
-			Requester requester = new Requester(apiUser, apiKey, false);
-			return requester.callGetSaveResponseToFile(env, String.format("batch/%s/labels.pdf", number), data, false, false, targetFilename);
+			Requester requester = requester();
+			return requester.callGetSaveResponseToFile(env, String.format("batch/%s/labels.pdf", number), data, false, gzip, targetFilename);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -406,14 +1231,20 @@ public class WeDoApi {
 
 	/**
 	 * Returning json containing list of customer pickup places.
+	 * With a cache policy set, the cached list is returned, see {@link Builder#setCachePolicy(CachePolicy)}.
 	 *
 	 * @return The response object containing the pickup places.
 	 * @throws ErrorMessageException If there is an error retrieving the pickup places.
 	 */
 	public PickupPlaceResponse getPickupPlaceList() throws ErrorMessageException {
+		RefreshingCache<PickupPlaceResponse> cache = pickupPlaceCache;
+		return cache != null ? cache.get() : fetchPickupPlaceList();
+	}
+
+	private PickupPlaceResponse fetchPickupPlaceList() throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, PickupPlaceResponse>(apiUser, apiKey, false);
-      return (PickupPlaceResponse) requester.callGet(env, "pickup-place", null, false, false, new TypeToken<PickupPlaceResponse>() {}.getType(), GsonUtils.getGsonTDate(), customerId, null);
+			Requester requester = this.<Pkg, PickupPlaceResponse>requester();
+      return (PickupPlaceResponse) requester.callGet(env, "pickup-place", null, false, gzip, new TypeToken<PickupPlaceResponse>() {}.getType(), GsonUtils.getGsonTDate(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
@@ -426,16 +1257,69 @@ public class WeDoApi {
 		}
 	}
 
+	/**
+	 * Returns the search index of the customer pickup places, see {@link #getPickupPlaceList()}.
+	 * With a cache policy set, the index follows the cached list and is updated incrementally whenever the list is refreshed.
+	 * Without one, the list is downloaded on the first call only and the index is kept until it is refreshed explicitly
+	 * with {@link #refreshPickupPlaceIndex()} or {@link #invalidateReferenceData()}.
+	 *
+	 * @return The search index of the pickup places.
+	 * @throws ErrorMessageException If there is an error retrieving the pickup places.
+	 */
+	public PickupPlaceIndex getPickupPlaceIndex() throws ErrorMessageException {
+		if (pickupPlaceCache != null) {
+			return indexPickupPlaces(pickupPlaceCache.get());
+		}
+		if (indexedPickupPlaces != null) {
+			return pickupPlaceIndex;
+		}
+		synchronized (pickupPlaceIndexLock) {
+			return indexedPickupPlaces != null ? pickupPlaceIndex : indexPickupPlaces(fetchPickupPlaceList());
+		}
+	}
+
+	/**
+	 * Downloads the customer pickup places again and updates the search index, re-indexing just the places that changed.
+	 * With a cache policy set, the cached list is replaced as well.
+	 *
+	 * @return The updated search index of the pickup places.
+	 * @throws ErrorMessageException If there is an error retrieving the pickup places.
+	 */
+	public PickupPlaceIndex refreshPickupPlaceIndex() throws ErrorMessageException {
+		PickupPlaceResponse places = fetchPickupPlaceList();
+		Optional.ofNullable(pickupPlaceCache).ifPresent(cache -> cache.put(places));
+		return indexPickupPlaces(places);
+	}
+
+	private PickupPlaceIndex indexPickupPlaces(PickupPlaceResponse places) {
+		if (places == indexedPickupPlaces) {
+			return pickupPlaceIndex;
+		}
+		synchronized (pickupPlaceIndexLock) {
+			if (places != indexedPickupPlaces) {
+				pickupPlaceIndex = pickupPlaceIndex.update(places != null && places.getWedo() != null ? places.getWedo().getPickupPlaces() : Collections.emptyList());
+				indexedPickupPlaces = places;
+			}
+			return pickupPlaceIndex;
+		}
+	}
+
 	/**
 	 * Returns all distribution points.
+	 * With a cache policy set, the cached list is returned, see {@link Builder#setCachePolicy(CachePolicy)}.
 	 *
 	 * @return The response containing the list of distribution points.
 	 * @throws ErrorMessageException if there is an error while retrieving the distribution points.
 	 */
 	public PickupPlaceResponse getDistributionPointList() throws ErrorMessageException {
+		RefreshingCache<PickupPlaceResponse> cache = distributionPointCache;
+		return cache != null ? cache.get() : fetchDistributionPointList();
+	}
+
+	private PickupPlaceResponse fetchDistributionPointList() throws ErrorMessageException {
 		try {
-			Requester requester = new Requester<Pkg, PickupPlaceResponse>(apiUser, apiKey, false);
-      return (PickupPlaceResponse) requester.callGet(env, "distribution-point", null, false, false, new TypeToken<PickupPlaceResponse>() {}.getType(), GsonUtils.getGsonTDate(), customerId, null);
+			Requester requester = this.<Pkg, PickupPlaceResponse>requester();
+      return (PickupPlaceResponse) requester.callGet(env, "distribution-point", null, false, gzip, new TypeToken<PickupPlaceResponse>() {}.getType(), GsonUtils.getGsonTDate(), customerId, null);
 		} catch (UnauthorizedException e) {
 			log.error(String.format("Exception auth: %s", e.getMessage()), e);
 			throw new RuntimeException(e);
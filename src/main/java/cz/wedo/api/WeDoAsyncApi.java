@@ -0,0 +1,304 @@
+package cz.wedo.api;
+
+import com.google.gson.reflect.TypeToken;
+import cz.wedo.api.definitions.Dimensions;
+import cz.wedo.api.definitions.Format;
+import cz.wedo.api.models.Articles;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.responses.*;
+import cz.wedo.api.services.AsyncRequester;
+import cz.wedo.api.services.cache.RefreshingCache;
+import cz.wedo.api.services.idempotency.PackageIndex;
+import cz.wedo.api.utils.GsonUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Asynchronous view of a {@link WeDoApi} client.
+ * Every method returns immediately with a {@link CompletableFuture}; API errors complete the future exceptionally
+ * with {@link cz.wedo.api.models.errors.ErrorMessageException} as the cause, or {@link cz.wedo.api.exceptions.CircuitBreakerOpenException}
+ * when the call was rejected by an open circuit breaker.
+ * Obtain an instance through {@link WeDoApi#async()}.
+ */
+@Slf4j
+public class WeDoAsyncApi {
+	/**
+	 * Client providing the credentials, environment and transport.
+	 */
+	private final WeDoApi client;
+
+	WeDoAsyncApi(WeDoApi client) {
+		this.client = client;
+	}
+
+	/**
+	 * Vrací seznam vlastních zásilek.
+	 *
+	 * @return future completed with the list of packages
+	 */
+	public CompletableFuture<ArrayList<PkgList>> getPackageList() {
+		return getPackageList(null);
+	}
+
+	/**
+	 * Vrací seznam vlastních zásilek pro pickup point.
+	 *
+	 * @param department the department to filter the packages by
+	 * @return future completed with the list of packages
+	 */
+	public CompletableFuture<ArrayList<PkgList>> getPackageList(String department) {
+		AsyncRequester<Pkg, ArrayList<PkgList>> requester = requester();
+		return requester.callGet(client.getEnv(), "package", null, false, client.isGzip(), new TypeToken<ArrayList<PkgList>>() {}.getType(), GsonUtils.getGsonTDate(), client.getCustomerId(), department);
+	}
+
+	/**
+	 * Vytvoří novou zásilku.
+	 *
+	 * @param pkg        The package to be created.
+	 * @param department The department associated with the package.
+	 * @return future completed with the created package
+	 */
+	public CompletableFuture<PkgResponse> createPackage(Pkg pkg, String department) {
+		PackageIndex index = client.getPackageIndex();
+		if (index == null || pkg.getReferenceNumber() == null) {
+			return postPackage(pkg, department);
+		}
+		List<String> key = Arrays.asList(department, pkg.getReferenceNumber());
+		CompletableFuture<PkgResponse> created = new CompletableFuture<>();
+		CompletableFuture<PkgResponse> running = client.getPackagesInFlight().putIfAbsent(key, created);
+		if (running != null) {
+			return running.thenApply(Function.identity());
+		}
+		createIndexedPackage(index, pkg, department).whenComplete((response, e) -> {
+			client.getPackagesInFlight().remove(key, created);
+			if (e != null) {
+				created.completeExceptionally(e);
+			} else {
+				created.complete(response);
+			}
+		});
+		return created.thenApply(Function.identity());
+	}
+
+	/**
+	 * Creates a package unless the index knows it, see {@link WeDoApi#createPackage(Pkg, String)}.
+	 */
+	private CompletableFuture<PkgResponse> createIndexedPackage(PackageIndex index, Pkg pkg, String department) {
+		String referenceNumber = pkg.getReferenceNumber();
+		String orderNumber = index.get(department, referenceNumber);
+		CompletableFuture<String> known = PackageIndex.PENDING.equals(orderNumber)
+				? reconcilePackage(index, department, referenceNumber)
+				: CompletableFuture.completedFuture(orderNumber);
+		return known.thenCompose(number -> {
+			if (number != null) {
+				return getPackageListByOrderNumber(number);
+			}
+			index.put(department, referenceNumber, PackageIndex.PENDING);
+			return postPackage(pkg, department).handle((response, e) -> {
+				if (e == null) {
+					if (response != null && response.getOrderNumber() != null) {
+						index.put(department, referenceNumber, response.getOrderNumber());
+					}
+					return CompletableFuture.completedFuture(response);
+				}
+				if (!WeDoApi.isOutcomeUnknown(e)) {
+					index.remove(department, referenceNumber);
+					return CompletableFuture.<PkgResponse>failedFuture(e);
+				}
+				return reconcilePackage(index, department, referenceNumber).handle((found, lookupError) -> found != null
+						? getPackageListByOrderNumber(found)
+						: CompletableFuture.<PkgResponse>failedFuture(e)).thenCompose(Function.identity());
+			}).thenCompose(Function.identity());
+		});
+	}
+
+	/**
+	 * Looks a package up in the package list of the department and indexes it when found.
+	 *
+	 * @return future completed with the order number, null if the package was not created
+	 */
+	private CompletableFuture<String> reconcilePackage(PackageIndex index, String department, String referenceNumber) {
+		return getPackageList(department).thenApply(packages -> {
+			String orderNumber = PackageIndex.findOrderNumber(packages.stream(), referenceNumber);
+			if (orderNumber != null) {
+				log.info(String.format("Package %s reconciled as %s", referenceNumber, orderNumber));
+				index.put(department, referenceNumber, orderNumber);
+			}
+			return orderNumber;
+		});
+	}
+
+	private CompletableFuture<PkgResponse> postPackage(Pkg pkg, String department) {
+		AsyncRequester<Pkg, PkgResponse> requester = requester();
+		return requester.callPostObject(client.getEnv(), "package", pkg, false, client.isGzip(), new TypeToken<PkgResponse>() {}.getType(), client.getCustomerId(), department);
+	}
+
+	/**
+	 * Zruší zasilku, která ještě nebyla odeslána ke zpracování.
+	 *
+	 * @param orderNumber the order number of the package to be deleted
+	 * @return future completed with the result of the delete operation
+	 */
+	public CompletableFuture<ArrayList<DeleteResponse>> deletePackageByOrderNumber(String orderNumber) {
+		AsyncRequester<Pkg, ArrayList<DeleteResponse>> requester = requester();
+		return requester.callDelete(client.getEnv(), String.format("package/%s", orderNumber), null, false, client.isGzip(), new TypeToken<ArrayList<DeleteResponse>>() {}.getType(), client.getCustomerId(), null);
+	}
+
+	/**
+	 * Vrátí informace o existující zásilce.
+	 *
+	 * @param orderNumber the order number to retrieve the package for
+	 * @return future completed with the package
+	 */
+	public CompletableFuture<PkgResponse> getPackageListByOrderNumber(String orderNumber) {
+		AsyncRequester<Pkg, PkgResponse> requester = requester();
+		return requester.callGet(client.getEnv(), String.format("package/%s", orderNumber), null, false, client.isGzip(), new TypeToken<PkgResponse>() {}.getType(), null, client.getCustomerId(), null);
+	}
+
+	/**
+	 * Získá štítky pro zásilku v zadaném formátu (pdf, zpl) a uloží je do souboru.
+	 *
+	 * @param format         The format of the labels. If null, PDF will be used.
+	 * @param dimensions     The dimensions of the labels. If null, LABEL will be used.
+	 * @param id             The ID of the package.
+	 * @param targetFilename The filename to save the labels as.
+	 * @return future completed with true once the labels are saved
+	 */
+	public CompletableFuture<Boolean> savePdfLabelsForIdAs(Format format, Dimensions dimensions, String id, String targetFilename) {
+		format = Optional.ofNullable(format).orElse(Format.PDF);
+		dimensions = Optional.ofNullable(dimensions).orElse(Dimensions.LABEL);
+		HashMap<Object, Object> data = new HashMap<>();
+		data.put("format", dimensions.label); // label, a4_2x2, a4, a6.
+		return requester().callGetSaveResponseToFile(client.getEnv(), String.format("package/%s/labels.%s", id, format.label), data, false, client.isGzip(), targetFilename);
+	}
+
+	/**
+	 * Vytvoří a odešle dávku zásilek ke zpracování.
+	 *
+	 * @param articles the articles to be included in the batch
+	 * @return future completed with the batch
+	 */
+	public CompletableFuture<BatchResponse> createBatch(Articles articles) {
+		AsyncRequester<Articles, BatchResponse> requester = requester();
+		return requester.callPostObject(client.getEnv(), "batch", articles, false, client.isGzip(), new TypeToken<BatchResponse>() {}.getType(), client.getCustomerId(), null);
+	}
+
+	/**
+	 * Orders pickup of packages by courier.
+	 *
+	 * @param date       The pickup date.
+	 * @param department The department for which the pickup is requested.
+	 * @return future completed with the pickup
+	 */
+	public CompletableFuture<PickupResponse> orderPickup(Date date, String department) {
+		AsyncRequester<Articles, PickupResponse> requester = requester();
+		HashMap<Object, Object> data = new HashMap<>();
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+		data.put("pickup_date", sdf.format(date));
+		return requester.callPostGsonTDate(client.getEnv(), "pickup", data, false, client.isGzip(), new TypeToken<PickupResponse>() {}.getType(), client.getCustomerId(), department);
+	}
+
+	/**
+	 * Získá detaily o odeslané dávce.
+	 *
+	 * @param number The batch number to retrieve the details for.
+	 * @return future completed with the batch details
+	 */
+	public CompletableFuture<BatchDetailResponse> getBatchByNumber(String number) {
+		AsyncRequester<Pkg, BatchDetailResponse> requester = requester();
+		return requester.callGet(client.getEnv(), String.format("batch/%s", number), null, false, client.isGzip(), new TypeToken<BatchDetailResponse>() {}.getType(), null, client.getCustomerId(), null);
+	}
+
+	/**
+	 * Získá svozový protokol pro zadanou dávku jako PDF.
+	 *
+	 * @param number         The batch number.
+	 * @param targetFilename The name of the target file to save the manifest PDF.
+	 * @return future completed with true once the manifest is saved
+	 */
+	public CompletableFuture<Boolean> saveBatchManifestPdfByNumber(String number, String targetFilename) {
+		return requester().callGetSaveResponseToFile(client.getEnv(), String.format("batch/%s/manifest.pdf", number), null, false, client.isGzip(), targetFilename);
+	}
+
+	/**
+	 * Získa štítky pro zadanou dávku jako PDF.
+	 *
+	 * @param number         The number of the batch.
+	 * @param dimensions     The dimensions of the labels. If null, LABEL will be used.
+	 * @param targetFilename The filename to save the PDF to.
+	 * @return future completed with true once the labels are saved
+	 */
+	public CompletableFuture<Boolean> saveBatchLabelsPdfByNumber(String number, Dimensions dimensions, String targetFilename) {
+		dimensions = Optional.ofNullable(dimensions).orElse(Dimensions.LABEL);
+		HashMap<Object, Object> data = new HashMap<>();
+		data.put("format", dimensions.label); // label, a4_2x2, a4, a6.
+		return requester().callGetSaveResponseToFile(client.getEnv(), String.format("batch/%s/labels.pdf", number), data, false, client.isGzip(), targetFilename);
+	}
+
+	/**
+	 * Returns customer pickup places.
+	 *
+	 * @return future completed with the pickup places
+	 */
+	public CompletableFuture<PickupPlaceResponse> getPickupPlaceList() {
+		return cached(client.getPickupPlaceCache(), "pickup-place");
+	}
+
+	/**
+	 * Returns all distribution points.
+	 *
+	 * @return future completed with the distribution points
+	 */
+	public CompletableFuture<PickupPlaceResponse> getDistributionPointList() {
+		return cached(client.getDistributionPointCache(), "distribution-point");
+	}
+
+	/**
+	 * Returns the cached reference list, or requests it and caches the response.
+	 *
+	 * @param cache   the cache of the list, null for none
+	 * @param request the request path of the list
+	 * @return future completed with the list
+	 */
+	private CompletableFuture<PickupPlaceResponse> cached(RefreshingCache<PickupPlaceResponse> cache, String request) {
+		PickupPlaceResponse value = cache != null ? cache.getIfPresent() : null;
+		if (value != null) {
+			return CompletableFuture.completedFuture(value);
+		}
+		AsyncRequester<Pkg, PickupPlaceResponse> requester = requester();
+		CompletableFuture<PickupPlaceResponse> response = requester.callGet(client.getEnv(), request, null, false, client.isGzip(),
+				new TypeToken<PickupPlaceResponse>() {}.getType(), GsonUtils.getGsonTDate(), client.getCustomerId(), null);
+		return cache != null ? response.thenApply(loaded -> {
+			cache.put(loaded);
+			return loaded;
+		}) : response;
+	}
+
+	/**
+	 * Creates a requester bound to the current credentials, transport and resilience policies of the client.
+	 *
+	 * @param <T> The type of the request body.
+	 * @param <K> The type of the response body.
+	 * @return the requester
+	 */
+	private <T, K> AsyncRequester<T, K> requester() {
+		AsyncRequester<T, K> requester = new AsyncRequester<>(client.getApiUser(), client.getApiKey(), client.isSslVerify(), client.asyncTransport(), client.getBaseUrl());
+		requester.setMetrics(client.getMetrics());
+		requester.setRetryPolicy(client.getRetryPolicy());
+		requester.setRateLimiter(client.getRateLimiter());
+		requester.setCircuitBreakers(client.getCircuitBreakers());
+		requester.setTimeoutPolicy(client.getTimeoutPolicy());
+		requester.setSingleFlight(client.getSingleFlight());
+		requester.setQuota(client.getQuota());
+		return requester;
+	}
+}
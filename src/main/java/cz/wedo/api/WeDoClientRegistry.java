@@ -0,0 +1,116 @@
+package cz.wedo.api;
+
+import cz.wedo.api.services.idempotency.PackageIndex;
+import cz.wedo.api.services.transport.JdkHttpTransport;
+import cz.wedo.api.services.transport.Transport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clients of several tenants (merchants with their own credentials and customer ID) sharing one connection pool.
+ * All clients of the registry send their calls over the same blocking and non-blocking transports, so they share
+ * the connections and the TLS sessions; the JSON serializers are shared by all clients anyway.
+ * Each tenant may be limited to a number of calls in flight, so that one large tenant cannot take the whole pool.
+ * <p>
+ * The settings of the template builder apply to every tenant. The circuit breakers, which track the health of the API,
+ * are shared by the tenants. Every tenant gets its own rate limiter with the settings of the template, as the API limits
+ * each customer account on its own. The package index of the template is shared, but each tenant sees only its own keys,
+ * so a reference number reused by another tenant is never answered with that tenant's package. Caches and request
+ * coalescing are kept per tenant.
+ */
+@Slf4j
+public class WeDoClientRegistry implements AutoCloseable {
+  /**
+   * Settings common to all tenants.
+   */
+  private final WeDoApi.Builder template;
+
+  private final Transport transport;
+
+  private final JdkHttpTransport asyncTransport;
+
+  private final Map<String, WeDoApi> clients = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a registry whose shared pool is sized by the connection limits of the template.
+   *
+   * @param template the settings common to all tenants, copied; credentials and customer ID are set per tenant
+   */
+  public WeDoClientRegistry(WeDoApi.Builder template) {
+    this.template = template.copy();
+    this.transport = this.template.createTransport();
+    this.asyncTransport = new JdkHttpTransport(this.template.getTimeoutPolicy().getConnectTimeout(), this.template.getHttpVersion(),
+        this.template.isSslVerify());
+    this.template.setTransports(transport, asyncTransport);
+  }
+
+  /**
+   * Creates the client of a tenant, replacing the previous client of the tenant.
+   *
+   * @param tenant             the tenant key, e.g. the merchant ID
+   * @param apiUser            the API user of the tenant
+   * @param apiKey             the API key of the tenant
+   * @param customerId         the customer ID of the tenant, may be null
+   * @param maxConcurrentCalls the maximum number of calls of the tenant in flight, 0 for no limit
+   * @return the client of the tenant
+   */
+  public WeDoApi register(String tenant, String apiUser, String apiKey, String customerId, int maxConcurrentCalls) {
+    WeDoApi.Builder builder = template.copy()
+        .setApiUser(apiUser)
+        .setApiKey(apiKey)
+        .setCustomerId(customerId)
+        .setMaxConcurrentCalls(maxConcurrentCalls);
+    if (template.getRateLimiter() != null) {
+      builder.setRateLimiter(template.getRateLimiter().copy());
+    }
+    if (template.getPackageIndex() != null) {
+      builder.setPackageIndex(PackageIndex.scoped(template.getPackageIndex(), tenant));
+    }
+    WeDoApi client = new WeDoApi(builder);
+    clients.put(tenant, client);
+    return client;
+  }
+
+  /**
+   * Returns the client of a tenant.
+   *
+   * @param tenant the tenant key
+   * @return the client, null if the tenant is not registered
+   */
+  public WeDoApi get(String tenant) {
+    return clients.get(tenant);
+  }
+
+  /**
+   * Removes the client of a tenant; calls in flight are completed.
+   *
+   * @param tenant the tenant key
+   * @return the removed client, null if the tenant was not registered
+   */
+  public WeDoApi remove(String tenant) {
+    return clients.remove(tenant);
+  }
+
+  /**
+   * Returns the registered tenants.
+   *
+   * @return the tenant keys
+   */
+  public Set<String> getTenants() {
+    return Collections.unmodifiableSet(clients.keySet());
+  }
+
+  /**
+   * Closes the shared transports; the clients of the registry cannot be used afterwards.
+   */
+  @Override
+  public void close() {
+    clients.clear();
+    transport.close();
+    asyncTransport.close();
+  }
+}
@@ -81,4 +81,48 @@ public enum API {
     return url != null ? url : API.URL.get(API.PROD);
   }
 
+  /**
+   * Resolves the base URL of the requests, letting a custom base URL (e.g. a local simulator) override the environment.
+   *
+   * @param version the API version to resolve the hostname for when no custom base URL is given
+   * @param baseUrl the custom base URL, may be null
+   * @return the custom base URL if given, otherwise the URL corresponding to the API version
+   */
+  public static URL resolveHostName(API version, URL baseUrl) {
+    return baseUrl != null ? baseUrl : resolveHostName(version);
+  }
+
+  /**
+   * Parses a custom base URL, appending the trailing slash the request paths are resolved against.
+   *
+   * @param baseUrl the base URL, e.g. {@code http://localhost:8080/v2/}
+   * @return the parsed URL
+   * @throws IllegalArgumentException if the URL is malformed
+   */
+  public static URL parseBaseUrl(String baseUrl) {
+    try {
+      return new URL(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException(String.format("Invalid base URL: %s", baseUrl), e);
+    }
+  }
+
+  /**
+   * Normalizes a custom base URL to end with the trailing slash the request paths are resolved against.
+   *
+   * @param baseUrl the base URL, e.g. {@code http://localhost:8080/v2}
+   * @return the URL with a path ending with a slash, e.g. {@code http://localhost:8080/v2/}
+   * @throws IllegalArgumentException if the URL is malformed
+   */
+  public static URL normalizeBaseUrl(URL baseUrl) {
+    if (baseUrl.getPath().endsWith("/")) {
+      return baseUrl;
+    }
+    try {
+      return new URL(baseUrl, baseUrl.getPath() + "/");
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException(String.format("Invalid base URL: %s", baseUrl), e);
+    }
+  }
+
 }
@@ -0,0 +1,42 @@
+package cz.wedo.api.exceptions;
+
+import cz.wedo.api.services.breaker.EndpointGroup;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The CircuitBreakerOpenException class is an exception that is thrown when a call is rejected without being sent
+ * because the circuit breaker of its endpoint group is open.
+ */
+@Getter
+public class CircuitBreakerOpenException extends RuntimeException {
+  /**
+   * Environment of the rejected call, the authority (host and port) of the API URL.
+   */
+  private final String environment;
+
+  /**
+   * Endpoint group of the rejected call.
+   */
+  private final EndpointGroup group;
+
+  /**
+   * Time left until the breaker lets probe calls through again.
+   */
+  private final Duration retryAfter;
+
+  /**
+   * Constructs a new CircuitBreakerOpenException.
+   *
+   * @param environment the environment of the rejected call
+   * @param group       the endpoint group of the rejected call
+   * @param retryAfter  the time left until the breaker lets probe calls through again
+   */
+  public CircuitBreakerOpenException(String environment, EndpointGroup group, Duration retryAfter) {
+    super(String.format("Circuit breaker of %s on %s is open, retry after %d ms", group, environment, retryAfter.toMillis()));
+    this.environment = environment;
+    this.group = group;
+    this.retryAfter = retryAfter;
+  }
+}
@@ -0,0 +1,20 @@
+package cz.wedo.api.exceptions;
+
+import java.io.InterruptedIOException;
+
+/**
+ * The DeadlineExceededException class is an exception that is thrown when an API call runs out of its deadline,
+ * including the retries and waits; the request in flight, if any, is aborted.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+  /**
+   * Constructs a new DeadlineExceededException.
+   *
+   * @param message the detail message
+   * @param cause   the failure of the aborted request, may be null
+   */
+  public DeadlineExceededException(String message, Throwable cause) {
+    super(message);
+    initCause(cause);
+  }
+}
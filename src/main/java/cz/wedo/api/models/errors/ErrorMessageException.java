@@ -1,6 +1,7 @@
 package cz.wedo.api.models.errors;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -11,7 +12,9 @@ import java.util.List;
 
 /**
  * Custom exception class for handling error messages.
+ * It is read from and written to JSON by {@link ErrorMessageExceptionAdapter}.
  */
+@JsonAdapter(ErrorMessageExceptionAdapter.class)
 @EqualsAndHashCode(callSuper = true)
 @Slf4j
 @Data
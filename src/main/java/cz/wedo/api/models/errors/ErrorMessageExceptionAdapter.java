@@ -0,0 +1,94 @@
+package cz.wedo.api.models.errors;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gson type adapter of {@link ErrorMessageException} reading and writing the {@code message}, {@code detail} and
+ * {@code status_code} fields only. The reflective adapter would also have to access the private fields of
+ * {@link Throwable}, which the JDK refuses from Java 16 on.
+ */
+public class ErrorMessageExceptionAdapter extends TypeAdapter<ErrorMessageException> {
+
+	@Override
+	public void write(JsonWriter out, ErrorMessageException value) throws IOException {
+		if (value == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		out.name("message").value(value.getMessage());
+		out.name("detail");
+		if (value.getDetail() == null) {
+			out.nullValue();
+		} else {
+			out.beginArray();
+			for (String detail : value.getDetail()) {
+				out.value(detail);
+			}
+			out.endArray();
+		}
+		out.name("status_code").value(value.getStatusCode());
+		out.endObject();
+	}
+
+	@Override
+	public ErrorMessageException read(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		ErrorMessageException value = new ErrorMessageException();
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				continue;
+			}
+			switch (name) {
+				case "message":
+					value.setMessage(in.nextString());
+					break;
+				case "detail":
+					value.setDetail(readDetail(in));
+					break;
+				case "status_code":
+					value.setStatusCode(in.nextInt());
+					break;
+				default:
+					in.skipValue();
+			}
+		}
+		in.endObject();
+		return value;
+	}
+
+	/**
+	 * Reads the details, a single string is read as one detail.
+	 */
+	private static List<String> readDetail(JsonReader in) throws IOException {
+		List<String> detail = new ArrayList<>();
+		if (in.peek() != JsonToken.BEGIN_ARRAY) {
+			detail.add(in.nextString());
+			return detail;
+		}
+		in.beginArray();
+		while (in.hasNext()) {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				detail.add(null);
+			} else {
+				detail.add(in.nextString());
+			}
+		}
+		in.endArray();
+		return detail;
+	}
+}
@@ -39,6 +39,14 @@ public class AddressResponse {
   @NotNull
   private String city;
 
+  /**
+   * PSČ.
+   */
+  @Size(max = 5)
+  @Expose
+  @SerializedName("postal_code")
+  private String postalCode;
+
   /**
    * Kód země dle ISO 3166-1; obchodní oddělení WEDO dodá seznam možných zemí.
    */
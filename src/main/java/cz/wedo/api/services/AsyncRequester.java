@@ -0,0 +1,541 @@
+package cz.wedo.api.services;
+
+import com.google.gson.Gson;
+import cz.wedo.api.definitions.API;
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.commons.RequesterBase;
+import cz.wedo.api.exceptions.CircuitBreakerOpenException;
+import cz.wedo.api.exceptions.DeadlineExceededException;
+import cz.wedo.api.services.breaker.CircuitBreaker;
+import cz.wedo.api.services.breaker.EndpointGroup;
+import cz.wedo.api.services.metrics.MeteredBodySubscriber;
+import cz.wedo.api.services.metrics.MetricsRegistry;
+import cz.wedo.api.services.ratelimit.TokenBucket;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.services.tenant.ConcurrencyQuota;
+import cz.wedo.api.services.transport.JdkHttpTransport;
+import cz.wedo.api.utils.ErrorUtils;
+import cz.wedo.api.utils.FileUtils;
+import cz.wedo.api.utils.GsonUtils;
+import cz.wedo.api.utils.GunzipBodySubscriber;
+import cz.wedo.api.utils.GzipUtils;
+import cz.wedo.api.utils.HttpBasicAuth;
+import cz.wedo.api.utils.JsonBodySubscriber;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * AsyncRequester class is used to make non-blocking HTTP requests to an API.
+ * Every call returns immediately with a {@link CompletableFuture}; failures complete the future exceptionally
+ * with {@link ErrorMessageException} as the cause.
+ *
+ * @param <T> The type of the request body.
+ * @param <K> The type of the response body.
+ */
+@Slf4j
+public class AsyncRequester<T, K> extends RequesterBase {
+  /**
+   * Non-blocking transport used to send the requests.
+   */
+  private final JdkHttpTransport asyncTransport;
+
+  /**
+   * Constructs a new AsyncRequester object with the provided API credentials and transport.
+   *
+   * @param apiUser        the API username to be used for authentication
+   * @param apiKey         the API key to be used for authentication
+   * @param sslVerify      specifies whether SSL verification should be performed
+   * @param asyncTransport the non-blocking transport shared by the client
+   */
+  public AsyncRequester(String apiUser, String apiKey, Boolean sslVerify, JdkHttpTransport asyncTransport) {
+    this.apiUser = apiUser;
+    this.apiKey = apiKey;
+    this.sslVerify = sslVerify;
+    this.asyncTransport = asyncTransport;
+
+    this.validator = new Validator();
+  }
+
+  /**
+   * Constructs a new AsyncRequester object sending its requests to a custom base URL.
+   *
+   * @param apiUser        the API username to be used for authentication
+   * @param apiKey         the API key to be used for authentication
+   * @param sslVerify      specifies whether SSL verification should be performed
+   * @param asyncTransport the non-blocking transport shared by the client
+   * @param baseUrl        the base URL overriding the environment URL, null to use the environment
+   */
+  public AsyncRequester(String apiUser, String apiKey, Boolean sslVerify, JdkHttpTransport asyncTransport, URL baseUrl) {
+    this(apiUser, apiKey, sslVerify, asyncTransport);
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Call API GET asynchronously.
+   * With request coalescing enabled, identical concurrent calls share one request and its response.
+   *
+   * @param version          the API version to use for the method call
+   * @param request          the request string for the method call
+   * @param data             the query parameters to be sent with the method call
+   * @param shouldHaveStatus whether the method call should have a status
+   * @param gzip             whether gzip compression should be used for the method call
+   * @param responseType     the Type of the method call
+   * @param gsonInstance     the Gson instance to use for deserialization
+   * @param customer         the customer name for authorization
+   * @param department       the department name for authorization
+   * @return future completed with the result of the method call
+   */
+  public CompletableFuture<K> callGet(
+      API version,
+      String request,
+      HashMap<Object, Object> data,
+      Boolean shouldHaveStatus,
+      Boolean gzip,
+      Type responseType,
+      Gson gsonInstance,
+      String customer,
+      String department
+  ) {
+    Gson gson = gsonInstance != null ? gsonInstance : GsonUtils.getGsonStandardDate();
+    if (singleFlight != null) {
+      return singleFlight.executeAsync(getCoalescingKey(version, request, data, shouldHaveStatus, responseType, gson, customer, department),
+          () -> sendGet(version, request, data, gzip, responseType, gson, department));
+    }
+    return sendGet(version, request, data, gzip, responseType, gson, department);
+  }
+
+  private CompletableFuture<K> sendGet(API version, String request, HashMap<Object, Object> data, Boolean gzip, Type responseType, Gson gson, String department) {
+    ResultHostPath resultUrlPath = getResultHostPath(version, request);
+    String urlStr = assembleGetUrl(resultUrlPath.host, resultUrlPath.path, data);
+    log.debug(String.format("Sending async GET request to %s", urlStr));
+    HttpRequest httpRequest = prepareRequest(urlStr, RequestType.GET, resultUrlPath.path, department, gzip).GET().build();
+    return send(httpRequest, RequestType.GET, resultUrlPath.path, responseType, gson);
+  }
+
+  /**
+   * Makes an asynchronous POST request with a map body, deserializing the response with the "T" date format.
+   *
+   * @param version          The API version to use.
+   * @param request          The URL path for the request.
+   * @param data             The data to be sent in the request body.
+   * @param shouldHaveStatus Whether the response should have a HTTP status code.
+   * @param gzip             Whether to compress the request body using gzip.
+   * @param responseType     The type of the object to deserialize the response into.
+   * @param customer         The customer associated with the request.
+   * @param department       The department associated with the request.
+   * @return future completed with the response
+   */
+  public CompletableFuture<K> callPostGsonTDate(
+      API version,
+      String request,
+      HashMap<Object, Object> data,
+      Boolean shouldHaveStatus,
+      Boolean gzip,
+      Type responseType,
+      String customer,
+      String department
+  ) {
+    ResultHostPath resultUrlPath = getResultHostPath(version, request);
+    String urlStr = assemblePostUrl(resultUrlPath.host, resultUrlPath.path);
+    log.debug(String.format("Sending async POST request to %s", urlStr));
+    HttpRequest.Builder builder = prepareRequest(urlStr, RequestType.POST, resultUrlPath.path, department, gzip)
+        .header("Accept", "application/json")
+        .header("Content-type", "application/json");
+    HttpRequest httpRequest = addJsonBody(builder, data, gzip).build();
+    return send(httpRequest, RequestType.POST, resultUrlPath.path, responseType, GsonUtils.getGsonTDate());
+  }
+
+  /**
+   * Makes an asynchronous POST request with an object body.
+   *
+   * @param version          The API version to use.
+   * @param request          The API endpoint to send the POST request to.
+   * @param requestBodyClass The data to be sent in the request body.
+   * @param shouldHaveStatus A flag indicating whether the response should have a specific status.
+   * @param gzip             A flag indicating whether the request body should be gzipped.
+   * @param responseType     The type of the data in the response body.
+   * @param customer         The customer identifier.
+   * @param department       The department identifier.
+   * @return future completed with the response
+   */
+  public CompletableFuture<K> callPostObject(
+      API version,
+      String request,
+      T requestBodyClass,
+      Boolean shouldHaveStatus,
+      Boolean gzip,
+      Type responseType,
+      String customer,
+      String department
+  ) {
+    ResultHostPath resultUrlPath = getResultHostPath(version, request);
+    String urlStr = assemblePostUrl(resultUrlPath.host, resultUrlPath.path);
+    log.debug(String.format("Sending async POST request to %s", urlStr));
+    HttpRequest.Builder builder = prepareRequest(urlStr, RequestType.POST, resultUrlPath.path, department, gzip)
+        .header("Content-type", "application/json")
+        .header("X-WEDO-Auto-Complete", "true");
+    HttpRequest httpRequest = addJsonBody(builder, requestBodyClass, gzip).build();
+    return send(httpRequest, RequestType.POST, resultUrlPath.path, responseType, GsonUtils.getGsonStandardDate());
+  }
+
+  /**
+   * Makes an asynchronous DELETE request.
+   *
+   * @param version          The version of the API to use.
+   * @param request          The URL path of the API endpoint to make the request to.
+   * @param data             The query parameters to pass with the request.
+   * @param shouldHaveStatus A boolean indicating whether the response should have a valid status.
+   * @param gzip             A boolean indicating whether to enable gzip compression for the request.
+   * @param responseType     The type of the data in the response.
+   * @param customer         The customer name to include in the request.
+   * @param department       The department name to include in the request.
+   * @return future completed with the response data
+   */
+  public CompletableFuture<K> callDelete(
+      API version,
+      String request,
+      HashMap<Object, Object> data,
+      Boolean shouldHaveStatus,
+      Boolean gzip,
+      Type responseType,
+      String customer,
+      String department
+  ) {
+    ResultHostPath resultUrlPath = getResultHostPath(version, request);
+    String urlStr = assembleGetUrl(resultUrlPath.host, resultUrlPath.path, data);
+    log.info(String.format("Sending async DELETE request to %s", urlStr));
+    HttpRequest httpRequest = prepareRequest(urlStr, RequestType.DELETE, resultUrlPath.path, null, gzip).DELETE().build();
+    return send(httpRequest, RequestType.DELETE, resultUrlPath.path, responseType, GsonUtils.getGsonStandardDate());
+  }
+
+  /**
+   * Call API GET asynchronously and save the response body to a file.
+   * With gzip enabled, a gzip-compressed response is requested and decompressed as it is streamed to a temporary file,
+   * which is atomically renamed to the target once complete.
+   *
+   * @param version          The API version to use for the request.
+   * @param request          The request to be sent.
+   * @param data             The query parameters.
+   * @param shouldHaveStatus A boolean indicating whether the response should have a status.
+   * @param gzip             Whether a gzip-compressed response should be requested.
+   * @param targetFile       The file to save the data to.
+   * @return future completed with true once the file is written
+   */
+  public CompletableFuture<Boolean> callGetSaveResponseToFile(
+      API version,
+      String request,
+      HashMap<Object, Object> data,
+      Boolean shouldHaveStatus,
+      Boolean gzip,
+      String targetFile
+  ) {
+    ResultHostPath resultUrlPath = getResultHostPath(version, request);
+    String urlStr = assembleGetUrl(resultUrlPath.host, resultUrlPath.path, data);
+    log.debug(String.format("Sending async GET request to %s", urlStr));
+    HttpRequest httpRequest = prepareRequest(urlStr, RequestType.GET, resultUrlPath.path, null, gzip).GET().build();
+    final Path target = Paths.get(targetFile);
+    final Path tempFile;
+    try {
+      tempFile = FileUtils.prepareTempFile(target);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    // successful responses are streamed to the temporary file, error responses are kept as a string
+    HttpResponse.BodyHandler<String> bodyHandler = GunzipBodySubscriber.wrap(responseInfo -> responseInfo.statusCode() < 300
+        ? HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofFile(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), path -> null)
+        : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+    return sendAsync(httpRequest, bodyHandler, RequestType.GET, resultUrlPath.path)
+        .thenApply(response -> {
+          if (response.statusCode() >= 300) {
+            throw new CompletionException(processError(response.body(), response.statusCode(), GsonUtils.getGsonStandardDate()));
+          }
+          try {
+            FileUtils.moveAtomically(tempFile, target);
+          } catch (IOException e) {
+            throw new CompletionException(e);
+          }
+          return true;
+        })
+        .whenComplete((result, e) -> {
+          try {
+            Files.deleteIfExists(tempFile);
+          } catch (IOException ex) {
+            log.error(String.format("Cannot delete temporary file [%s]: %s", tempFile, ex.getMessage()), ex);
+          }
+        });
+  }
+
+  /**
+   * Prepares a request builder with the read timeout of the endpoint and the authorization, department and accept-encoding headers.
+   *
+   * @param urlStr     the URL of the request
+   * @param type       the HTTP method of the request
+   * @param path       the request path relative to the base URL
+   * @param department the department header value (optional)
+   * @param gzip       whether a gzip-compressed response should be requested
+   * @return the request builder
+   */
+  private HttpRequest.Builder prepareRequest(String urlStr, RequestType type, String path, String department, Boolean gzip) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(urlStr))
+        .timeout(timeoutPolicy.forEndpoint(type, MetricsRegistry.pathTemplate(path)).getReadTimeout());
+    if (department != null) {
+      builder.header(DEPARTMENT_HEADER, department);
+    }
+    builder.header("Authorization", HttpBasicAuth.getBasicAuthenticationHeader(apiUser, apiKey));
+    if (Boolean.TRUE.equals(gzip)) {
+      builder.header("Accept-Encoding", GzipUtils.GZIP);
+    }
+    return builder;
+  }
+
+  /**
+   * Serializes the given object to a JSON POST body, gzip-compressing large bodies when requested.
+   *
+   * @param builder the request builder
+   * @param body    the object to serialize
+   * @param gzip    whether large bodies should be gzip-compressed
+   * @return the request builder
+   */
+  private static HttpRequest.Builder addJsonBody(HttpRequest.Builder builder, Object body, Boolean gzip) {
+    String json = GsonUtils.getGsonDefault().toJson(body);
+    log.debug(String.format("Sending JSON data: %s", json));
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    if (GzipUtils.shouldCompress(gzip, bytes.length)) {
+      builder.header("Content-Encoding", GzipUtils.GZIP);
+      bytes = GzipUtils.gzip(bytes);
+    }
+    return builder.POST(HttpRequest.BodyPublishers.ofByteArray(bytes));
+  }
+
+  /**
+   * Body handler deserializing successful responses directly from the body stream as it arrives, like
+   * {@code processGsonResponse} does for the blocking transport, without copying the body into a String.
+   * Error responses are read as a string. Gzip-encoded responses are decompressed as they arrive.
+   * The response completes once the body is deserialized.
+   *
+   * @param responseType the type of the response
+   * @param gson         the Gson object used for deserialization
+   * @return the body handler, the body is the deserialized response or the error string
+   */
+  private static HttpResponse.BodyHandler<Object> jsonBodyHandler(Type responseType, Gson gson) {
+    return GunzipBodySubscriber.wrap(responseInfo -> responseInfo.statusCode() < 300
+        ? new JsonBodySubscriber<>(gson, responseType, StandardCharsets.UTF_8)
+        : HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), Object.class::cast));
+  }
+
+  /**
+   * Sends the request and deserializes the response into the given type.
+   *
+   * @param httpRequest  the request to send
+   * @param type         the HTTP method of the request
+   * @param path         the request path relative to the base URL
+   * @param responseType the type of the response
+   * @param gson         the Gson object used for deserialization
+   * @return future completed with the deserialized response
+   */
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<K> send(HttpRequest httpRequest, RequestType type, String path, Type responseType, Gson gson) {
+    return sendAsync(httpRequest, jsonBodyHandler(responseType, gson), type, path)
+        .thenApply(response -> {
+          if (response.statusCode() < 300) {
+            log.info(String.format("Returned response from API data size: %d", response.headers().firstValueAsLong("Content-Length").orElse(-1)));
+            return (K) response.body();
+          }
+          throw new CompletionException(processError((String) response.body(), response.statusCode(), gson));
+        });
+  }
+
+  /**
+   * Sends the request over the non-blocking transport, retrying network errors, 429 and 5xx responses as allowed by the retry policy.
+   * Every attempt is delayed until a token of the rate limiter is available, and the limiter adapts its rate to the responses.
+   * Attempts are rejected with {@link CircuitBreakerOpenException} while the circuit breaker of the endpoint group is open.
+   * Network errors left after the retries complete the future with an {@link ErrorMessageException} without status code,
+   * as does the deadline of the endpoint once it runs out (caused by {@link DeadlineExceededException}).
+   * The exchange in flight is then abandoned; the JDK client offers no way to abort it.
+   * With a tenant quota, the call is sent once a permit is free and holds it until the response has been received;
+   * it waits for the permit at most until its deadline and is never sent after it.
+   *
+   * @param <R>         the type of the response body
+   * @param httpRequest the request to send
+   * @param bodyHandler the handler of the response body
+   * @param type        the HTTP method of the request
+   * @param path        the request path relative to the base URL
+   * @return future completed with the response of the last attempt
+   */
+  private <R> CompletableFuture<HttpResponse<R>> sendAsync(HttpRequest httpRequest, HttpResponse.BodyHandler<R> bodyHandler, RequestType type, String path) {
+    final String pathTemplate = MetricsRegistry.pathTemplate(path);
+    final TokenBucket bucket = rateLimiter != null
+        ? rateLimiter.bucket(httpRequest.uri().getAuthority(), httpRequest.headers().firstValue(DEPARTMENT_HEADER).orElse(null))
+        : null;
+    final CircuitBreaker breaker = circuitBreakers != null
+        ? circuitBreakers.breaker(httpRequest.uri().getAuthority(), EndpointGroup.of(pathTemplate), metrics)
+        : null;
+    final Duration budget = timeoutPolicy.forEndpoint(type, pathTemplate).getDeadline();
+    final long deadline = budget != null ? System.nanoTime() + budget.toNanos() : Long.MAX_VALUE;
+    final RetryPolicy policy = retryPolicy.forEndpoint(type, pathTemplate);
+    final ConcurrencyQuota quota = this.quota;
+    final CompletableFuture<Void> permit = quota != null ? quota.acquireAsync() : null;
+    final CompletableFuture<HttpResponse<R>> response = quota == null
+        ? sendAsync(httpRequest, bodyHandler, type, pathTemplate, policy, bucket, breaker, deadline, 1)
+        : permit.thenCompose(granted -> {
+          // a call past its deadline is not sent, even if the permit was granted meanwhile
+          if (deadline - System.nanoTime() <= 0) {
+            quota.release();
+            return CompletableFuture.failedFuture(new CompletionException(ErrorUtils.getErrorMessageException(
+                new DeadlineExceededException(String.format("Deadline of %s %s exceeded waiting for the tenant quota", type, pathTemplate), null))));
+          }
+          return sendAsync(httpRequest, bodyHandler, type, pathTemplate, policy, bucket, breaker, deadline, 1)
+              .whenComplete((r, e) -> quota.release());
+        });
+    if (budget == null) {
+      return response;
+    }
+    return response
+        .orTimeout(budget.toNanos(), TimeUnit.NANOSECONDS)
+        .handle((r, e) -> {
+          Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (cause instanceof TimeoutException) {
+            if (permit != null) {
+              // a call still waiting for the quota leaves the queue
+              permit.cancel(false);
+            }
+            cause = ErrorUtils.getErrorMessageException(new DeadlineExceededException(String.format("Deadline of %s %s exceeded", type, pathTemplate), cause));
+          }
+          return cause != null ? CompletableFuture.<HttpResponse<R>>failedFuture(new CompletionException(cause)) : CompletableFuture.completedFuture(r);
+        })
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Sends one attempt of the request and schedules the next one when the attempt failed and may be retried.
+   *
+   * @param <R>          the type of the response body
+   * @param httpRequest  the request to send
+   * @param bodyHandler  the handler of the response body
+   * @param type         the HTTP method of the request
+   * @param pathTemplate the path template of the request
+   * @param policy       the retry policy of the endpoint
+   * @param bucket       the rate limiter bucket of the request, null for no limit
+   * @param breaker      the circuit breaker of the endpoint group, null for none
+   * @param deadline     the {@link System#nanoTime()} at which the call runs out of time
+   * @param attempt      the number of this attempt, starting at 1
+   * @return future completed with the response of the last attempt
+   */
+  private <R> CompletableFuture<HttpResponse<R>> sendAsync(HttpRequest httpRequest, HttpResponse.BodyHandler<R> bodyHandler, RequestType type, String pathTemplate,
+                                                           RetryPolicy policy, TokenBucket bucket, CircuitBreaker breaker, long deadline, int attempt) {
+    if (breaker != null) {
+      try {
+        breaker.acquire();
+      } catch (CircuitBreakerOpenException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    final Supplier<CompletableFuture<HttpResponse<R>>> send = () -> {
+      final long start = System.nanoTime();
+      final CompletableFuture<HttpResponse<R>> response = sendOnce(httpRequest, bodyHandler, type, pathTemplate);
+      return breaker == null ? response
+          : response.whenComplete((r, e) -> breaker.onResult(e != null || r.statusCode() >= 500, System.nanoTime() - start));
+    };
+    final long wait = bucket != null ? bucket.tryReserve(Math.max(1, deadline - System.nanoTime())) : 0;
+    if (wait < 0) {
+      if (breaker != null) {
+        breaker.release();
+      }
+      return CompletableFuture.failedFuture(new CompletionException(ErrorUtils.getErrorMessageException(
+          new DeadlineExceededException(String.format("Deadline of %s %s exceeded waiting for the rate limiter", type, pathTemplate), null))));
+    }
+    final CompletableFuture<HttpResponse<R>> sent = wait > 0
+        ? CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS)).thenCompose(ignored -> send.get())
+        : send.get();
+    return sent
+        .handle((response, e) -> {
+          Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (cause instanceof UncheckedIOException) {
+            // the body stream failed while it was decoded
+            cause = cause.getCause();
+          }
+          long delay;
+          if (cause == null) {
+            if (bucket != null) {
+              bucket.onResponse(response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
+            }
+            delay = policy.retryDelay(type, response.statusCode(), response.headers().firstValue("Retry-After").orElse(null), attempt);
+          } else {
+            delay = cause instanceof IOException ? policy.retryDelay(type, (IOException) cause, attempt) : -1;
+          }
+          if (delay < 0 || TimeUnit.MILLISECONDS.toNanos(delay) >= deadline - System.nanoTime()) {
+            if (cause instanceof IOException) {
+              return CompletableFuture.<HttpResponse<R>>failedFuture(new CompletionException(ErrorUtils.getErrorMessageException((IOException) cause)));
+            }
+            return cause != null ? CompletableFuture.<HttpResponse<R>>failedFuture(cause) : CompletableFuture.completedFuture(response);
+          }
+          log.warn(String.format("Attempt %d of %s %s failed (%s), retrying in %d ms", attempt, type, pathTemplate,
+              cause != null ? cause : response.statusCode(), delay));
+          return CompletableFuture.runAsync(() -> {
+          }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+              .thenCompose(ignored -> sendAsync(httpRequest, bodyHandler, type, pathTemplate, policy, bucket, breaker, deadline, attempt + 1));
+        })
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Sends the request once, recording its status, transferred bytes and latency in the metrics registry
+   * once the response body has been received.
+   *
+   * @param <R>          the type of the response body
+   * @param httpRequest  the request to send
+   * @param bodyHandler  the handler of the response body
+   * @param type         the HTTP method of the request
+   * @param pathTemplate the path template of the request
+   * @return future completed with the response
+   */
+  private <R> CompletableFuture<HttpResponse<R>> sendOnce(HttpRequest httpRequest, HttpResponse.BodyHandler<R> bodyHandler, RequestType type, String pathTemplate) {
+    if (metrics == MetricsRegistry.NOOP) {
+      return asyncTransport.getHttpClient().sendAsync(httpRequest, bodyHandler);
+    }
+    final MetricsRegistry registry = metrics;
+    final long requestBytes = httpRequest.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).filter(length -> length > 0).orElse(0L);
+    final AtomicLong responseBytes = new AtomicLong();
+    final long start = System.nanoTime();
+    return asyncTransport.getHttpClient()
+        .sendAsync(httpRequest, MeteredBodySubscriber.wrap(bodyHandler, responseBytes))
+        .whenComplete((response, e) -> registry.record(type, pathTemplate, response != null ? response.statusCode() : MetricsRegistry.NO_RESPONSE,
+            requestBytes, responseBytes.get(), System.nanoTime() - start));
+  }
+
+  /**
+   * Converts an error response into an ErrorMessageException.
+   *
+   * @param response the error response
+   * @param gson     the Gson object used to parse the error content
+   * @return the error message exception
+   */
+  private static ErrorMessageException processError(String body, int statusCode, Gson gson) {
+    ErrorMessageException e = ErrorUtils.getErrorMessageException(body, statusCode, gson);
+    log.error(String.format("Error Message Exception: %s", e.getMessage()), e);
+    return e;
+  }
+}
@@ -1,15 +1,19 @@
 package cz.wedo.api.services;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import cz.wedo.api.exceptions.BadRequestException;
+import cz.wedo.api.exceptions.CircuitBreakerOpenException;
 import cz.wedo.api.exceptions.UnauthorizedException;
 import cz.wedo.api.definitions.API;
 import cz.wedo.api.definitions.RequestType;
 import cz.wedo.api.models.errors.ErrorMessageException;
 import cz.wedo.api.services.commons.RequesterBase;
+import cz.wedo.api.services.transport.Transport;
 import cz.wedo.api.utils.ErrorUtils;
 import cz.wedo.api.utils.GsonUtils;
 import cz.wedo.api.utils.HttpBasicAuth;
+import cz.wedo.api.utils.JsonArrayIterator;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
@@ -17,10 +21,12 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.HttpResponse;
 import org.apache.http.impl.client.CloseableHttpClient;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.stream.Stream;
 
 import cz.wedo.api.utils.FileUtils;
 
@@ -47,9 +53,37 @@ public class Requester<T, K> extends RequesterBase {
     this.validator = new Validator();
   }
 
+  /**
+   * Constructs a new Requester object which sends its requests over the given shared transport.
+   *
+   * @param apiUser   the API username to be used for authentication
+   * @param apiKey    the API key to be used for authentication
+   * @param sslVerify specifies whether SSL verification should be performed
+   * @param transport the transport shared by the client
+   */
+  public Requester(String apiUser, String apiKey, Boolean sslVerify, Transport transport) {
+    this(apiUser, apiKey, sslVerify);
+    this.transport = transport;
+  }
+
+  /**
+   * Constructs a new Requester object which sends its requests over the given shared transport to a custom base URL.
+   *
+   * @param apiUser   the API username to be used for authentication
+   * @param apiKey    the API key to be used for authentication
+   * @param sslVerify specifies whether SSL verification should be performed
+   * @param transport the transport shared by the client
+   * @param baseUrl   the base URL overriding the environment URL, null to use the environment
+   */
+  public Requester(String apiUser, String apiKey, Boolean sslVerify, Transport transport, URL baseUrl) {
+    this(apiUser, apiKey, sslVerify, transport);
+    this.baseUrl = baseUrl;
+  }
+
   /**
    * Call API GET.
    * Makes a method call with the specified parameters.
+   * With request coalescing enabled, identical concurrent calls share one request and its response.
    *
    * @param version          the API version to use for the method call
    * @param request          the request string for the method call
@@ -76,7 +110,11 @@ public class Requester<T, K> extends RequesterBase {
       String customer,
       String department
   ) throws UnauthorizedException, BadRequestException, ErrorMessageException {
-    return callWithParams(RequestType.GET, version, request, data, shouldHaveStatus, gzip, responseType, gsonInstance, customer, department);
+    if (singleFlight == null) {
+      return callWithParams(RequestType.GET, version, request, data, shouldHaveStatus, gzip, responseType, gsonInstance, customer, department);
+    }
+    return singleFlight.execute(getCoalescingKey(version, request, data, shouldHaveStatus, responseType, gsonInstance, customer, department),
+        () -> callWithParams(RequestType.GET, version, request, data, shouldHaveStatus, gzip, responseType, gsonInstance, customer, department));
   }
 
   /**
@@ -106,7 +144,7 @@ public class Requester<T, K> extends RequesterBase {
       String customer,
       String department
   ) throws UnauthorizedException, BadRequestException, ErrorMessageException {
-    return callWithParams(RequestType.GET, version, request, data, shouldHaveStatus, gzip, responseType, GsonUtils.getGsonStandardDate(), customer, department);
+    return callGet(version, request, data, shouldHaveStatus, gzip, responseType, GsonUtils.getGsonStandardDate(), customer, department);
   }
 
   /**
@@ -135,6 +173,67 @@ public class Requester<T, K> extends RequesterBase {
     return callSaveToFile(RequestType.GET, version, request, data, shouldHaveStatus, gzip, targetFile);
   }
 
+  /**
+   * Call API GET and stream the elements of the returned JSON array.
+   * Elements are decoded one at a time from the open HTTP response, so memory use does not depend on the array size.
+   * The returned stream holds the connection until it is exhausted or closed, use it in a try-with-resources block.
+   *
+   * @param version      the API version to use for the method call
+   * @param request      the request string for the method call
+   * @param data         the query parameters to be sent with the method call
+   * @param gzip         whether gzip compression should be used for the method call
+   * @param elementType  the Type of the array elements
+   * @param gsonInstance the Gson instance to use for deserialization
+   * @param customer     the customer name for authorization
+   * @param department   the department name for authorization
+   * @return the stream of the array elements
+   * @throws ErrorMessageException if the request fails or the response is not a JSON array, never an empty stream instead
+   */
+  public Stream<K> callGetStream(
+      API version,
+      String request,
+      HashMap<Object, Object> data,
+      Boolean gzip,
+      Type elementType,
+      Gson gsonInstance,
+      String customer,
+      String department
+  ) throws ErrorMessageException {
+    Gson gson = gsonInstance != null ? gsonInstance : GsonUtils.getGsonStandardDate();
+    HttpResponse response = null;
+    try {
+      ResultHostPath resultUrlPath = getResultHostPath(version, request);
+      // call API server and get response
+      response = decodeResponse(sendWithParams(resultUrlPath.host, resultUrlPath.path, data, RequestType.GET, customer, department, gzip));
+      // get status code and content
+      int statusCode = response.getStatusLine().getStatusCode();
+      if (statusCode >= 300) {
+        throw ErrorUtils.getErrorMessageException(response.getEntity(), statusCode, gson);
+      }
+      log.info(String.format("Streaming response from API data size: %d", response.getEntity().getContentLength()));
+      JsonReader reader = GsonUtils.newJsonReader(gson, response.getEntity());
+      JsonArrayIterator<K> iterator = new JsonArrayIterator<>(gson, reader, elementType, response instanceof Closeable ? (Closeable) response : null);
+      // ownership of the response passed to the iterator
+      response = null;
+      return iterator.stream();
+    } catch (ErrorMessageException e) {
+      log.error(String.format("Error Message Exception: %s", e.getMessage()), e);
+      throw e;
+    } catch (IOException e) {
+      log.error(String.format("Exception: %s", e.getMessage()), e);
+      throw ErrorUtils.getErrorMessageException(e);
+    } catch (CircuitBreakerOpenException e) {
+      log.warn(e.getMessage());
+      throw e;
+    } catch (RuntimeException e) {
+      // an empty stream would read as no elements, e.g. as a package which was never created
+      log.error(String.format("Exception: %s", e.getMessage()), e);
+      throw ErrorUtils.getErrorMessageException(e);
+    } finally {
+      releaseResponse(response);
+    }
+  }
+
   /**
    * Makes a POST request using Gson to deserialize the response into an object of the specified type, with a specified date format.
    *
@@ -282,10 +381,11 @@ public class Requester<T, K> extends RequesterBase {
       String department
   ) throws UnauthorizedException, BadRequestException, ErrorMessageException {
     Gson gson = gsonInstance != null ? gsonInstance : GsonUtils.getGsonStandardDate();
+    HttpResponse response = null;
     try {
       ResultHostPath resultUrlPath = getResultHostPath(version, request);
       // call API server and get response
-      HttpResponse response = this.requestWithParams(resultUrlPath.host, resultUrlPath.path, data, type, customer, department);
+      response = decodeResponse(sendWithParams(resultUrlPath.host, resultUrlPath.path, data, type, customer, department, gzip));
       // get status code and content
       int statusCode = response.getStatusLine().getStatusCode();
       if (statusCode < 300) {
@@ -296,8 +396,16 @@ public class Requester<T, K> extends RequesterBase {
     } catch (ErrorMessageException e) {
       log.error(String.format("Error Message Exception: %s", e.getMessage()), e);
       throw e;
+    } catch (IOException e) {
+      log.error(String.format("Exception: %s", e.getMessage()), e);
+      throw ErrorUtils.getErrorMessageException(e);
+    } catch (CircuitBreakerOpenException e) {
+      log.warn(e.getMessage());
+      throw e;
     } catch (Exception e) {
       log.error(String.format("Exception: %s", e.getMessage()), e);
+    } finally {
+      releaseResponse(response);
     }
     return null;
   }
@@ -331,10 +439,11 @@ public class Requester<T, K> extends RequesterBase {
       String department
   ) throws UnauthorizedException, BadRequestException, ErrorMessageException {
     Gson gson = GsonUtils.getGsonStandardDate();
+    HttpResponse response = null;
     try {
       ResultHostPath resultUrlPath = getResultHostPath(version, request);
       // call API server and get response
-      HttpResponse response = this.requestPostObject(resultUrlPath.host, resultUrlPath.path, requestBodyClass, type, customer, department);
+      response = decodeResponse(sendPostObject(resultUrlPath.host, resultUrlPath.path, requestBodyClass, type, customer, department, gzip));
       // get status code and content
       int statusCode = response.getStatusLine().getStatusCode();
       if (statusCode < 300) {
@@ -345,8 +454,16 @@ public class Requester<T, K> extends RequesterBase {
     } catch (ErrorMessageException e) {
       log.error(String.format("Error Message Exception: %s", e.getMessage()), e);
       throw e;
+    } catch (IOException e) {
+      log.error(String.format("Exception: %s", e.getMessage()), e);
+      throw ErrorUtils.getErrorMessageException(e);
+    } catch (CircuitBreakerOpenException e) {
+      log.warn(e.getMessage());
+      throw e;
     } catch (Exception e) {
       log.error(String.format("Exception: %s", e.getMessage()), e);
+    } finally {
+      releaseResponse(response);
     }
     return null;
   }
@@ -375,10 +492,11 @@ public class Requester<T, K> extends RequesterBase {
       Boolean gzip,
       String targetFile
   ) throws UnauthorizedException, BadRequestException, ErrorMessageException {
+    HttpResponse response = null;
     try {
       ResultHostPath resultUrlPath = getResultHostPath(version, request);
       // call API server and get response
-      HttpResponse response = this.requestWithParams(resultUrlPath.host, resultUrlPath.path, data, type, null, null);
+      response = decodeResponse(sendWithParams(resultUrlPath.host, resultUrlPath.path, data, type, null, null, gzip));
       // get status code and content
       int statusCode = response.getStatusLine().getStatusCode();
       if (statusCode < 300) {
@@ -391,8 +509,16 @@ public class Requester<T, K> extends RequesterBase {
     } catch (ErrorMessageException e) {
       log.error(String.format("Error Message Exception: %s", e.getMessage()), e);
       throw e;
+    } catch (IOException e) {
+      log.error(String.format("Exception: %s", e.getMessage()), e);
+      throw ErrorUtils.getErrorMessageException(e);
+    } catch (CircuitBreakerOpenException e) {
+      log.warn(e.getMessage());
+      throw e;
     } catch (Exception e) {
       log.error(String.format("Exception: %s", e.getMessage()), e);
+    } finally {
+      releaseResponse(response);
     }
     return false;
   }
@@ -409,18 +535,24 @@ public class Requester<T, K> extends RequesterBase {
    * @return The response received from the server.
    */
   public HttpResponse requestWithParams(URL url, String path, HashMap<Object, Object> data, RequestType type, String customer, String department) {
+    return requestWithParams(url, path, data, type, customer, department, false);
+  }
+
+  /**
+   * Sends an HTTP request to the specified URL.
+   *
+   * @param url        The URL to send the request to.
+   * @param path       The path of the URL.
+   * @param data       The data to be sent with the request.
+   * @param type       The type of request (GET, POST, PUT, DELETE).
+   * @param customer   The customer associated with the request.
+   * @param department The department associated with the request.
+   * @param gzip       Whether the response should be requested gzip-compressed and large bodies compressed.
+   * @return The response received from the server.
+   */
+  public HttpResponse requestWithParams(URL url, String path, HashMap<Object, Object> data, RequestType type, String customer, String department, Boolean gzip) {
     try {
-      CloseableHttpClient httpClient = prepareHttpClient();
-      switch (type) {
-        case GET:
-          return processGet(url, path, data, httpClient, customer, department);
-        case POST:
-          return processPost(url, path, data, httpClient, customer, department);
-        case PUT:
-          return processPut(url, path, data, httpClient);
-        case DELETE:
-          return processDelete(url, path, data, httpClient);
-      }
+      return sendWithParams(url, path, data, type, customer, department, gzip);
     } catch (Exception e) {
       log.error(String.format("Exception: %s", e.getMessage()), e);
     }
@@ -428,6 +560,35 @@ public class Requester<T, K> extends RequesterBase {
     return null;
   }
 
+  /**
+   * Sends an HTTP request to the specified URL, propagating network errors.
+   *
+   * @param url        The URL to send the request to.
+   * @param path       The path of the URL.
+   * @param data       The data to be sent with the request.
+   * @param type       The type of request (GET, POST, PUT, DELETE).
+   * @param customer   The customer associated with the request.
+   * @param department The department associated with the request.
+   * @param gzip       Whether the response should be requested gzip-compressed and large bodies compressed.
+   * @return The response received from the server.
+   * @throws IOException if the request fails after the retries allowed by the retry policy
+   */
+  private HttpResponse sendWithParams(URL url, String path, HashMap<Object, Object> data, RequestType type, String customer, String department, Boolean gzip) throws IOException {
+    Transport engine = engine();
+    switch (type) {
+      case GET:
+        return processGet(url, path, data, engine, customer, department, gzip);
+      case POST:
+        return processPost(url, path, data, engine, customer, department, gzip);
+      case PUT:
+        return processPut(url, path, data, engine);
+      case DELETE:
+        return processDelete(url, path, data, engine, gzip);
+      default:
+        return null;
+    }
+  }
+
   /**
    * Sends a POST request to the specified URL with the given parameters.
    *
@@ -441,17 +602,24 @@ public class Requester<T, K> extends RequesterBase {
    * @throws BadRequestException if the request type is not implemented
    */
   public HttpResponse requestPostObject(URL url, String path, T requestBody, RequestType type, String customer, String department) {
+    return requestPostObject(url, path, requestBody, type, customer, department, false);
+  }
+
+  /**
+   * Sends a POST request to the specified URL with the given parameters.
+   *
+   * @param url         the URL to send the request to
+   * @param path        the path of the request
+   * @param requestBody the data to be sent with the request
+   * @param type        the type of the request (POST, GET, PUT, DELETE)
+   * @param customer    the customer name
+   * @param department  the department name
+   * @param gzip        whether the response should be requested gzip-compressed and large bodies compressed
+   * @return the HTTP response received from the server
+   */
+  public HttpResponse requestPostObject(URL url, String path, T requestBody, RequestType type, String customer, String department, Boolean gzip) {
     try {
-      CloseableHttpClient httpClient = prepareHttpClient();
-      switch (type) {
-        case POST:
-          return processPost(url, path, requestBody, httpClient, customer, department);
-        case GET:
-        case PUT:
-        case DELETE:
-        default:
-          throw new BadRequestException("Not implemented");
-      }
+      return sendPostObject(url, path, requestBody, type, customer, department, gzip);
     } catch (Exception e) {
       log.error(String.format("Exception: %s", e.getMessage()), e);
     }
@@ -459,19 +627,54 @@ public class Requester<T, K> extends RequesterBase {
     return null;
   }
 
+  /**
+   * Sends a POST request to the specified URL with the given parameters, propagating network errors.
+   *
+   * @param url         the URL to send the request to
+   * @param path        the path of the request
+   * @param requestBody the data to be sent with the request
+   * @param type        the type of the request, only POST is implemented
+   * @param customer    the customer name
+   * @param department  the department name
+   * @param gzip        whether the response should be requested gzip-compressed and large bodies compressed
+   * @return the HTTP response received from the server
+   * @throws IOException         if the request fails after the retries allowed by the retry policy
+   * @throws BadRequestException if the request type is not implemented
+   */
+  private HttpResponse sendPostObject(URL url, String path, T requestBody, RequestType type, String customer, String department, Boolean gzip) throws IOException, BadRequestException {
+    if (type != RequestType.POST) {
+      throw new BadRequestException("Not implemented");
+    }
+    return processPost(url, path, requestBody, engine(), customer, department, gzip);
+  }
+
+  /**
+   * Returns the shared transport, or a transport over a new Apache client when there is none.
+   *
+   * @return the transport
+   */
+  private Transport engine() {
+    if (transport != null) {
+      return transport;
+    }
+    CloseableHttpClient httpClient = prepareHttpClient();
+    return httpClient::execute;
+  }
+
   /**
    * Processes a GET request to the specified URL with the provided parameters.
    *
    * @param url         the base URL of the request
    * @param path        the endpoint path of the request
    * @param data        the query parameters to be appended to the URL
-   * @param httpClient the HTTP client used to execute the request
+   * @param engine      the transport used to send the request
    * @param customer    the customer header value (optional)
    * @param department  the department header value (optional)
+   * @param gzip        whether a gzip-compressed response should be requested
    * @return the HTTP response for the GET request
    * @throws IOException if an I/O error occurs during the request execution
    */
-  private HttpResponse processGet(URL url, String path, HashMap<Object, Object> data, CloseableHttpClient httpClient, String customer, String department) throws IOException {
+  private HttpResponse processGet(URL url, String path, HashMap<Object, Object> data, Transport engine, String customer, String department, Boolean gzip) throws IOException {
     String urlStr = assembleGetUrl(url, path, data);
     log.debug(String.format("Sending GET request to %s", urlStr));
     HttpGet request = new HttpGet(urlStr);
@@ -479,8 +682,9 @@ public class Requester<T, K> extends RequesterBase {
       // todo pro V1: request.setHeader("X-WEDO-Customer", customer);
     }
     addHeaders(department, request);
+    addAcceptEncoding(gzip, request);
 
-    return httpClient.execute(request);
+    return execute(engine, request, RequestType.GET, path);
   }
 
   /**
@@ -489,23 +693,25 @@ public class Requester<T, K> extends RequesterBase {
    * @param url        the URL to send the POST request to
    * @param path       the path to append to the URL
    * @param data       the data to include in the request body as JSON
-   * @param httpClient the HTTP client to use for making the request
+   * @param engine     the transport to use for making the request
    * @param customer   the customer to include in the request header (optional)
    * @param department the department to include in the request header (optional)
+   * @param gzip       whether large bodies should be compressed and a gzip-compressed response requested
    * @return the HTTP response received from the server
    * @throws IOException if an I/O error occurs during the request
    */
-  private HttpResponse processPost(URL url, String path, HashMap<Object, Object> data, CloseableHttpClient httpClient, String customer, String department) throws IOException {
+  private HttpResponse processPost(URL url, String path, HashMap<Object, Object> data, Transport engine, String customer, String department, Boolean gzip) throws IOException {
     final HttpPost request = preparePostRequest(url, path);
 
-    addPostEntity(data, request);
+    addPostEntity(data, request, gzip);
     if (customer != null) {
       // todo V1: request.setHeader("X-InTime-Customer", customer);
       // todo V2: request.setHeader("X-WEDO-Customer", customer);
     }
     addHeaders(department, request);
+    addAcceptEncoding(gzip, request);
 
-    return httpClient.execute(request);
+    return execute(engine, request, RequestType.POST, path);
   }
 
   /**
@@ -514,24 +720,26 @@ public class Requester<T, K> extends RequesterBase {
    * @param url The base URL to send the request to
    * @param path The path to append to the base URL
    * @param requestBody The data to send in the request body
-   * @param httpClient The instance of CloseableHttpClient to use for the request
+   * @param engine The transport to use for the request
    * @param customer The customer identifier
    * @param department The department identifier
+   * @param gzip Whether large bodies should be compressed and a gzip-compressed response requested
    * @return The HTTP response received from the server
    * @throws IOException if an I/O error occurs while sending the request
    */
-  private HttpResponse processPost(URL url, String path, T requestBody, CloseableHttpClient httpClient, String customer, String department) throws IOException {
+  private HttpResponse processPost(URL url, String path, T requestBody, Transport engine, String customer, String department, Boolean gzip) throws IOException {
     final HttpPost request = preparePostRequest(url, path);
 
-    addPostEntity(requestBody, request);
+    addPostEntity(requestBody, request, gzip);
     if (customer != null) {
       // todo V1: request.setHeader("X-InTime-Customer", customer);
       // todo V2: request.setHeader("X-WEDO-Customer", customer);
     }
     addHeaders(department, request);
     request.setHeader("X-WEDO-Auto-Complete", "true");
+    addAcceptEncoding(gzip, request);
 
-    return httpClient.execute(request);
+    return execute(engine, request, RequestType.POST, path);
   }
 
   /**
@@ -540,11 +748,11 @@ public class Requester<T, K> extends RequesterBase {
    * @param url        The URL to send the request to.
    * @param path       The path of the request.
    * @param data       The data to send in the request body.
-   * @param httpClient The HTTP client to use for the request.
+   * @param engine The transport to use for the request.
    * @return The HTTP response received from the server.
    * @throws IOException If an I/O error occurs while sending the request or receiving the response.
    */
-  private HttpResponse processPut(URL url, String path, HashMap<Object, Object> data, CloseableHttpClient httpClient) throws IOException {
+  private HttpResponse processPut(URL url, String path, HashMap<Object, Object> data, Transport engine) throws IOException {
     return null;
   }
 
@@ -554,16 +762,18 @@ public class Requester<T, K> extends RequesterBase {
    * @param url The base URL of the request.
    * @param path The path of the request to be appended to the base URL.
    * @param data The data to be sent with the request.
-   * @param httpClient The HttpClient instance to perform the request.
+   * @param engine The transport to perform the request.
+   * @param gzip Whether a gzip-compressed response should be requested.
    * @return The HttpResponse object representing the response from the DELETE request.
    * @throws IOException If an I/O error occurs while executing the request.
    */
-  private HttpResponse processDelete(URL url, String path, HashMap<Object, Object> data, CloseableHttpClient httpClient) throws IOException {
+  private HttpResponse processDelete(URL url, String path, HashMap<Object, Object> data, Transport engine, Boolean gzip) throws IOException {
     String urlStr = assembleGetUrl(url, path, data);
     log.info(String.format("Sending DELETE request to %s", urlStr));
     HttpDelete request = new HttpDelete(urlStr);
     request.setHeader("Authorization", HttpBasicAuth.getBasicAuthenticationHeader(apiUser, apiKey));
+    addAcceptEncoding(gzip, request);
 
-    return httpClient.execute(request);
+    return execute(engine, request, RequestType.DELETE, path);
   }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package cz.wedo.api.services.breaker;
+
+import cz.wedo.api.exceptions.CircuitBreakerOpenException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of one environment and endpoint group.
+ * While CLOSED every call is let through and its outcome recorded in a sliding window of the last calls; once the window
+ * holds the minimum number of calls and the failure rate (network errors and 5xx) or the slow call rate reaches its threshold,
+ * the breaker opens. While OPEN calls are rejected with {@link CircuitBreakerOpenException} without being sent.
+ * After the open duration the breaker is HALF_OPEN and lets a few probe calls through: it closes when they all succeed
+ * and opens again as soon as one fails or is slow.
+ */
+@Slf4j
+public class CircuitBreaker implements CircuitBreakerMXBean {
+  /**
+   * States of a circuit breaker.
+   */
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /**
+   * Environment, the authority (host and port) of the API URL.
+   */
+  @Getter
+  private final String environment;
+
+  /**
+   * Endpoint group.
+   */
+  @Getter
+  private final EndpointGroup group;
+
+  private final CircuitBreakerRegistry config;
+
+  private final LongSupplier nanoTime;
+
+  private final boolean[] failures;
+
+  private final boolean[] slowCalls;
+
+  private State state = State.CLOSED;
+
+  private int next;
+
+  private int bufferedCalls;
+
+  private int failureCount;
+
+  private int slowCallCount;
+
+  private long openedAt;
+
+  private int probesPermitted;
+
+  private int probesSucceeded;
+
+  private long rejectedCalls;
+
+  private long openedCount;
+
+  CircuitBreaker(String environment, EndpointGroup group, CircuitBreakerRegistry config, LongSupplier nanoTime) {
+    this.environment = environment;
+    this.group = group;
+    this.config = config;
+    this.nanoTime = nanoTime;
+    this.failures = new boolean[config.getWindowSize()];
+    this.slowCalls = new boolean[config.getWindowSize()];
+  }
+
+  /**
+   * Lets a call through or rejects it. Every call let through must report its outcome by {@link #onResult(boolean, long)}, or {@link #release()} when it is not sent.
+   *
+   * @throws CircuitBreakerOpenException if the breaker is open, or half-open with all probes in flight
+   */
+  public synchronized void acquire() {
+    if (state == State.OPEN) {
+      long openFor = openedAt + config.getOpenDuration().toNanos() - nanoTime.getAsLong();
+      if (openFor > 0) {
+        rejectedCalls++;
+        throw new CircuitBreakerOpenException(environment, group, Duration.ofNanos(openFor));
+      }
+      transition(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      if (probesPermitted >= config.getHalfOpenCalls()) {
+        rejectedCalls++;
+        throw new CircuitBreakerOpenException(environment, group, Duration.ZERO);
+      }
+      probesPermitted++;
+    }
+  }
+
+  /**
+   * Records the outcome of a call let through.
+   *
+   * @param failed        whether the call failed (no response or 5xx)
+   * @param durationNanos the time until the response arrived
+   */
+  public synchronized void onResult(boolean failed, long durationNanos) {
+    final boolean slow = durationNanos >= config.getSlowCallDuration().toNanos();
+    if (state == State.HALF_OPEN) {
+      if (failed || slow) {
+        transition(State.OPEN);
+      } else if (++probesSucceeded >= config.getHalfOpenCalls()) {
+        transition(State.CLOSED);
+      }
+    } else if (state == State.CLOSED) {
+      if (bufferedCalls == failures.length) {
+        failureCount -= failures[next] ? 1 : 0;
+        slowCallCount -= slowCalls[next] ? 1 : 0;
+      } else {
+        bufferedCalls++;
+      }
+      failures[next] = failed;
+      slowCalls[next] = slow;
+      failureCount += failed ? 1 : 0;
+      slowCallCount += slow ? 1 : 0;
+      next = (next + 1) % failures.length;
+      if (bufferedCalls >= config.getMinimumCalls()
+          && (getFailureRate() >= config.getFailureRateThreshold() || getSlowCallRate() >= config.getSlowCallRateThreshold())) {
+        transition(State.OPEN);
+      }
+    }
+  }
+
+  /**
+   * Gives back the permission of a call let through but abandoned before it was sent.
+   */
+  public synchronized void release() {
+    if (state == State.HALF_OPEN && probesPermitted > probesSucceeded) {
+      probesPermitted--;
+    }
+  }
+
+  /**
+   * Returns the state, moving from OPEN to HALF_OPEN only when a call is let through.
+   *
+   * @return the state
+   */
+  @Override
+  public synchronized State getState() {
+    return state;
+  }
+
+  @Override
+  public String getName() {
+    return String.format("%s %s", environment, group);
+  }
+
+  @Override
+  public synchronized double getFailureRate() {
+    return bufferedCalls > 0 ? (double) failureCount / bufferedCalls : 0;
+  }
+
+  @Override
+  public synchronized double getSlowCallRate() {
+    return bufferedCalls > 0 ? (double) slowCallCount / bufferedCalls : 0;
+  }
+
+  @Override
+  public synchronized int getBufferedCalls() {
+    return bufferedCalls;
+  }
+
+  @Override
+  public synchronized long getRejectedCalls() {
+    return rejectedCalls;
+  }
+
+  @Override
+  public synchronized long getOpenedCount() {
+    return openedCount;
+  }
+
+  private void transition(State to) {
+    log.warn(String.format("Circuit breaker %s: %s -> %s (failure rate %.2f, slow call rate %.2f)", getName(), state, to, getFailureRate(), getSlowCallRate()));
+    state = to;
+    if (to == State.OPEN) {
+      openedAt = nanoTime.getAsLong();
+      openedCount++;
+    } else if (to == State.HALF_OPEN) {
+      probesPermitted = 0;
+      probesSucceeded = 0;
+    } else {
+      next = 0;
+      bufferedCalls = 0;
+      failureCount = 0;
+      slowCallCount = 0;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package cz.wedo.api.services.breaker;
+
+/**
+ * JMX view of one circuit breaker.
+ */
+public interface CircuitBreakerMXBean {
+  /**
+   * @return the environment and endpoint group, e.g. {@code api.wedo.cz PACKAGE}
+   */
+  String getName();
+
+  /**
+   * @return the state, CLOSED, OPEN or HALF_OPEN
+   */
+  CircuitBreaker.State getState();
+
+  /**
+   * @return the fraction of failed calls in the sliding window, 0 to 1
+   */
+  double getFailureRate();
+
+  /**
+   * @return the fraction of slow calls in the sliding window, 0 to 1
+   */
+  double getSlowCallRate();
+
+  /**
+   * @return the number of calls in the sliding window
+   */
+  int getBufferedCalls();
+
+  /**
+   * @return the number of calls rejected while the breaker was open
+   */
+  long getRejectedCalls();
+
+  /**
+   * @return the number of times the breaker opened
+   */
+  long getOpenedCount();
+}
@@ -0,0 +1,189 @@
+package cz.wedo.api.services.breaker;
+
+import cz.wedo.api.services.metrics.MetricsRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Configuration and registry of the circuit breakers, one per environment (host of the API) and {@link EndpointGroup},
+ * so that a degraded part of the backend fails fast without blocking the calls of the other groups.
+ * Every new breaker is announced to the metrics registry of the client, see {@link MetricsRegistry#circuitBreakerCreated(CircuitBreaker)}.
+ */
+@Getter
+public class CircuitBreakerRegistry {
+  /**
+   * Fraction of failed calls (0 to 1) in the sliding window which opens the breaker.
+   */
+  private final double failureRateThreshold;
+
+  /**
+   * Fraction of slow calls (0 to 1) in the sliding window which opens the breaker.
+   */
+  private final double slowCallRateThreshold;
+
+  /**
+   * Duration from which a call is slow.
+   */
+  private final Duration slowCallDuration;
+
+  /**
+   * Number of last calls the rates are computed over.
+   */
+  private final int windowSize;
+
+  /**
+   * Number of calls needed in the window before the rates are evaluated.
+   */
+  private final int minimumCalls;
+
+  /**
+   * Time the breaker stays open before letting probe calls through.
+   */
+  private final Duration openDuration;
+
+  /**
+   * Number of probe calls which must succeed in the half-open state to close the breaker.
+   */
+  private final int halfOpenCalls;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  @Getter(AccessLevel.NONE)
+  private final LongSupplier nanoTime;
+
+  private CircuitBreakerRegistry(Builder builder, LongSupplier nanoTime) {
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallRateThreshold = builder.slowCallRateThreshold;
+    this.slowCallDuration = builder.slowCallDuration;
+    this.windowSize = builder.windowSize;
+    this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+    this.openDuration = builder.openDuration;
+    this.halfOpenCalls = builder.halfOpenCalls;
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Returns the breaker of an environment and endpoint group, creating it on first use.
+   *
+   * @param environment the environment, the authority (host and port) of the API URL
+   * @param group       the endpoint group
+   * @param metrics     the metrics registry the breaker is announced to when created
+   * @return the breaker
+   */
+  public CircuitBreaker breaker(String environment, EndpointGroup group, MetricsRegistry metrics) {
+    String key = String.format("%s %s", environment, group);
+    CircuitBreaker breaker = breakers.get(key);
+    if (breaker == null) {
+      breaker = breakers.computeIfAbsent(key, k -> {
+        CircuitBreaker created = new CircuitBreaker(environment, group, this, nanoTime);
+        metrics.circuitBreakerCreated(created);
+        return created;
+      });
+    }
+    return breaker;
+  }
+
+  /**
+   * Returns the breakers created so far sorted by environment and endpoint group.
+   *
+   * @return the breakers by name
+   */
+  public Map<String, CircuitBreaker> getBreakers() {
+    return Collections.unmodifiableMap(new TreeMap<>(breakers));
+  }
+
+  /**
+   * The Builder class is used to construct a CircuitBreakerRegistry.
+   */
+  public static class Builder {
+    private double failureRateThreshold = 0.5;
+    private double slowCallRateThreshold = 1;
+    private Duration slowCallDuration = Duration.ofSeconds(10);
+    private int windowSize = 20;
+    private int minimumCalls = 10;
+    private Duration openDuration = Duration.ofSeconds(30);
+    private int halfOpenCalls = 3;
+
+    /**
+     * Sets the fraction of failed calls which opens the breaker, 0.5 by default.
+     */
+    public Builder setFailureRateThreshold(double failureRateThreshold) {
+      this.failureRateThreshold = rate(failureRateThreshold);
+      return this;
+    }
+
+    /**
+     * Sets the fraction of slow calls which opens the breaker, 1 (all calls slow) by default.
+     */
+    public Builder setSlowCallRateThreshold(double slowCallRateThreshold) {
+      this.slowCallRateThreshold = rate(slowCallRateThreshold);
+      return this;
+    }
+
+    /**
+     * Sets the duration from which a call is slow, 10 s by default.
+     */
+    public Builder setSlowCallDuration(Duration slowCallDuration) {
+      this.slowCallDuration = slowCallDuration;
+      return this;
+    }
+
+    /**
+     * Sets the number of last calls the rates are computed over, 20 by default.
+     */
+    public Builder setWindowSize(int windowSize) {
+      if (windowSize < 1) {
+        throw new IllegalArgumentException(String.format("Invalid window size: %d", windowSize));
+      }
+      this.windowSize = windowSize;
+      return this;
+    }
+
+    /**
+     * Sets the number of calls needed before the rates are evaluated, 10 by default.
+     */
+    public Builder setMinimumCalls(int minimumCalls) {
+      this.minimumCalls = Math.max(1, minimumCalls);
+      return this;
+    }
+
+    /**
+     * Sets the time the breaker stays open before letting probe calls through, 30 s by default.
+     */
+    public Builder setOpenDuration(Duration openDuration) {
+      this.openDuration = openDuration;
+      return this;
+    }
+
+    /**
+     * Sets the number of probe calls which must succeed to close the breaker, 3 by default.
+     */
+    public Builder setHalfOpenCalls(int halfOpenCalls) {
+      this.halfOpenCalls = Math.max(1, halfOpenCalls);
+      return this;
+    }
+
+    public CircuitBreakerRegistry build() {
+      return new CircuitBreakerRegistry(this, System::nanoTime);
+    }
+
+    CircuitBreakerRegistry build(LongSupplier nanoTime) {
+      return new CircuitBreakerRegistry(this, nanoTime);
+    }
+
+    private static double rate(double rate) {
+      if (rate <= 0 || rate > 1) {
+        throw new IllegalArgumentException(String.format("Invalid rate threshold: %s", rate));
+      }
+      return rate;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package cz.wedo.api.services.breaker;
+
+/**
+ * Groups of endpoints sharing a circuit breaker, as they are served by the same part of the WeDo backend.
+ */
+public enum EndpointGroup {
+  /**
+   * Package creation, detail, list and cancellation.
+   */
+  PACKAGE,
+  /**
+   * Package and batch labels.
+   */
+  LABELS,
+  /**
+   * Batches and their manifests.
+   */
+  BATCH,
+  /**
+   * Pickup orders.
+   */
+  PICKUP,
+  /**
+   * Pickup place and distribution point lists.
+   */
+  REFERENCE_LISTS,
+  /**
+   * Any other endpoint.
+   */
+  OTHER;
+
+  /**
+   * Returns the group of an endpoint.
+   *
+   * @param pathTemplate the path template, e.g. {@code package/{id}/labels.pdf}
+   * @return the group
+   */
+  public static EndpointGroup of(String pathTemplate) {
+    if (pathTemplate.endsWith("/labels.pdf") || pathTemplate.endsWith("/labels.zpl")) {
+      return LABELS;
+    }
+    int slash = pathTemplate.indexOf('/');
+    switch (slash >= 0 ? pathTemplate.substring(0, slash) : pathTemplate) {
+      case "package":
+        return PACKAGE;
+      case "batch":
+        return BATCH;
+      case "pickup":
+        return PICKUP;
+      case "pickup-place":
+      case "distribution-point":
+        return REFERENCE_LISTS;
+      default:
+        return OTHER;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package cz.wedo.api.services.bulk;
+
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.utils.ErrorUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs a blocking call for every item of a list on a bounded number of worker threads, or starts an asynchronous call
+ * for every item with a bounded number of calls in flight.
+ * Each worker takes the next pending item, so a slow item delays only its own worker.
+ * The outcome of every item is collected in input order, failures included, and reported to the progress listener.
+ */
+@Slf4j
+public final class BulkExecutor {
+
+  private BulkExecutor() {
+  }
+
+  /**
+   * Blocking call applied to one item.
+   *
+   * @param <I> the type of the items
+   * @param <R> the type of the values
+   */
+  @FunctionalInterface
+  public interface Task<I, R> {
+    R apply(I item) throws ErrorMessageException;
+  }
+
+  /**
+   * Asynchronous call applied to one item.
+   *
+   * @param <I> the type of the items
+   * @param <R> the type of the values
+   */
+  @FunctionalInterface
+  public interface AsyncTask<I, R> {
+    CompletableFuture<R> apply(I item);
+  }
+
+  /**
+   * Applies the task to every item with at most {@code parallelism} items in flight and waits for all of them.
+   * Unchecked failures of the task are reported as {@link ErrorMessageException} (see {@link ErrorUtils#getErrorMessageException(RuntimeException)}).
+   * When the calling thread is interrupted, the workers are interrupted and the items not completed yet fail with an I/O error.
+   *
+   * @param <I>         the type of the items
+   * @param <R>         the type of the values
+   * @param items       the items
+   * @param parallelism the maximum number of items in flight
+   * @param task        the call applied to each item
+   * @param listener    the listener notified about every completed item, null for none
+   * @return the outcomes in the order of the items
+   */
+  public static <I, R> List<BulkResult<R>> run(List<I> items, int parallelism, Task<I, R> task, BulkProgressListener<R> listener) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(String.format("Invalid parallelism: %d", parallelism));
+    }
+    final int total = items.size();
+    final AtomicReferenceArray<BulkResult<R>> results = new AtomicReferenceArray<>(total);
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicInteger completed = new AtomicInteger();
+    final Runnable worker = () -> {
+      for (int index = next.getAndIncrement(); index < total && !Thread.currentThread().isInterrupted(); index = next.getAndIncrement()) {
+        BulkResult<R> result = execute(task, items.get(index), index);
+        if (results.compareAndSet(index, null, result) && listener != null) {
+          try {
+            listener.onProgress(result, completed.incrementAndGet(), total);
+          } catch (RuntimeException e) {
+            log.warn(String.format("Progress listener failed: %s", e), e);
+          }
+        }
+      }
+    };
+
+    final int workers = Math.min(parallelism, total);
+    if (workers > 0) {
+      final AtomicInteger threads = new AtomicInteger();
+      final ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+        Thread thread = new Thread(runnable, String.format("wedo-api-bulk-%d", threads.incrementAndGet()));
+        thread.setDaemon(true);
+        return thread;
+      });
+      try {
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+          futures.add(executor.submit(worker));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        executor.shutdownNow();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    List<BulkResult<R>> list = new ArrayList<>(total);
+    for (int index = 0; index < total; index++) {
+      results.compareAndSet(index, null, BulkResult.failure(index, ErrorUtils.getErrorMessageException(new InterruptedIOException("Interrupted before completion"))));
+      list.add(results.get(index));
+    }
+    return list;
+  }
+
+  /**
+   * Starts the task for every item from the calling thread with at most {@code parallelism} calls in flight and waits for all of them.
+   * No thread is held per call: the next item is started as soon as a call in flight completes, so the parallelism is bounded
+   * by the calls the transport can multiplex rather than by threads. Failures are reported as by {@link #run(List, int, Task, BulkProgressListener)};
+   * the listener is notified from the threads completing the calls.
+   * When the calling thread is interrupted, no further item is started and the items not completed yet fail with an I/O error.
+   *
+   * @param <I>         the type of the items
+   * @param <R>         the type of the values
+   * @param items       the items
+   * @param parallelism the maximum number of calls in flight
+   * @param task        the call started for each item
+   * @param listener    the listener notified about every completed item, null for none
+   * @return the outcomes in the order of the items
+   */
+  public static <I, R> List<BulkResult<R>> runAsync(List<I> items, int parallelism, AsyncTask<I, R> task, BulkProgressListener<R> listener) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(String.format("Invalid parallelism: %d", parallelism));
+    }
+    final int total = items.size();
+    final AtomicReferenceArray<BulkResult<R>> results = new AtomicReferenceArray<>(total);
+    final AtomicInteger completed = new AtomicInteger();
+    final Semaphore inFlight = new Semaphore(parallelism);
+    final List<CompletableFuture<?>> calls = new ArrayList<>(total);
+    try {
+      for (int i = 0; i < total; i++) {
+        inFlight.acquire();
+        final int index = i;
+        CompletableFuture<R> call;
+        try {
+          call = task.apply(items.get(index));
+        } catch (RuntimeException e) {
+          call = CompletableFuture.failedFuture(e);
+        }
+        calls.add(call.handle((value, e) -> {
+          BulkResult<R> result = e == null ? BulkResult.success(index, value) : BulkResult.failure(index, toErrorMessageException(e));
+          if (results.compareAndSet(index, null, result) && listener != null) {
+            try {
+              listener.onProgress(result, completed.incrementAndGet(), total);
+            } catch (RuntimeException ex) {
+              log.warn(String.format("Progress listener failed: %s", ex), ex);
+            }
+          }
+          return null;
+        }).whenComplete((ignored, e) -> inFlight.release()));
+      }
+      CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+
+    List<BulkResult<R>> list = new ArrayList<>(total);
+    for (int index = 0; index < total; index++) {
+      results.compareAndSet(index, null, BulkResult.failure(index, ErrorUtils.getErrorMessageException(new InterruptedIOException("Interrupted before completion"))));
+      list.add(results.get(index));
+    }
+    return list;
+  }
+
+  private static ErrorMessageException toErrorMessageException(Throwable e) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    if (cause instanceof ErrorMessageException) {
+      return (ErrorMessageException) cause;
+    }
+    if (cause instanceof IOException) {
+      return ErrorUtils.getErrorMessageException((IOException) cause);
+    }
+    return ErrorUtils.getErrorMessageException(cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause));
+  }
+
+  private static <I, R> BulkResult<R> execute(Task<I, R> task, I item, int index) {
+    try {
+      return BulkResult.success(index, task.apply(item));
+    } catch (ErrorMessageException e) {
+      return BulkResult.failure(index, e);
+    } catch (RuntimeException e) {
+      return BulkResult.failure(index, ErrorUtils.getErrorMessageException(e));
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package cz.wedo.api.services.bulk;
+
+/**
+ * Receives the outcome of every item of a bulk operation as soon as it completes.
+ * It is called from the worker threads, concurrently and in completion order, so it must be thread-safe and fast.
+ *
+ * @param <R> the type of the item values
+ */
+@FunctionalInterface
+public interface BulkProgressListener<R> {
+  /**
+   * Called when an item completes.
+   *
+   * @param result    the outcome of the item
+   * @param completed the number of items completed so far, including this one
+   * @param total     the number of items of the operation
+   */
+  void onProgress(BulkResult<R> result, int completed, int total);
+}
@@ -0,0 +1,47 @@
+package cz.wedo.api.services.bulk;
+
+import cz.wedo.api.models.errors.ErrorMessageException;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of one item of a bulk operation: either its value or the error it failed with.
+ *
+ * @param <R> the type of the value
+ */
+@Getter
+@ToString
+public class BulkResult<R> {
+  /**
+   * Position of the item in the input list.
+   */
+  private final int index;
+
+  /**
+   * Value of the item, null if it failed.
+   */
+  private final R value;
+
+  /**
+   * Error of the item, null if it succeeded.
+   */
+  private final ErrorMessageException error;
+
+  private BulkResult(int index, R value, ErrorMessageException error) {
+    this.index = index;
+    this.value = value;
+    this.error = error;
+  }
+
+  static <R> BulkResult<R> success(int index, R value) {
+    return new BulkResult<>(index, value, null);
+  }
+
+  static <R> BulkResult<R> failure(int index, ErrorMessageException error) {
+    return new BulkResult<>(index, null, error);
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,70 @@
+package cz.wedo.api.services.cache;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Lifetime of cached reference data (pickup places, distribution points).
+ * An entry is served as is until {@code refreshAfter}, then served while a background refresh replaces it,
+ * and once older than {@code ttl} it is no longer served and the next read loads it again.
+ */
+@Getter
+public class CachePolicy {
+  /**
+   * Default policy: entries live 1 hour and are refreshed in the background after 45 minutes.
+   */
+  public static final CachePolicy DEFAULT = new Builder().build();
+
+  /**
+   * Age after which an entry is no longer served.
+   */
+  private final Duration ttl;
+
+  /**
+   * Age after which an entry is refreshed in the background while it is still served.
+   */
+  private final Duration refreshAfter;
+
+  private CachePolicy(Builder builder) {
+    this.ttl = builder.ttl;
+    this.refreshAfter = builder.refreshAfter != null ? builder.refreshAfter : builder.ttl.multipliedBy(3).dividedBy(4);
+  }
+
+  /**
+   * The Builder class is used to construct a CachePolicy.
+   */
+  public static class Builder {
+    private Duration ttl = Duration.ofHours(1);
+    private Duration refreshAfter = null;
+
+    public Builder setTtl(Duration ttl) {
+      if (ttl.isNegative() || ttl.isZero()) {
+        throw new IllegalArgumentException(String.format("Invalid TTL: %s", ttl));
+      }
+      this.ttl = ttl;
+      return this;
+    }
+
+    /**
+     * Sets the age after which an entry is refreshed in the background, 3/4 of the TTL by default.
+     *
+     * @param refreshAfter the refresh-ahead age, not longer than the TTL
+     * @return this builder
+     */
+    public Builder setRefreshAfter(Duration refreshAfter) {
+      if (refreshAfter.isNegative()) {
+        throw new IllegalArgumentException(String.format("Invalid refresh age: %s", refreshAfter));
+      }
+      this.refreshAfter = refreshAfter;
+      return this;
+    }
+
+    public CachePolicy build() {
+      if (refreshAfter != null && refreshAfter.compareTo(ttl) > 0) {
+        throw new IllegalArgumentException(String.format("Refresh age %s longer than TTL %s", refreshAfter, ttl));
+      }
+      return new CachePolicy(this);
+    }
+  }
+}
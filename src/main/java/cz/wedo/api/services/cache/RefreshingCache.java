@@ -0,0 +1,172 @@
+package cz.wedo.api.services.cache;
+
+import cz.wedo.api.models.errors.ErrorMessageException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of one value loaded from the API, see {@link CachePolicy}.
+ * Reads are lock-free: they return the value of the current snapshot, which is replaced as a whole by every load.
+ * Only a read finding no usable snapshot blocks, loading the value once for all waiting readers.
+ * The cached value is shared by all readers and must be treated as read-only.
+ *
+ * @param <V> the type of the value
+ */
+@Slf4j
+public class RefreshingCache<V> {
+  /**
+   * Threads refreshing the caches in the background.
+   */
+  private static final ExecutorService REFRESHER = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "wedo-api-cache-refresh");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Blocking load of the value.
+   *
+   * @param <V> the type of the value
+   */
+  @FunctionalInterface
+  public interface Loader<V> {
+    V load() throws ErrorMessageException;
+  }
+
+  /**
+   * Immutable snapshot of the value and the time it was loaded.
+   */
+  private static final class Snapshot<V> {
+    private final V value;
+    private final long loadedAt;
+
+    private Snapshot(V value, long loadedAt) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  private final long ttlNanos;
+
+  private final long refreshAfterNanos;
+
+  private final Loader<V> loader;
+
+  private final Executor refresher;
+
+  private final LongSupplier nanoTime;
+
+  private final AtomicReference<Snapshot<V>> snapshot = new AtomicReference<>();
+
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  /**
+   * Creates a cache loading its value with the given loader.
+   *
+   * @param policy the lifetime of the value
+   * @param loader the load of the value
+   */
+  public RefreshingCache(CachePolicy policy, Loader<V> loader) {
+    this(policy, loader, REFRESHER, System::nanoTime);
+  }
+
+  RefreshingCache(CachePolicy policy, Loader<V> loader, Executor refresher, LongSupplier nanoTime) {
+    this.ttlNanos = policy.getTtl().toNanos();
+    this.refreshAfterNanos = policy.getRefreshAfter().toNanos();
+    this.loader = loader;
+    this.refresher = refresher;
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Returns the cached value, loading it when there is none or it expired.
+   * A value due for refresh is returned while it is refreshed in the background.
+   *
+   * @return the value
+   * @throws ErrorMessageException if the value has to be loaded and the load fails
+   */
+  public V get() throws ErrorMessageException {
+    V value = getIfPresent();
+    if (value != null) {
+      return value;
+    }
+    synchronized (this) {
+      value = getIfPresent();
+      if (value != null) {
+        return value;
+      }
+      value = loader.load();
+      put(value);
+      return value;
+    }
+  }
+
+  /**
+   * Returns the cached value without loading it, null when there is none or it expired.
+   * A value due for refresh is returned while it is refreshed in the background.
+   *
+   * @return the value, or null
+   */
+  public V getIfPresent() {
+    Snapshot<V> current = snapshot.get();
+    if (current == null) {
+      return null;
+    }
+    long age = nanoTime.getAsLong() - current.loadedAt;
+    if (age >= ttlNanos) {
+      return null;
+    }
+    if (age >= refreshAfterNanos) {
+      refresh(current);
+    }
+    return current.value;
+  }
+
+  /**
+   * Replaces the cached value, e.g. with a value loaded asynchronously.
+   *
+   * @param value the value, null is ignored
+   */
+  public void put(V value) {
+    if (value != null) {
+      snapshot.set(new Snapshot<>(value, nanoTime.getAsLong()));
+    }
+  }
+
+  /**
+   * Drops the cached value, the next read loads it again. A refresh in flight does not restore it.
+   */
+  public void invalidate() {
+    snapshot.set(null);
+  }
+
+  private void refresh(Snapshot<V> current) {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      refresher.execute(() -> {
+        try {
+          V value = loader.load();
+          if (value != null) {
+            // a value invalidated or replaced meanwhile is not overwritten
+            snapshot.compareAndSet(current, new Snapshot<>(value, nanoTime.getAsLong()));
+          }
+        } catch (ErrorMessageException | RuntimeException e) {
+          log.warn(String.format("Cannot refresh cached value, serving the previous one: %s", e.getMessage()), e);
+        } finally {
+          refreshing.set(false);
+        }
+      });
+    } catch (RuntimeException e) {
+      refreshing.set(false);
+      log.warn(String.format("Cannot schedule refresh of cached value: %s", e.getMessage()), e);
+    }
+  }
+}
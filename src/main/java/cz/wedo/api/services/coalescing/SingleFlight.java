@@ -0,0 +1,145 @@
+package cz.wedo.api.services.coalescing;
+
+import cz.wedo.api.exceptions.BadRequestException;
+import cz.wedo.api.exceptions.UnauthorizedException;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.utils.ErrorUtils;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls: while a call is in flight, the calls with the same key wait for its outcome
+ * instead of sending their own request. Nothing is cached, a call started after the previous one completed is sent again.
+ * The callers of a coalesced call share the same response object (or exception), so the responses must be treated as read-only.
+ */
+public class SingleFlight {
+  private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  /**
+   * Blocking call which may be coalesced.
+   *
+   * @param <V> the type of the result
+   */
+  @FunctionalInterface
+  public interface Call<V> {
+    V call() throws UnauthorizedException, BadRequestException, ErrorMessageException;
+  }
+
+  /**
+   * Runs the call unless an identical one is in flight, in which case its outcome is returned.
+   *
+   * @param <V>  the type of the result
+   * @param key  the key identifying identical calls
+   * @param call the call
+   * @return the result of the call
+   * @throws UnauthorizedException if the call is unauthorized
+   * @throws BadRequestException   if the call is a bad request
+   * @throws ErrorMessageException if the call fails
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V execute(Object key, Call<V> call) throws UnauthorizedException, BadRequestException, ErrorMessageException {
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      coalescedCount.incrementAndGet();
+      return (V) await(running);
+    }
+    try {
+      V result = call.call();
+      created.complete(result);
+      return result;
+    } catch (UnauthorizedException | BadRequestException | ErrorMessageException | RuntimeException | Error e) {
+      created.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, created);
+    }
+  }
+
+  /**
+   * Starts the asynchronous call unless an identical one is in flight, in which case its outcome is returned.
+   * Every caller gets its own future, cancelling it does not affect the other callers.
+   *
+   * @param <V>  the type of the result
+   * @param key  the key identifying identical calls
+   * @param call the call starting the request
+   * @return future completed with the result of the call
+   */
+  @SuppressWarnings("unchecked")
+  public <V> CompletableFuture<V> executeAsync(Object key, Supplier<CompletableFuture<V>> call) {
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      coalescedCount.incrementAndGet();
+      return (CompletableFuture<V>) running.copy();
+    }
+    CompletableFuture<V> started;
+    try {
+      started = call.get();
+    } catch (RuntimeException e) {
+      started = CompletableFuture.failedFuture(e);
+    }
+    started.whenComplete((result, e) -> {
+      inFlight.remove(key, created);
+      if (e != null) {
+        created.completeExceptionally(e);
+      } else {
+        created.complete(result);
+      }
+    });
+    return (CompletableFuture<V>) created.copy();
+  }
+
+  /**
+   * Returns the number of calls answered by an identical call in flight instead of sending their own request.
+   *
+   * @return the number of coalesced calls
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * Returns the number of distinct calls in flight.
+   *
+   * @return the number of calls in flight
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  private static Object await(CompletableFuture<Object> running) throws UnauthorizedException, BadRequestException, ErrorMessageException {
+    try {
+      return running.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw ErrorUtils.getErrorMessageException(new InterruptedIOException("Interrupted while waiting for the identical call in flight"));
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UnauthorizedException) {
+        throw (UnauthorizedException) cause;
+      }
+      if (cause instanceof BadRequestException) {
+        throw (BadRequestException) cause;
+      }
+      if (cause instanceof ErrorMessageException) {
+        throw (ErrorMessageException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
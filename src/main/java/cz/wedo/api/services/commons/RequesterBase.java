@@ -4,40 +4,67 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import cz.wedo.api.definitions.API;
+import cz.wedo.api.definitions.RequestType;
 import cz.wedo.api.exceptions.BadRequestException;
+import cz.wedo.api.exceptions.CircuitBreakerOpenException;
+import cz.wedo.api.exceptions.DeadlineExceededException;
 import cz.wedo.api.exceptions.UnauthorizedException;
 import cz.wedo.api.services.Validator;
+import cz.wedo.api.services.breaker.CircuitBreaker;
+import cz.wedo.api.services.breaker.CircuitBreakerRegistry;
+import cz.wedo.api.services.breaker.EndpointGroup;
+import cz.wedo.api.services.coalescing.SingleFlight;
+import cz.wedo.api.services.metrics.MeteredEntity;
+import cz.wedo.api.services.metrics.MetricsRegistry;
+import cz.wedo.api.services.ratelimit.RateLimiter;
+import cz.wedo.api.services.ratelimit.TokenBucket;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.services.tenant.ConcurrencyQuota;
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import cz.wedo.api.services.transport.HttpTransport;
+import cz.wedo.api.services.transport.SslContexts;
+import cz.wedo.api.services.transport.Transport;
+import cz.wedo.api.utils.GsonUtils;
+import cz.wedo.api.utils.GzipUtils;
 import cz.wedo.api.utils.HttpBasicAuth;
 import lombok.AllArgsConstructor;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.util.EntityUtils;
 
 import javax.json.JsonException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -56,7 +83,7 @@ public class RequesterBase {
   protected String apiKey;
 
   /**
-   * SSL verification enabled
+   * SSL verification enabled: server certificates must be trusted by the JVM, otherwise self-signed ones are accepted too
    */
   protected Boolean sslVerify;
 
@@ -65,8 +92,71 @@ public class RequesterBase {
    */
   protected Validator validator;
 
+  /**
+   * Shared transport sending the requests, null when every request should use its own Apache client
+   */
+  protected Transport transport;
+
+  /**
+   * Custom base URL overriding the URL of the environment, null to use the environment
+   */
+  protected URL baseUrl;
+
+  /**
+   * Registry receiving the metrics of every call
+   */
+  @Setter
+  protected MetricsRegistry metrics = MetricsRegistry.NOOP;
+
+  /**
+   * Policy deciding which failed calls are retried
+   */
+  @Setter
+  protected RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+  /**
+   * Rate limiter pacing the requests, null for no limit
+   */
+  @Setter
+  protected RateLimiter rateLimiter;
+
+  /**
+   * Circuit breakers failing fast while an endpoint group is degraded, null for none
+   */
+  @Setter
+  protected CircuitBreakerRegistry circuitBreakers;
+
+  /**
+   * Coalescing of identical concurrent GET calls, null to send every call
+   */
+  @Setter
+  protected SingleFlight singleFlight;
+
+  /**
+   * Timeouts and deadline of the calls
+   */
+  @Setter
+  protected TimeoutPolicy timeoutPolicy = TimeoutPolicy.DEFAULT;
+
+  /**
+   * Maximum number of calls of the tenant in flight, null for no limit
+   */
+  @Setter
+  protected ConcurrencyQuota quota;
+
+  /**
+   * Scheduler aborting the requests whose deadline ran out
+   */
+  private static final ScheduledThreadPoolExecutor DEADLINES = deadlineScheduler();
+
+  /**
+   * Header carrying the department (pickup place code) of a request
+   */
+  protected static final String DEPARTMENT_HEADER = "X-WEDO-PickupPlaceCode";
+
   /**
    * Processes the Gson response by converting the content of the response to the specified type using Gson.
+   * The content is decoded directly from the response stream.
    *
    * @param <K>           the type to convert the response content to
    * @param responseType the type representing the desired response type
@@ -76,21 +166,22 @@ public class RequesterBase {
    * @throws IOException if an error occurs while processing the response content
    */
   protected static <K> K processGsonResponse(Type responseType, HttpResponse response, Gson gson) throws IOException {
-    String content = EntityUtils.toString(response.getEntity());
-    log.info(String.format("Returned response from API: %s", content));
-    return gson.fromJson(content, responseType);
+    HttpEntity entity = response.getEntity();
+    log.info(String.format("Returned response from API data size: %d", entity != null ? entity.getContentLength() : 0));
+    return GsonUtils.fromJson(gson, entity, responseType);
   }
 
   /**
    * Retrieves the ResultHostPath object for the given API version and request.
+   * The custom base URL of the requester, when set, takes precedence over the API version.
    *
    * @param version the API version to use
    * @param request the request to be processed
    * @return the ResultHostPath object containing the resolved host URL and path
    */
-  protected static ResultHostPath getResultHostPath(API version, String request) {
+  protected ResultHostPath getResultHostPath(API version, String request) {
     // resolve url
-    URL host = API.resolveHostName(version);
+    URL host = API.resolveHostName(version, baseUrl);
 
     String path = (String.format("%s", request)).trim();
     path = path.replace("//", "/");
@@ -107,6 +198,27 @@ public class RequesterBase {
     public final String path;
   }
 
+  /**
+   * Returns the key identifying identical GET calls for request coalescing: the same environment, path, query parameters,
+   * user, customer, department, status check and deserialization.
+   *
+   * @param version          the API version
+   * @param request          the request path
+   * @param data             the query parameters
+   * @param shouldHaveStatus whether the response should have a status
+   * @param responseType     the type of the response
+   * @param gson             the Gson object used for deserialization
+   * @param customer         the customer name
+   * @param department       the department name
+   * @return the key
+   */
+  protected List<Object> getCoalescingKey(API version, String request, HashMap<Object, Object> data, Boolean shouldHaveStatus, Type responseType, Gson gson,
+                                          String customer, String department) {
+    ResultHostPath resultHostPath = getResultHostPath(version, request);
+    return Arrays.asList(resultHostPath.host.toString(), resultHostPath.path, data != null ? new HashMap<>(data) : null, apiUser, Boolean.TRUE.equals(shouldHaveStatus),
+        responseType, gson, customer, department);
+  }
+
   /**
    * Prepares a POST request to the specified URL and path.
    *
@@ -116,11 +228,22 @@ public class RequesterBase {
    * @throws IllegalArgumentException if url is null.
    */
   protected static HttpPost preparePostRequest(URL url, String path) {
-    final String urlStr = String.format("%s://%s%s", url.getProtocol(), url.getHost(), url.getPath() + path);
+    final String urlStr = assemblePostUrl(url, path);
     log.debug(String.format("Sending POST request to %s", urlStr));
     return new HttpPost(urlStr);
   }
 
+  /**
+   * Assembles a POST URL string using the given URL and path.
+   *
+   * @param url  The base URL to be used in the assembled URL.
+   * @param path The path to be appended to the base URL.
+   * @return The assembled POST URL as a String.
+   */
+  protected static String assemblePostUrl(URL url, String path) {
+    return String.format("%s://%s%s", url.getProtocol(), url.getAuthority(), url.getPath() + path);
+  }
+
   /**
    * Adds headers to the given HttpGet request.
    *
@@ -131,7 +254,7 @@ public class RequesterBase {
   protected void addHeaders(String department,HttpGet request) {
     if (department != null) {
       // todo V1: request.setHeader("X-InTime-Department", department);
-      request.setHeader("X-WEDO-PickupPlaceCode", department);
+      request.setHeader(DEPARTMENT_HEADER, department);
     }
     request.setHeader("Authorization", HttpBasicAuth.getBasicAuthenticationHeader(apiUser, apiKey));
   }
@@ -145,7 +268,7 @@ public class RequesterBase {
   protected void addHeaders(String department, HttpPost request) {
     if (department != null) {
       // todo V1: request.setHeader("X-InTime-Department", department);
-      request.setHeader("X-WEDO-PickupPlaceCode", department);
+      request.setHeader(DEPARTMENT_HEADER, department);
     }
     request.setHeader("Authorization", HttpBasicAuth.getBasicAuthenticationHeader(apiUser, apiKey));
   }
@@ -157,22 +280,303 @@ public class RequesterBase {
    * @param request  the HttpPost request to which the data will be added
    */
   protected static void addPostEntity(HashMap<Object, Object> data, HttpPost request) {
-    Gson gson = new Gson();
+    addPostEntity(data, request, false);
+  }
+
+  /**
+   * Adds a JSON representation of the given HashMap to the entity of an HttpPost request,
+   * gzip-compressing large bodies when requested.
+   *
+   * @param data     the HashMap containing the data to be added to the request entity
+   * @param request  the HttpPost request to which the data will be added
+   * @param gzip     whether large bodies should be gzip-compressed
+   */
+  protected static void addPostEntity(HashMap<Object, Object> data, HttpPost request, Boolean gzip) {
+    Gson gson = GsonUtils.getGsonDefault();
     String json = gson.toJson(data);
     log.debug(String.format("Sending JSON data: %s", json));
 
-    StringEntity requestEntity = new StringEntity(json, ContentType.APPLICATION_JSON);
-    request.setEntity(requestEntity);
+    request.setEntity(prepareJsonEntity(json, gzip));
     request.setHeader("Accept", "application/json");
     request.setHeader("Content-type", "application/json");
   }
 
   protected static <T> void addPostEntity(T t, HttpPost request) {
-    Gson gson = new Gson();
+    addPostEntity(t, request, false);
+  }
+
+  /**
+   * Adds a JSON representation of the given object to the entity of an HttpPost request,
+   * gzip-compressing large bodies when requested.
+   *
+   * @param <T>     the type of the request body
+   * @param t       the request body
+   * @param request the HttpPost request to which the data will be added
+   * @param gzip    whether large bodies should be gzip-compressed
+   */
+  protected static <T> void addPostEntity(T t, HttpPost request, Boolean gzip) {
+    Gson gson = GsonUtils.getGsonDefault();
     String json = gson.toJson(t);
     log.debug(String.format("Sending JSON data: %s", json));
+    request.setEntity(prepareJsonEntity(json, gzip));
+  }
+
+  /**
+   * Prepares a JSON request entity, gzip-compressed when gzip is enabled and the body is large enough.
+   * The compressed body is buffered so that the entity stays repeatable and the request can be retried.
+   *
+   * @param json the JSON content
+   * @param gzip whether gzip compression is enabled
+   * @return the request entity
+   */
+  private static HttpEntity prepareJsonEntity(String json, Boolean gzip) {
     StringEntity requestEntity = new StringEntity(json, ContentType.APPLICATION_JSON);
-    request.setEntity(requestEntity);
+    if (GzipUtils.shouldCompress(gzip, requestEntity.getContentLength())) {
+      ByteArrayEntity compressed = new ByteArrayEntity(GzipUtils.gzip(json.getBytes(StandardCharsets.UTF_8)), ContentType.APPLICATION_JSON);
+      compressed.setContentEncoding(GzipUtils.GZIP);
+      return compressed;
+    }
+    return requestEntity;
+  }
+
+  /**
+   * Executes the request, retrying network errors, 429 and 5xx responses as allowed by the retry policy.
+   * Every attempt waits for a token of the rate limiter first, and the limiter adapts its rate to the responses.
+   * Attempts are rejected with {@link CircuitBreakerOpenException} while the circuit breaker of the endpoint group is open.
+   * The timeouts of the endpoint are applied to every attempt; with a deadline, the request is aborted once it runs out,
+   * even while the caller is still reading the response body.
+   * Each attempt is recorded in the metrics registry once its response body has been consumed (or immediately when there is no body),
+   * so the latency covers the whole transfer and the response bytes are the bytes actually received.
+   * With a tenant quota, the call waits for a permit (at most the pool-acquire timeout) and holds it until the response body is consumed.
+   *
+   * @param engine     the transport to send the request over
+   * @param request    the request to execute
+   * @param type       the HTTP method of the request
+   * @param path       the request path relative to the base URL
+   * @return the response of the last attempt, with a metered entity
+   * @throws IOException if the last attempt fails, {@link DeadlineExceededException} if the deadline runs out
+   * @throws CircuitBreakerOpenException if the circuit breaker rejects an attempt
+   */
+  protected HttpResponse execute(Transport engine, HttpRequestBase request, RequestType type, String path) throws IOException {
+    final String pathTemplate = MetricsRegistry.pathTemplate(path);
+    final TimeoutPolicy timeouts = timeoutPolicy.forEndpoint(type, pathTemplate);
+    final long deadline = timeouts.getDeadline() != null ? System.nanoTime() + timeouts.getDeadline().toNanos() : Long.MAX_VALUE;
+    final ConcurrencyQuota quota = this.quota;
+    if (quota != null) {
+      quota.acquire(Math.min(timeouts.getPoolAcquireTimeout().toNanos(), deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+    final Future<?> abort = timeouts.getDeadline() != null
+        ? DEADLINES.schedule(request::abort, timeouts.getDeadline().toNanos(), TimeUnit.NANOSECONDS)
+        : null;
+    final Runnable done = () -> {
+      if (abort != null) {
+        abort.cancel(false);
+      }
+      if (quota != null) {
+        quota.release();
+      }
+    };
+    final HttpResponse response;
+    try {
+      response = executeAttempts(engine, request, type, path, pathTemplate, timeouts, deadline);
+    } catch (IOException | RuntimeException e) {
+      done.run();
+      throw e;
+    }
+    if (abort != null || quota != null) {
+      if (response.getEntity() == null) {
+        done.run();
+      } else {
+        response.setEntity(new MeteredEntity(response.getEntity(), responseBytes -> done.run()));
+      }
+    }
+    return response;
+  }
+
+  private HttpResponse executeAttempts(Transport engine, HttpRequestBase request, RequestType type, String path, String pathTemplate,
+                                       TimeoutPolicy timeouts, long deadline) throws IOException {
+    final RetryPolicy policy = retryPolicy.forEndpoint(type, pathTemplate);
+    final HttpEntity requestEntity = request instanceof HttpEntityEnclosingRequest ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+    final boolean repeatable = requestEntity == null || requestEntity.isRepeatable();
+    final TokenBucket bucket = rateLimiter != null ? rateLimiter.bucket(request.getURI().getAuthority(), department(request)) : null;
+    final CircuitBreaker breaker = circuitBreakers != null
+        ? circuitBreakers.breaker(request.getURI().getAuthority(), EndpointGroup.of(pathTemplate), metrics)
+        : null;
+    for (int attempt = 1; ; attempt++) {
+      if (requestEntity != null) {
+        ((HttpEntityEnclosingRequest) request).setEntity(requestEntity);
+      }
+      if (breaker != null) {
+        breaker.acquire();
+      }
+      if (bucket != null) {
+        try {
+          long wait = bucket.tryReserve(deadline - System.nanoTime());
+          if (wait < 0) {
+            throw new DeadlineExceededException(String.format("Deadline of %s %s exceeded waiting for the rate limiter", type, path), null);
+          }
+          sleep(wait);
+        } catch (InterruptedIOException e) {
+          if (breaker != null) {
+            breaker.release();
+          }
+          throw e;
+        }
+      }
+      request.setConfig(timeouts.toRequestConfig(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+      final long start = System.nanoTime();
+      final HttpResponse response;
+      try {
+        response = executeOnce(engine, request, type, pathTemplate);
+      } catch (RuntimeException e) {
+        if (breaker != null) {
+          breaker.onResult(true, System.nanoTime() - start);
+        }
+        throw e;
+      } catch (IOException e) {
+        if (breaker != null) {
+          breaker.onResult(true, System.nanoTime() - start);
+        }
+        if (System.nanoTime() - deadline >= 0) {
+          throw new DeadlineExceededException(String.format("Deadline of %s %s exceeded", type, path), e);
+        }
+        long delay = repeatable ? policy.retryDelay(type, e, attempt) : -1;
+        if (delay < 0 || TimeUnit.MILLISECONDS.toNanos(delay) >= deadline - System.nanoTime()) {
+          throw e;
+        }
+        log.warn(String.format("Attempt %d of %s %s failed (%s), retrying in %d ms", attempt, type, path, e, delay));
+        sleep(TimeUnit.MILLISECONDS.toNanos(delay));
+        continue;
+      }
+      final int statusCode = response.getStatusLine().getStatusCode();
+      final Header retryAfter = response.getFirstHeader("Retry-After");
+      if (breaker != null) {
+        breaker.onResult(statusCode >= 500, System.nanoTime() - start);
+      }
+      if (bucket != null) {
+        bucket.onResponse(statusCode, retryAfter != null ? retryAfter.getValue() : null);
+      }
+      long delay = repeatable ? policy.retryDelay(type, statusCode, retryAfter != null ? retryAfter.getValue() : null, attempt) : -1;
+      if (delay < 0 || TimeUnit.MILLISECONDS.toNanos(delay) >= deadline - System.nanoTime()) {
+        return response;
+      }
+      log.warn(String.format("Attempt %d of %s %s returned %d, retrying in %d ms", attempt, type, path, statusCode, delay));
+      releaseResponse(response);
+      sleep(TimeUnit.MILLISECONDS.toNanos(delay));
+    }
+  }
+
+  private static ScheduledThreadPoolExecutor deadlineScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "wedo-api-deadlines");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // most calls finish before their deadline, do not keep their cancelled tasks until then
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  private static String department(HttpRequestBase request) {
+    final Header department = request.getFirstHeader(DEPARTMENT_HEADER);
+    return department != null ? department.getValue() : null;
+  }
+
+  /**
+   * Executes the request once, recording its status, transferred bytes and latency in the metrics registry.
+   *
+   * @param engine       the transport to send the request over
+   * @param request      the request to execute
+   * @param type         the HTTP method of the request
+   * @param pathTemplate the path template of the request
+   * @return the response, with a metered entity
+   * @throws IOException if the request fails
+   */
+  private HttpResponse executeOnce(Transport engine, HttpRequestBase request, RequestType type, String pathTemplate) throws IOException {
+    if (metrics == MetricsRegistry.NOOP) {
+      return engine.execute(request);
+    }
+    final MetricsRegistry registry = metrics;
+    final LongSupplier requestBytes = meterRequestEntity(request);
+    final long start = System.nanoTime();
+    final HttpResponse response;
+    try {
+      response = engine.execute(request);
+    } catch (IOException | RuntimeException e) {
+      registry.record(type, pathTemplate, MetricsRegistry.NO_RESPONSE, requestBytes.getAsLong(), 0, System.nanoTime() - start);
+      throw e;
+    }
+    final int statusCode = response.getStatusLine().getStatusCode();
+    if (response.getEntity() == null) {
+      registry.record(type, pathTemplate, statusCode, requestBytes.getAsLong(), 0, System.nanoTime() - start);
+    } else {
+      response.setEntity(new MeteredEntity(response.getEntity(),
+          responseBytes -> registry.record(type, pathTemplate, statusCode, requestBytes.getAsLong(), responseBytes, System.nanoTime() - start)));
+    }
+    return response;
+  }
+
+  /**
+   * Waits before the next attempt.
+   *
+   * @param nanos the delay in nanoseconds
+   * @throws InterruptedIOException if the thread is interrupted while waiting
+   */
+  private static void sleep(long nanos) throws InterruptedIOException {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to send the request");
+    }
+  }
+
+  /**
+   * Returns the size of the request body, wrapping bodies of unknown length (gzip-compressed) to count them as they are written.
+   *
+   * @param request the request
+   * @return supplier of the request body size
+   */
+  private static LongSupplier meterRequestEntity(HttpRequestBase request) {
+    if (!(request instanceof HttpEntityEnclosingRequest) || ((HttpEntityEnclosingRequest) request).getEntity() == null) {
+      return () -> 0;
+    }
+    HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) request;
+    final long length = enclosingRequest.getEntity().getContentLength();
+    if (length >= 0) {
+      return () -> length;
+    }
+    final MeteredEntity entity = new MeteredEntity(enclosingRequest.getEntity(), null);
+    enclosingRequest.setEntity(entity);
+    return entity::getCount;
+  }
+
+  /**
+   * Asks the server for a gzip-compressed response when gzip is enabled.
+   *
+   * @param gzip    whether gzip compression is enabled
+   * @param request the request to which the header will be added
+   */
+  protected static void addAcceptEncoding(Boolean gzip, HttpRequestBase request) {
+    if (Boolean.TRUE.equals(gzip)) {
+      request.setHeader("Accept-Encoding", GzipUtils.GZIP);
+    }
+  }
+
+  /**
+   * Replaces a gzip-encoded response entity with one that decompresses the content as it is read.
+   *
+   * @param response the response to decode, may be null
+   * @return the same response
+   */
+  protected static HttpResponse decodeResponse(HttpResponse response) {
+    if (response != null && response.getEntity() != null) {
+      Header contentEncoding = response.getEntity().getContentEncoding();
+      if (contentEncoding != null && GzipUtils.isGzip(contentEncoding.getValue())) {
+        response.setEntity(new GzipDecompressingEntity(response.getEntity()));
+      }
+    }
+    return response;
   }
 
   /**
@@ -184,7 +588,7 @@ public class RequesterBase {
    * @return The assembled GET URL as a String.
    */
   protected String assembleGetUrl(URL url, String path, HashMap<Object, Object> data) {
-    String urlStr = String.format("%s://%s%s", url.getProtocol(), url.getHost(), url.getPath() + path);
+    String urlStr = String.format("%s://%s%s", url.getProtocol(), url.getAuthority(), url.getPath() + path);
     if (data != null && !data.isEmpty()) {
       urlStr += "?" + data.entrySet().stream()
           .map(p -> urlEncodeUTF8(p.getKey().toString()) + "=" + urlEncodeUTF8(p.getValue()))
@@ -260,24 +664,41 @@ public class RequesterBase {
     validator.validateResponseStatus(response, null, shouldHaveStatus);
   }
 
+  /**
+   * Releases the response back to the connection pool by consuming any remaining entity content.
+   *
+   * @param response the response to release, may be null
+   */
+  protected static void releaseResponse(HttpResponse response) {
+    if (response != null) {
+      EntityUtils.consumeQuietly(response.getEntity());
+    }
+  }
+
   /**
    * Prepares and returns an HttpClient with the specified API user and key for making API requests.
+   * When a shared Apache transport is set its pooled client is returned instead of building a new one.
+   *
+   * A new client uses the shared SSL context of {@link SslContexts}, so it resumes the TLS sessions of previous clients.
    *
    * @return a CloseableHttpClient configured with the specified API user and key
-   * @throws NoSuchAlgorithmException  if the SSL algorithm is not available
-   * @throws KeyStoreException         if there is an issue with the keystore
-   * @throws KeyManagementException    if there is an issue with the SSL key management
    */
-  protected CloseableHttpClient prepareHttpClient() throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+  protected CloseableHttpClient prepareHttpClient() {
+    if (transport instanceof HttpTransport) {
+      return ((HttpTransport) transport).getHttpClient();
+    }
     CredentialsProvider provider = new BasicCredentialsProvider();
     UsernamePasswordCredentials credentials = new UsernamePasswordCredentials(apiUser, apiKey);
     provider.setCredentials(AuthScope.ANY, credentials);
 
-    SSLContextBuilder builder = new SSLContextBuilder();
-    builder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
-    SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(
-        builder.build());
-    return HttpClients.custom().setSSLSocketFactory(sslsf).setDefaultCredentialsProvider(provider).build();
+    return HttpClients.custom()
+        .setSSLSocketFactory(SslContexts.socketFactory(Boolean.TRUE.equals(sslVerify)))
+        .setDefaultCredentialsProvider(provider)
+        .disableContentCompression()
+        // retries are decided by the retry policy of the requester
+        .disableAutomaticRetries()
+        .setDefaultRequestConfig(timeoutPolicy.toRequestConfig(Long.MAX_VALUE))
+        .build();
   }
 
 }
@@ -0,0 +1,173 @@
+package cz.wedo.api.services.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Package index persisted in an append-only file, so that packages created before a restart are not created again.
+ * Every change is appended as one line ({@code department TAB referenceNumber TAB orderNumber}, the order number missing
+ * for a removal) and written to the operating system before the call returns, which survives a crash of the application.
+ * With {@code sync} the file is also forced to the disk, which survives a crash of the machine at the cost of throughput.
+ * The file is compacted when it is opened.
+ */
+@Slf4j
+public class FilePackageIndex extends InMemoryPackageIndex implements Closeable {
+  private final Path file;
+
+  private final boolean sync;
+
+  private final FileChannel channel;
+
+  /**
+   * Opens the index without forcing the changes to the disk.
+   *
+   * @param file the index file, created if it does not exist
+   * @throws IOException if the file cannot be read or written
+   */
+  public FilePackageIndex(Path file) throws IOException {
+    this(file, false);
+  }
+
+  /**
+   * Opens the index.
+   *
+   * @param file the index file, created if it does not exist
+   * @param sync whether every change is forced to the disk
+   * @throws IOException if the file cannot be read or written
+   */
+  public FilePackageIndex(Path file, boolean sync) throws IOException {
+    this.file = file;
+    this.sync = sync;
+    compact(load());
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  @Override
+  public synchronized void put(String department, String referenceNumber, String orderNumber) {
+    append(department, referenceNumber, orderNumber);
+    super.put(department, referenceNumber, orderNumber);
+  }
+
+  @Override
+  public synchronized void remove(String department, String referenceNumber) {
+    append(department, referenceNumber, null);
+    super.remove(department, referenceNumber);
+  }
+
+  /**
+   * Closes the index file.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private void append(String department, String referenceNumber, String orderNumber) {
+    StringBuilder line = new StringBuilder();
+    line.append(escape(department != null ? department : "")).append('\t').append(escape(referenceNumber));
+    if (orderNumber != null) {
+      line.append('\t').append(escape(orderNumber));
+    }
+    ByteBuffer bytes = ByteBuffer.wrap(line.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+    try {
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      if (sync) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Cannot write package index %s", file), e);
+    }
+  }
+
+  /**
+   * Replays the file into memory.
+   *
+   * @return the current entries in the order they were last written
+   */
+  private Map<List<String>, String> load() throws IOException {
+    Map<List<String>, String> entries = new LinkedHashMap<>();
+    String content;
+    try {
+      content = Files.readString(file, StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    String[] lines = content.split("\n", -1);
+    // the last element follows the last line break, it is not empty only when the last write was torn by a crash
+    boolean compact = !lines[lines.length - 1].isEmpty();
+    for (int i = 0; i < lines.length - 1; i++) {
+      String[] fields = lines[i].split("\t", -1);
+      if (fields.length < 2 || fields.length > 3) {
+        log.warn(String.format("Skipping corrupt line %d of package index %s", i + 1, file));
+        compact = true;
+        continue;
+      }
+      List<String> key = List.of(unescape(fields[0]), unescape(fields[1]));
+      compact |= entries.remove(key) != null || fields.length == 2;
+      if (fields.length == 3) {
+        entries.put(key, unescape(fields[2]));
+      }
+    }
+    for (Map.Entry<List<String>, String> entry : entries.entrySet()) {
+      String department = entry.getKey().get(0);
+      super.put(department.isEmpty() ? null : department, entry.getKey().get(1), entry.getValue());
+    }
+    return compact ? entries : null;
+  }
+
+  /**
+   * Rewrites the file with the current entries only.
+   *
+   * @param entries the entries, null if the file has nothing to compact
+   */
+  private void compact(Map<List<String>, String> entries) throws IOException {
+    if (entries == null) {
+      return;
+    }
+    List<String> lines = new ArrayList<>(entries.size());
+    entries.forEach((key, orderNumber) -> lines.add(escape(key.get(0)) + '\t' + escape(key.get(1)) + '\t' + escape(orderNumber)));
+    Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.write(compacted, lines, StandardCharsets.UTF_8);
+    Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+  }
+
+  private static String unescape(String value) {
+    if (value.indexOf('\\') < 0) {
+      return value;
+    }
+    StringBuilder unescaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && i + 1 < value.length()) {
+        c = value.charAt(++i);
+        unescaped.append(c == 't' ? '\t' : c == 'n' ? '\n' : c == 'r' ? '\r' : c);
+      } else {
+        unescaped.append(c);
+      }
+    }
+    return unescaped.toString();
+  }
+}
@@ -0,0 +1,39 @@
+package cz.wedo.api.services.idempotency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Package index kept in memory, lost when the application stops.
+ */
+public class InMemoryPackageIndex implements PackageIndex {
+  private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+  @Override
+  public String get(String department, String referenceNumber) {
+    return entries.get(key(department, referenceNumber));
+  }
+
+  @Override
+  public void put(String department, String referenceNumber, String orderNumber) {
+    entries.put(key(department, referenceNumber), orderNumber);
+  }
+
+  @Override
+  public void remove(String department, String referenceNumber) {
+    entries.remove(key(department, referenceNumber));
+  }
+
+  /**
+   * Returns the number of indexed packages, pending ones included.
+   *
+   * @return the size of the index
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  private static String key(String department, String referenceNumber) {
+    return (department != null ? department : "") + '\u0000' + referenceNumber;
+  }
+}
@@ -0,0 +1,95 @@
+package cz.wedo.api.services.idempotency;
+
+import cz.wedo.api.models.responses.PkgList;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Index of the packages created by the client, keyed by department and reference number.
+ * It makes {@link cz.wedo.api.WeDoApi#createPackage} idempotent: a package whose reference number is indexed is answered
+ * from the index instead of being created again. Before a package is posted its key is marked {@link #PENDING};
+ * a pending key means the outcome of the creation is unknown (e.g. the request timed out) and the package is reconciled
+ * with the package list of the department before it is posted again.
+ * Reference numbers must therefore be unique within a department.
+ */
+public interface PackageIndex {
+  /**
+   * Value of a key whose package is being created or whose creation ended without a known outcome.
+   */
+  String PENDING = "";
+
+  /**
+   * Returns the order number of an indexed package.
+   *
+   * @param department      the department, null for none
+   * @param referenceNumber the reference number of the package
+   * @return the order number, {@link #PENDING} or null if the package is not indexed
+   */
+  String get(String department, String referenceNumber);
+
+  /**
+   * Indexes a package.
+   *
+   * @param department      the department, null for none
+   * @param referenceNumber the reference number of the package
+   * @param orderNumber     the order number, or {@link #PENDING}
+   */
+  void put(String department, String referenceNumber, String orderNumber);
+
+  /**
+   * Removes a package from the index, e.g. after its creation was rejected.
+   *
+   * @param department      the department, null for none
+   * @param referenceNumber the reference number of the package
+   */
+  void remove(String department, String referenceNumber);
+
+  /**
+   * Returns a view of the index whose keys are kept apart from the keys of other scopes, e.g. of other tenants sharing the index.
+   * The department of every key is prefixed with the scope.
+   *
+   * @param index the shared index
+   * @param scope the scope, e.g. the tenant
+   * @return the view of the scope
+   */
+  static PackageIndex scoped(PackageIndex index, String scope) {
+    return new PackageIndex() {
+      @Override
+      public String get(String department, String referenceNumber) {
+        return index.get(key(department), referenceNumber);
+      }
+
+      @Override
+      public void put(String department, String referenceNumber, String orderNumber) {
+        index.put(key(department), referenceNumber, orderNumber);
+      }
+
+      @Override
+      public void remove(String department, String referenceNumber) {
+        index.remove(key(department), referenceNumber);
+      }
+
+      private String key(String department) {
+        return scope + '\t' + (department != null ? department : "");
+      }
+    };
+  }
+
+  /**
+   * Finds the order number of a package by its reference number in a package list.
+   * The most recently changed package wins when the reference number was reused.
+   *
+   * @param packages        the package list
+   * @param referenceNumber the reference number
+   * @return the order number, null if the list does not contain the reference number
+   */
+  static String findOrderNumber(Stream<PkgList> packages, String referenceNumber) {
+    return packages
+        .filter(pkg -> referenceNumber.equals(pkg.getReferenceNumber()) && pkg.getOrderNumber() != null)
+        .max(Comparator.comparing(PkgList::getLastChange, Comparator.nullsFirst(Comparator.<Date>naturalOrder())))
+        .map(PkgList::getOrderNumber)
+        .orElse(null);
+  }
+}
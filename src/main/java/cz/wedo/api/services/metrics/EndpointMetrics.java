@@ -0,0 +1,131 @@
+package cz.wedo.api.services.metrics;
+
+import cz.wedo.api.definitions.RequestType;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, error counts, transferred bytes and latency histogram of one endpoint (HTTP method and path template).
+ */
+public class EndpointMetrics implements EndpointMetricsMXBean {
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * HTTP method of the endpoint.
+   */
+  @Getter
+  private final RequestType type;
+
+  /**
+   * Path template of the endpoint.
+   */
+  @Getter
+  private final String pathTemplate;
+
+  private final LongAdder calls = new LongAdder();
+  private final Map<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+  private final LongAdder requestBytes = new LongAdder();
+  private final LongAdder responseBytes = new LongAdder();
+
+  /**
+   * Latency histogram of the calls.
+   */
+  @Getter
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  public EndpointMetrics(RequestType type, String pathTemplate) {
+    this.type = type;
+    this.pathTemplate = pathTemplate;
+  }
+
+  /**
+   * Records one call.
+   *
+   * @param statusCode    the HTTP status, {@link MetricsRegistry#NO_RESPONSE} if there was no response
+   * @param requestBytes  the number of request body bytes sent
+   * @param responseBytes the number of response body bytes received
+   * @param durationNanos the duration of the call
+   */
+  public void record(int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+    calls.increment();
+    if (statusCode == MetricsRegistry.NO_RESPONSE || statusCode >= 300) {
+      errors.computeIfAbsent(statusCode, status -> new LongAdder()).increment();
+    }
+    this.requestBytes.add(Math.max(requestBytes, 0));
+    this.responseBytes.add(Math.max(responseBytes, 0));
+    latency.record(durationNanos);
+  }
+
+  @Override
+  public String getEndpoint() {
+    return String.format("%s %s", type, pathTemplate);
+  }
+
+  @Override
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  @Override
+  public Map<Integer, Long> getErrorsByStatus() {
+    Map<Integer, Long> result = new TreeMap<>();
+    errors.forEach((status, count) -> result.put(status, count.sum()));
+    return result;
+  }
+
+  @Override
+  public long getRequestBytes() {
+    return requestBytes.sum();
+  }
+
+  @Override
+  public long getResponseBytes() {
+    return responseBytes.sum();
+  }
+
+  @Override
+  public double getLatencyP50Millis() {
+    return latency.getValueAtQuantile(0.5) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLatencyP99Millis() {
+    return latency.getValueAtQuantile(0.99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLatencyP999Millis() {
+    return latency.getValueAtQuantile(0.999) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLatencyMaxMillis() {
+    return latency.getMax() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public void reset() {
+    calls.reset();
+    errors.clear();
+    requestBytes.reset();
+    responseBytes.reset();
+    latency.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s calls=%d errors=%s requestBytes=%d responseBytes=%d p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms",
+        getEndpoint(), getCalls(), getErrorsByStatus(), getRequestBytes(), getResponseBytes(),
+        getLatencyP50Millis(), getLatencyP99Millis(), getLatencyP999Millis(), getLatencyMaxMillis());
+  }
+}
@@ -0,0 +1,63 @@
+package cz.wedo.api.services.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of one endpoint.
+ */
+public interface EndpointMetricsMXBean {
+  /**
+   * @return the HTTP method and path template, e.g. {@code GET package/{id}}
+   */
+  String getEndpoint();
+
+  /**
+   * @return the number of calls
+   */
+  long getCalls();
+
+  /**
+   * @return the number of failed calls (status 300 and above, or no response)
+   */
+  long getErrors();
+
+  /**
+   * @return the number of failed calls by HTTP status, 0 for calls without a response
+   */
+  Map<Integer, Long> getErrorsByStatus();
+
+  /**
+   * @return the number of request body bytes sent
+   */
+  long getRequestBytes();
+
+  /**
+   * @return the number of response body bytes received
+   */
+  long getResponseBytes();
+
+  /**
+   * @return the median latency in milliseconds
+   */
+  double getLatencyP50Millis();
+
+  /**
+   * @return the 99th percentile latency in milliseconds
+   */
+  double getLatencyP99Millis();
+
+  /**
+   * @return the 99.9th percentile latency in milliseconds
+   */
+  double getLatencyP999Millis();
+
+  /**
+   * @return the maximum latency in milliseconds
+   */
+  double getLatencyMaxMillis();
+
+  /**
+   * Clears the counters and the latency histogram.
+   */
+  void reset();
+}
@@ -0,0 +1,84 @@
+package cz.wedo.api.services.metrics;
+
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.services.breaker.CircuitBreaker;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry keeping the metrics of every endpoint in memory.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+  private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+  private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+  @Override
+  public void record(RequestType type, String pathTemplate, int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+    EndpointMetrics metrics = endpoints.get(key(type, pathTemplate));
+    if (metrics == null) {
+      metrics = endpoints.computeIfAbsent(key(type, pathTemplate), key -> {
+        EndpointMetrics created = new EndpointMetrics(type, pathTemplate);
+        endpointCreated(created);
+        return created;
+      });
+    }
+    metrics.record(statusCode, requestBytes, responseBytes, durationNanos);
+  }
+
+  /**
+   * Returns the metrics of one endpoint.
+   *
+   * @param type         the HTTP method
+   * @param pathTemplate the path template, e.g. {@code package/{id}}
+   * @return the metrics, null if the endpoint was not called yet
+   */
+  public EndpointMetrics getEndpoint(RequestType type, String pathTemplate) {
+    return endpoints.get(key(type, pathTemplate));
+  }
+
+  /**
+   * Returns the metrics of all called endpoints sorted by endpoint.
+   *
+   * @return the metrics by endpoint (HTTP method and path template)
+   */
+  public Map<String, EndpointMetrics> getEndpoints() {
+    return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+  }
+
+  @Override
+  public void circuitBreakerCreated(CircuitBreaker breaker) {
+    circuitBreakers.put(breaker.getName(), breaker);
+  }
+
+  /**
+   * Returns the circuit breakers created so far sorted by name (environment and endpoint group).
+   *
+   * @return the breakers by name
+   */
+  public Map<String, CircuitBreaker> getCircuitBreakers() {
+    return Collections.unmodifiableMap(new TreeMap<>(circuitBreakers));
+  }
+
+  /**
+   * Clears the metrics of all endpoints.
+   */
+  public void reset() {
+    endpoints.values().forEach(EndpointMetrics::reset);
+  }
+
+  /**
+   * Called once when the first call of an endpoint is recorded.
+   *
+   * @param metrics the metrics of the new endpoint
+   */
+  protected void endpointCreated(EndpointMetrics metrics) {
+  }
+
+  private static String key(RequestType type, String pathTemplate) {
+    return String.format("%s %s", type, pathTemplate);
+  }
+}
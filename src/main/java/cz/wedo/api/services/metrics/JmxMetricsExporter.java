@@ -0,0 +1,93 @@
+package cz.wedo.api.services.metrics;
+
+import cz.wedo.api.services.breaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry which also registers the metrics of each endpoint as an MXBean in the platform MBean server,
+ * under {@code cz.wedo.api:type=Endpoint,method=GET,path="package/{id}"} (with an optional client name property),
+ * and every circuit breaker under {@code cz.wedo.api:type=CircuitBreaker,environment="api.wedo.cz",group=PACKAGE}.
+ * Closing the exporter unregisters the MXBeans.
+ */
+@Slf4j
+public class JmxMetricsExporter extends InMemoryMetricsRegistry implements AutoCloseable {
+  /**
+   * JMX domain of the MXBeans.
+   */
+  public static final String DOMAIN = "cz.wedo.api";
+
+  private final MBeanServer server;
+
+  private final String clientName;
+
+  private final Map<String, ObjectName> registered = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an exporter registering into the platform MBean server.
+   */
+  public JmxMetricsExporter() {
+    this(null);
+  }
+
+  /**
+   * Creates an exporter registering into the platform MBean server, distinguishing several clients by name.
+   *
+   * @param clientName the name added to the object names, may be null
+   */
+  public JmxMetricsExporter(String clientName) {
+    this.server = ManagementFactory.getPlatformMBeanServer();
+    this.clientName = clientName;
+  }
+
+  @Override
+  protected void endpointCreated(EndpointMetrics metrics) {
+    register(metrics.getEndpoint(), metrics, String.format("type=Endpoint,%smethod=%s,path=%s",
+        clientProperty(), metrics.getType(), ObjectName.quote(metrics.getPathTemplate())));
+  }
+
+  @Override
+  public void circuitBreakerCreated(CircuitBreaker breaker) {
+    super.circuitBreakerCreated(breaker);
+    register(breaker.getName(), breaker, String.format("type=CircuitBreaker,%senvironment=%s,group=%s",
+        clientProperty(), ObjectName.quote(breaker.getEnvironment()), breaker.getGroup()));
+  }
+
+  private String clientProperty() {
+    return clientName != null ? String.format("client=%s,", ObjectName.quote(clientName)) : "";
+  }
+
+  private void register(String key, Object mxBean, String properties) {
+    try {
+      ObjectName objectName = new ObjectName(String.format("%s:%s", DOMAIN, properties));
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+      server.registerMBean(mxBean, objectName);
+      registered.put(key, objectName);
+    } catch (JMException e) {
+      log.error(String.format("Cannot register metrics of %s: %s", key, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Unregisters all MXBeans of this exporter.
+   */
+  @Override
+  public void close() {
+    registered.values().forEach(objectName -> {
+      try {
+        server.unregisterMBean(objectName);
+      } catch (JMException e) {
+        log.error(String.format("Cannot unregister %s: %s", objectName, e.getMessage()), e);
+      }
+    });
+    registered.clear();
+  }
+}
@@ -0,0 +1,71 @@
+package cz.wedo.api.services.metrics;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Body subscriber of the JDK HTTP client counting the response bytes received by the wrapped subscriber.
+ *
+ * @param <T> the type of the response body
+ */
+public class MeteredBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+  private final HttpResponse.BodySubscriber<T> delegate;
+  private final AtomicLong count;
+
+  /**
+   * Wraps the subscriber.
+   *
+   * @param delegate the subscriber to meter
+   * @param count    the counter the received bytes are added to
+   */
+  public MeteredBodySubscriber(HttpResponse.BodySubscriber<T> delegate, AtomicLong count) {
+    this.delegate = delegate;
+    this.count = count;
+  }
+
+  /**
+   * Wraps every subscriber created by the handler.
+   *
+   * @param <T>     the type of the response body
+   * @param handler the body handler to meter
+   * @param count   the counter the received bytes are added to
+   * @return the metered body handler
+   */
+  public static <T> HttpResponse.BodyHandler<T> wrap(HttpResponse.BodyHandler<T> handler, AtomicLong count) {
+    return responseInfo -> new MeteredBodySubscriber<>(handler.apply(responseInfo), count);
+  }
+
+  @Override
+  public CompletionStage<T> getBody() {
+    return delegate.getBody();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    delegate.onSubscribe(subscription);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> items) {
+    long bytes = 0;
+    for (ByteBuffer item : items) {
+      bytes += item.remaining();
+    }
+    count.addAndGet(bytes);
+    delegate.onNext(items);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    delegate.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    delegate.onComplete();
+  }
+}
@@ -0,0 +1,104 @@
+package cz.wedo.api.services.metrics;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Entity wrapper counting the bytes read from or written by the wrapped entity.
+ * The completion callback receives the byte count once, when the content has been read to the end or closed,
+ * or when the entity has been written out.
+ */
+public class MeteredEntity extends HttpEntityWrapper {
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicBoolean completed = new AtomicBoolean();
+  private final LongConsumer onComplete;
+
+  /**
+   * Wraps the entity.
+   *
+   * @param wrappedEntity the entity to meter
+   * @param onComplete    callback receiving the byte count, may be null
+   */
+  public MeteredEntity(HttpEntity wrappedEntity, LongConsumer onComplete) {
+    super(wrappedEntity);
+    this.onComplete = onComplete;
+  }
+
+  /**
+   * Returns the number of bytes transferred so far.
+   *
+   * @return the byte count
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    return new FilterInputStream(super.getContent()) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+          complete();
+        } else {
+          count.incrementAndGet();
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n < 0) {
+          complete();
+        } else {
+          count.addAndGet(n);
+        }
+        return n;
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          complete();
+        }
+      }
+    };
+  }
+
+  @Override
+  public void writeTo(OutputStream outStream) throws IOException {
+    super.writeTo(new FilterOutputStream(outStream) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        count.incrementAndGet();
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count.addAndGet(len);
+      }
+    });
+    complete();
+  }
+
+  private void complete() {
+    if (onComplete != null && completed.compareAndSet(false, true)) {
+      onComplete.accept(count.get());
+    }
+  }
+}
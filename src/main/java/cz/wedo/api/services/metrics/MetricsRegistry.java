@@ -0,0 +1,68 @@
+package cz.wedo.api.services.metrics;
+
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.services.breaker.CircuitBreaker;
+
+/**
+ * Receives one measurement per API call.
+ * Implementations must be thread-safe and cheap, they are called on the request path.
+ * {@link InMemoryMetricsRegistry} keeps the measurements in memory, {@link JmxMetricsExporter} also exposes them over JMX;
+ * other monitoring systems can be plugged in by implementing this interface.
+ */
+@FunctionalInterface
+public interface MetricsRegistry {
+  /**
+   * Registry discarding all measurements.
+   */
+  MetricsRegistry NOOP = (type, pathTemplate, statusCode, requestBytes, responseBytes, durationNanos) -> {
+  };
+
+  /**
+   * Status code recorded for calls which failed without a response (I/O error, timeout).
+   */
+  int NO_RESPONSE = 0;
+
+  /**
+   * Records one API call.
+   *
+   * @param type          the HTTP method of the call
+   * @param pathTemplate  the request path with the identifiers replaced, see {@link #pathTemplate(String)}
+   * @param statusCode    the HTTP status of the response, {@link #NO_RESPONSE} if there was none
+   * @param requestBytes  the number of request body bytes sent
+   * @param responseBytes the number of response body bytes received (compressed size for gzip responses)
+   * @param durationNanos the time from sending the request until the response body was consumed
+   */
+  void record(RequestType type, String pathTemplate, int statusCode, long requestBytes, long responseBytes, long durationNanos);
+
+  /**
+   * Called once when a circuit breaker is created, so that its state can be observed.
+   *
+   * @param breaker the new circuit breaker
+   */
+  default void circuitBreakerCreated(CircuitBreaker breaker) {
+  }
+
+  /**
+   * Replaces the identifiers in a request path (every segment containing a digit, e.g. order and batch numbers)
+   * with {@code {id}}, so that calls of the same endpoint are aggregated together.
+   * For example {@code package/46F00000012/labels.pdf} becomes {@code package/{id}/labels.pdf}.
+   *
+   * @param path the request path relative to the API base URL
+   * @return the path template
+   */
+  static String pathTemplate(String path) {
+    if (path == null) {
+      return "";
+    }
+    int query = path.indexOf('?');
+    String[] segments = (query >= 0 ? path.substring(0, query) : path).split("/");
+    StringBuilder template = new StringBuilder(path.length());
+    for (String segment : segments) {
+      if (template.length() > 0) {
+        template.append('/');
+      }
+      template.append(segment.chars().anyMatch(Character::isDigit) ? "{id}" : segment);
+    }
+    return template.toString();
+  }
+}
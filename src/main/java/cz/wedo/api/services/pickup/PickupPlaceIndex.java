@@ -0,0 +1,335 @@
+package cz.wedo.api.services.pickup;
+
+import cz.wedo.api.models.responses.PickupPlaceItemResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable search index over pickup places, for autocompletion.
+ * Places are looked up by code in constant time and searched by word prefixes of their name, city, postal code and code,
+ * compared without case and diacritics ("zdar" finds "Žďár nad Sázavou"). Every word of the query must prefix a word of the place.
+ * <p>
+ * {@link #update(Collection)} returns a new index sharing the unchanged parts of this one: only the words of added, changed
+ * and removed places are written, so refreshing a long list that changed little is cheap, and readers of this index are not affected.
+ */
+public final class PickupPlaceIndex {
+  /**
+   * Index without places.
+   */
+  public static final PickupPlaceIndex EMPTY = new PickupPlaceIndex(Collections.emptyMap(), Node.EMPTY);
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final Map<String, Entry> entries;
+
+  private final Node root;
+
+  private PickupPlaceIndex(Map<String, Entry> entries, Node root) {
+    this.entries = entries;
+    this.root = root;
+  }
+
+  /**
+   * Builds an index of the given places. Places without code are skipped, of places with the same code the last one is kept.
+   *
+   * @param places the pickup places
+   * @return the index
+   */
+  public static PickupPlaceIndex of(Collection<PickupPlaceItemResponse> places) {
+    return EMPTY.update(places);
+  }
+
+  /**
+   * Returns the index of the given places, reusing this index for the places which did not change.
+   *
+   * @param places the current pickup places
+   * @return the index of the current places
+   */
+  public PickupPlaceIndex update(Collection<PickupPlaceItemResponse> places) {
+    Map<String, PickupPlaceItemResponse> current = new LinkedHashMap<>();
+    for (PickupPlaceItemResponse place : places) {
+      if (place != null && place.getCode() != null) {
+        current.put(place.getCode(), place);
+      }
+    }
+    Node next = root;
+    for (Entry entry : entries.values()) {
+      if (!current.containsKey(entry.place.getCode())) {
+        next = next.without(entry);
+      }
+    }
+    Map<String, Entry> nextEntries = new LinkedHashMap<>();
+    for (PickupPlaceItemResponse place : current.values()) {
+      Entry previous = entries.get(place.getCode());
+      Entry entry;
+      if (previous != null && previous.place.equals(place)) {
+        entry = new Entry(place, previous.words);
+      } else {
+        entry = new Entry(place, words(place));
+        if (previous != null) {
+          next = next.without(previous);
+        }
+        next = next.with(entry);
+      }
+      nextEntries.put(place.getCode(), entry);
+    }
+    return new PickupPlaceIndex(Collections.unmodifiableMap(nextEntries), next);
+  }
+
+  /**
+   * Returns the place with the given code.
+   *
+   * @param code the code of the place
+   * @return the place, null if there is none
+   */
+  public PickupPlaceItemResponse getByCode(String code) {
+    Entry entry = code != null ? entries.get(code) : null;
+    return entry != null ? entry.place : null;
+  }
+
+  /**
+   * Searches places by word prefixes, see {@link #search(String, String, Boolean, int)}.
+   *
+   * @param query the words typed by the user
+   * @param limit the maximum number of places returned
+   * @return the matching places
+   */
+  public List<PickupPlaceItemResponse> search(String query, int limit) {
+    return search(query, null, null, limit);
+  }
+
+  /**
+   * Searches places whose words start with every word of the query, optionally of the given type and pickup regime.
+   * Places are returned in the alphabetical order of their words matching the most specific word of the query;
+   * an empty query returns the places in the order of the list.
+   *
+   * @param query         the words typed by the user, null or empty for all places
+   * @param type          the type of the places, null for any
+   * @param regularPickup whether the places have a regular pickup, null for any
+   * @param limit         the maximum number of places returned
+   * @return the matching places
+   */
+  public List<PickupPlaceItemResponse> search(String query, String type, Boolean regularPickup, int limit) {
+    List<String> terms = query != null ? split(query) : Collections.emptyList();
+    List<PickupPlaceItemResponse> result = new ArrayList<>();
+    if (terms.isEmpty()) {
+      for (Entry entry : entries.values()) {
+        if (result.size() >= limit) {
+          break;
+        }
+        if (entry.matches(terms, type, regularPickup)) {
+          result.add(entry.place);
+        }
+      }
+      return result;
+    }
+
+    String longest = terms.stream().max((a, b) -> Integer.compare(a.length(), b.length())).orElseThrow();
+    Node node = root.find(longest);
+    if (node == null) {
+      return result;
+    }
+    Set<String> seen = new HashSet<>();
+    Deque<Node> pending = new ArrayDeque<>();
+    pending.push(node);
+    while (!pending.isEmpty() && result.size() < limit) {
+      Node next = pending.pop();
+      for (String code : next.codes) {
+        Entry entry = entries.get(code);
+        if (seen.add(code) && entry != null && entry.matches(terms, type, regularPickup)) {
+          result.add(entry.place);
+          if (result.size() >= limit) {
+            break;
+          }
+        }
+      }
+      List<Node> children = new ArrayList<>(next.children.values());
+      for (int i = children.size() - 1; i >= 0; i--) {
+        pending.push(children.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the indexed places in the order of the list.
+   *
+   * @return the places
+   */
+  public List<PickupPlaceItemResponse> getPlaces() {
+    List<PickupPlaceItemResponse> places = new ArrayList<>(entries.size());
+    entries.values().forEach(entry -> places.add(entry.place));
+    return places;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Folds the text to lower case without diacritics.
+   *
+   * @param text the text
+   * @return the normalized text
+   */
+  static String normalize(String text) {
+    return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+
+  private static List<String> split(String text) {
+    List<String> words = new ArrayList<>();
+    for (String word : SEPARATORS.split(normalize(text))) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  private static Set<String> words(PickupPlaceItemResponse place) {
+    Set<String> words = new LinkedHashSet<>(split(place.getCode()));
+    if (place.getName() != null) {
+      words.addAll(split(place.getName()));
+    }
+    if (place.getAddress() != null) {
+      if (place.getAddress().getCity() != null) {
+        words.addAll(split(place.getAddress().getCity()));
+      }
+      if (place.getAddress().getPostalCode() != null) {
+        // "616 00" is typed both with and without the space
+        List<String> parts = split(place.getAddress().getPostalCode());
+        words.addAll(parts);
+        words.add(String.join("", parts));
+      }
+    }
+    return Collections.unmodifiableSet(words);
+  }
+
+  /**
+   * Indexed place with its normalized words.
+   */
+  private static final class Entry {
+    private final PickupPlaceItemResponse place;
+    private final Set<String> words;
+
+    private Entry(PickupPlaceItemResponse place, Set<String> words) {
+      this.place = place;
+      this.words = words;
+    }
+
+    private boolean matches(List<String> terms, String type, Boolean regularPickup) {
+      if (type != null && !type.equals(place.getType())) {
+        return false;
+      }
+      if (regularPickup != null && regularPickup != place.isRegularPickup()) {
+        return false;
+      }
+      for (String term : terms) {
+        if (words.stream().noneMatch(word -> word.startsWith(term))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Immutable node of the prefix tree; changes copy the nodes on the path of the changed word only.
+   */
+  private static final class Node {
+    private static final Node EMPTY = new Node(Collections.emptyMap(), Collections.emptySet());
+
+    private final Map<Character, Node> children;
+    private final Set<String> codes;
+
+    private Node(Map<Character, Node> children, Set<String> codes) {
+      this.children = children;
+      this.codes = codes;
+    }
+
+    private Node with(Entry entry) {
+      Node node = this;
+      for (String word : entry.words) {
+        node = node.with(word, 0, entry.place.getCode());
+      }
+      return node;
+    }
+
+    private Node without(Entry entry) {
+      Node node = this;
+      for (String word : entry.words) {
+        node = node.without(word, 0, entry.place.getCode());
+      }
+      return node;
+    }
+
+    private Node with(String word, int depth, String code) {
+      if (depth == word.length()) {
+        if (codes.contains(code)) {
+          return this;
+        }
+        Set<String> next = new LinkedHashSet<>(codes);
+        next.add(code);
+        return new Node(children, Collections.unmodifiableSet(next));
+      }
+      Node child = children.getOrDefault(word.charAt(depth), EMPTY);
+      Node updated = child.with(word, depth + 1, code);
+      return updated == child ? this : withChild(word.charAt(depth), updated);
+    }
+
+    private Node without(String word, int depth, String code) {
+      if (depth == word.length()) {
+        if (!codes.contains(code)) {
+          return this;
+        }
+        Set<String> next = new LinkedHashSet<>(codes);
+        next.remove(code);
+        return new Node(children, Collections.unmodifiableSet(next)).orEmpty();
+      }
+      Node child = children.get(word.charAt(depth));
+      if (child == null) {
+        return this;
+      }
+      Node updated = child.without(word, depth + 1, code);
+      return updated == child ? this : withChild(word.charAt(depth), updated).orEmpty();
+    }
+
+    private Node withChild(char key, Node child) {
+      TreeMap<Character, Node> next = new TreeMap<>(children);
+      if (child == EMPTY) {
+        next.remove(key);
+      } else {
+        next.put(key, child);
+      }
+      return new Node(Collections.unmodifiableMap(next), codes);
+    }
+
+    private Node orEmpty() {
+      return children.isEmpty() && codes.isEmpty() ? EMPTY : this;
+    }
+
+    private Node find(String prefix) {
+      Node node = this;
+      for (int i = 0; i < prefix.length() && node != null; i++) {
+        node = node.children.get(prefix.charAt(i));
+      }
+      return node;
+    }
+  }
+}
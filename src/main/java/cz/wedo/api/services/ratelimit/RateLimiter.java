@@ -0,0 +1,150 @@
+package cz.wedo.api.services.ratelimit;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side rate limiter keeping one {@link TokenBucket} per environment (host of the API), and optionally per department
+ * ({@code X-WEDO-PickupPlaceCode}). Share one instance between all clients and workers using the same customer account,
+ * so that their requests are paced together instead of being rejected with 429.
+ */
+@Getter
+public class RateLimiter {
+  /**
+   * Configured rate, requests per second.
+   */
+  private final double rate;
+
+  /**
+   * Number of requests which can be sent at once after an idle period.
+   */
+  private final int burst;
+
+  /**
+   * Lowest rate the limiter slows down to on 429 responses, requests per second.
+   */
+  private final double minRate;
+
+  /**
+   * Whether every department has its own bucket.
+   */
+  private final boolean perDepartment;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+  @Getter(AccessLevel.NONE)
+  private final LongSupplier nanoTime;
+
+  private RateLimiter(Builder builder, LongSupplier nanoTime) {
+    this.rate = builder.rate;
+    this.burst = builder.burst;
+    this.minRate = builder.minRate;
+    this.perDepartment = builder.perDepartment;
+    this.nanoTime = nanoTime;
+  }
+
+  private RateLimiter(RateLimiter settings) {
+    this.rate = settings.rate;
+    this.burst = settings.burst;
+    this.minRate = settings.minRate;
+    this.perDepartment = settings.perDepartment;
+    this.nanoTime = settings.nanoTime;
+  }
+
+  /**
+   * Returns a limiter with the settings of this one and buckets of its own, e.g. for another customer account.
+   *
+   * @return the new limiter
+   */
+  public RateLimiter copy() {
+    return new RateLimiter(this);
+  }
+
+  /**
+   * Returns the bucket of an environment and department, creating it on first use.
+   *
+   * @param environment the environment, the authority (host and port) of the API URL
+   * @param department  the department, may be null
+   * @return the bucket
+   */
+  public TokenBucket bucket(String environment, String department) {
+    String key = perDepartment && department != null ? environment + " " + department : environment;
+    TokenBucket bucket = buckets.get(key);
+    return bucket != null ? bucket : buckets.computeIfAbsent(key, k -> new TokenBucket(rate, minRate, burst, nanoTime));
+  }
+
+  /**
+   * Returns the buckets created so far sorted by key (environment, followed by the department when limited per department).
+   *
+   * @return the buckets by key
+   */
+  public Map<String, TokenBucket> getBuckets() {
+    return Collections.unmodifiableMap(new TreeMap<>(buckets));
+  }
+
+  /**
+   * The Builder class is used to construct a RateLimiter.
+   */
+  public static class Builder {
+    private double rate = 10;
+    private int burst = 1;
+    private double minRate = 0.5;
+    private boolean perDepartment = false;
+
+    /**
+     * Sets the rate in requests per second, 10 by default.
+     */
+    public Builder setRate(double rate) {
+      if (rate <= 0) {
+        throw new IllegalArgumentException(String.format("Invalid rate: %s", rate));
+      }
+      this.rate = rate;
+      return this;
+    }
+
+    /**
+     * Sets the number of requests which can be sent at once after an idle period, 1 by default.
+     */
+    public Builder setBurst(int burst) {
+      if (burst < 1) {
+        throw new IllegalArgumentException(String.format("Invalid burst: %d", burst));
+      }
+      this.burst = burst;
+      return this;
+    }
+
+    /**
+     * Sets the lowest rate the limiter slows down to on 429 responses, 0.5 requests per second by default.
+     */
+    public Builder setMinRate(double minRate) {
+      if (minRate <= 0) {
+        throw new IllegalArgumentException(String.format("Invalid minimum rate: %s", minRate));
+      }
+      this.minRate = minRate;
+      return this;
+    }
+
+    /**
+     * Sets whether every department has its own bucket, by default all departments share the bucket of the environment.
+     */
+    public Builder setPerDepartment(boolean perDepartment) {
+      this.perDepartment = perDepartment;
+      return this;
+    }
+
+    public RateLimiter build() {
+      return new RateLimiter(this, System::nanoTime);
+    }
+
+    RateLimiter build(LongSupplier nanoTime) {
+      return new RateLimiter(this, nanoTime);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package cz.wedo.api.services.ratelimit;
+
+import cz.wedo.api.services.retry.RetryPolicy;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket pacing the requests sent to one environment (and department).
+ * Tokens refill at the current rate up to the burst size; a request takes one token, and when none is left it reserves
+ * the next one and waits for it, so concurrent callers are queued and released one by one at the current rate.
+ * The rate adapts to the server: it is halved on every 429 response (not below the minimum rate) and the bucket is paused
+ * for the Retry-After delay, then it grows back to the configured rate by a fiftieth of it per successful response.
+ */
+public class TokenBucket {
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final double INCREASE_FRACTION = 0.02;
+
+  private final double maxRate;
+
+  private final double minRate;
+
+  private final double burst;
+
+  private final LongSupplier nanoTime;
+
+  private double rate;
+
+  private double tokens;
+
+  /**
+   * Time the tokens were last refilled at, in the future while the bucket is paused.
+   */
+  private long refilledAt;
+
+  TokenBucket(double maxRate, double minRate, double burst, LongSupplier nanoTime) {
+    this.maxRate = maxRate;
+    this.minRate = Math.min(minRate, maxRate);
+    this.burst = burst;
+    this.nanoTime = nanoTime;
+    this.rate = maxRate;
+    this.tokens = burst;
+    this.refilledAt = nanoTime.getAsLong();
+  }
+
+  /**
+   * Takes a token, reserving the next one when the bucket is empty.
+   *
+   * @return the time to wait before sending the request, in nanoseconds
+   */
+  public synchronized long reserve() {
+    final long now = nanoTime.getAsLong();
+    refill(now);
+    tokens -= 1;
+    return waitFor(now, tokens + 1);
+  }
+
+  /**
+   * Takes a token like {@link #reserve()} unless the wait for it is not shorter than the limit, in which case no token
+   * is taken, so a caller giving up does not delay the callers after it.
+   *
+   * @param maxWaitNanos the longest acceptable wait, in nanoseconds
+   * @return the time to wait before sending the request, in nanoseconds, or -1 if no token was taken
+   */
+  public synchronized long tryReserve(long maxWaitNanos) {
+    final long now = nanoTime.getAsLong();
+    refill(now);
+    final long wait = waitFor(now, tokens);
+    if (wait >= maxWaitNanos) {
+      return -1;
+    }
+    tokens -= 1;
+    return wait;
+  }
+
+  /**
+   * Adapts the rate to a response: slows down and pauses on 429, speeds up again on success.
+   *
+   * @param statusCode the HTTP status of the response
+   * @param retryAfter the value of the Retry-After header, may be null
+   */
+  public synchronized void onResponse(int statusCode, String retryAfter) {
+    if (statusCode == TOO_MANY_REQUESTS) {
+      final long now = nanoTime.getAsLong();
+      refill(now);
+      rate = Math.max(minRate, rate * DECREASE_FACTOR);
+      // drop the burst so that the queued requests are paced at the lower rate
+      tokens = Math.min(tokens, 0);
+      refilledAt = Math.max(refilledAt, now + TimeUnit.MILLISECONDS.toNanos(RetryPolicy.parseRetryAfter(retryAfter, Clock.systemUTC())));
+    } else if (statusCode < 500 && rate < maxRate) {
+      refill(nanoTime.getAsLong());
+      rate = Math.min(maxRate, rate + maxRate * INCREASE_FRACTION);
+    }
+  }
+
+  /**
+   * Returns the current rate.
+   *
+   * @return the requests per second currently allowed
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  /**
+   * Returns the tokens currently available, negative when requests are waiting for reserved tokens.
+   *
+   * @return the available tokens
+   */
+  public synchronized double getAvailableTokens() {
+    refill(nanoTime.getAsLong());
+    return tokens;
+  }
+
+  private long waitFor(long now, double available) {
+    final long start = Math.max(now, refilledAt);
+    return available >= 1 ? start - now : start - now + (long) ((1 - available) / rate * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  private void refill(long now) {
+    if (now > refilledAt) {
+      tokens = Math.min(burst, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+      refilledAt = now;
+    }
+  }
+}
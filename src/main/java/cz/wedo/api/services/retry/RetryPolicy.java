@@ -0,0 +1,306 @@
+package cz.wedo.api.services.retry;
+
+import cz.wedo.api.definitions.RequestType;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed API call is retried.
+ * Network errors, 429 (Too Many Requests) and 5xx responses are retried with exponential backoff and jitter,
+ * waiting at least as long as the server asks for in the {@code Retry-After} header.
+ * GET and DELETE are retried by default. POST and PUT are only retried when the server provably did not process them
+ * (the connection could not be established, or the request was rejected with 429); POST is also retried on 503 when enabled by
+ * {@link Builder#setRetryPostUnavailable(boolean)}, or on any retryable failure when enabled by {@link Builder#setRetryPost(boolean)}.
+ * Policies are immutable; per-endpoint overrides are looked up by {@link #forEndpoint(RequestType, String)}.
+ */
+@Getter
+public class RetryPolicy {
+  /**
+   * Policy which never retries.
+   */
+  public static final RetryPolicy NONE = new Builder().setMaxAttempts(1).build();
+
+  /**
+   * Default policy: 3 attempts, backoff from 200 ms up to 5 s with full jitter, Retry-After honored up to 30 s.
+   */
+  public static final RetryPolicy DEFAULT = new Builder().build();
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final int SERVICE_UNAVAILABLE = 503;
+
+  /**
+   * Maximum number of attempts including the first one.
+   */
+  private final int maxAttempts;
+
+  /**
+   * Backoff before the first retry.
+   */
+  private final Duration initialBackoff;
+
+  /**
+   * Upper bound of the backoff.
+   */
+  private final Duration maxBackoff;
+
+  /**
+   * Factor the backoff grows by with each attempt.
+   */
+  private final double multiplier;
+
+  /**
+   * Randomized fraction of the backoff, 0 for none, 1 for full jitter.
+   */
+  private final double jitter;
+
+  /**
+   * Longest Retry-After delay honored; the response is returned without retrying when the server asks for longer.
+   */
+  private final Duration maxRetryAfter;
+
+  /**
+   * Whether POST requests are retried on any retryable failure.
+   */
+  private final boolean retryPost;
+
+  /**
+   * Whether POST requests are retried on 503 responses, which a proxy may return after the request was processed.
+   */
+  private final boolean retryPostUnavailable;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, RetryPolicy> endpointPolicies;
+
+  private RetryPolicy(Builder builder) {
+    this.maxAttempts = builder.maxAttempts;
+    this.initialBackoff = builder.initialBackoff;
+    this.maxBackoff = builder.maxBackoff;
+    this.multiplier = builder.multiplier;
+    this.jitter = builder.jitter;
+    this.maxRetryAfter = builder.maxRetryAfter;
+    this.retryPost = builder.retryPost;
+    this.retryPostUnavailable = builder.retryPostUnavailable;
+    this.endpointPolicies = Collections.unmodifiableMap(new HashMap<>(builder.endpointPolicies));
+  }
+
+  /**
+   * Returns the policy for the given endpoint, the override if one was configured, otherwise this policy.
+   *
+   * @param type         the HTTP method
+   * @param pathTemplate the path template, e.g. {@code package/{id}}
+   * @return the policy to apply
+   */
+  public RetryPolicy forEndpoint(RequestType type, String pathTemplate) {
+    if (endpointPolicies.isEmpty()) {
+      return this;
+    }
+    return endpointPolicies.getOrDefault(key(type, pathTemplate), this);
+  }
+
+  /**
+   * Decides whether a call which failed with a network error is retried.
+   *
+   * @param type    the HTTP method
+   * @param e       the network error
+   * @param attempt the number of the failed attempt, starting at 1
+   * @return the delay before the next attempt in milliseconds, -1 if the call is not retried
+   */
+  public long retryDelay(RequestType type, IOException e, int attempt) {
+    if (attempt >= maxAttempts || e instanceof UnknownHostException || e instanceof SSLException) {
+      return -1;
+    }
+    // a refused connection never reached the server, so even a POST is safe to repeat
+    if (!isRetryable(type) && !(e instanceof ConnectException)) {
+      return -1;
+    }
+    return backoff(attempt);
+  }
+
+  /**
+   * Decides whether a call answered with the given status is retried.
+   *
+   * @param type       the HTTP method
+   * @param statusCode the HTTP status of the response
+   * @param retryAfter the value of the Retry-After header, may be null
+   * @param attempt    the number of the failed attempt, starting at 1
+   * @return the delay before the next attempt in milliseconds, -1 if the call is not retried
+   */
+  public long retryDelay(RequestType type, int statusCode, String retryAfter, int attempt) {
+    if (attempt >= maxAttempts || (statusCode != TOO_MANY_REQUESTS && statusCode < 500)) {
+      return -1;
+    }
+    // 429 means the request was rejected before being processed, a 503 may come from a proxy after it was processed
+    if (!isRetryable(type) && statusCode != TOO_MANY_REQUESTS
+        && !(statusCode == SERVICE_UNAVAILABLE && type == RequestType.POST && retryPostUnavailable)) {
+      return -1;
+    }
+    long retryAfterMillis = parseRetryAfter(retryAfter, Clock.systemUTC());
+    if (retryAfterMillis > maxRetryAfter.toMillis()) {
+      return -1;
+    }
+    return Math.max(backoff(attempt), retryAfterMillis);
+  }
+
+  /**
+   * Returns the backoff before the next attempt: exponential growth capped by the maximum, with the jitter fraction randomized.
+   *
+   * @param attempt the number of the failed attempt, starting at 1
+   * @return the backoff in milliseconds
+   */
+  public long backoff(int attempt) {
+    double exponential = initialBackoff.toMillis() * Math.pow(multiplier, attempt - 1);
+    double capped = Math.min(exponential, maxBackoff.toMillis());
+    return Math.round(capped * (1 - jitter) + capped * jitter * ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * Returns whether the HTTP method is retried on any retryable failure.
+   *
+   * @param type the HTTP method
+   * @return true for GET and DELETE, and for POST when enabled
+   */
+  public boolean isRetryable(RequestType type) {
+    return type == RequestType.GET || type == RequestType.DELETE || type == RequestType.POST && retryPost;
+  }
+
+  /**
+   * Returns a builder initialized with the settings and endpoint overrides of this policy.
+   *
+   * @return the builder
+   */
+  public Builder toBuilder() {
+    Builder builder = new Builder()
+        .setMaxAttempts(maxAttempts)
+        .setInitialBackoff(initialBackoff)
+        .setMaxBackoff(maxBackoff)
+        .setMultiplier(multiplier)
+        .setJitter(jitter)
+        .setMaxRetryAfter(maxRetryAfter)
+        .setRetryPost(retryPost)
+        .setRetryPostUnavailable(retryPostUnavailable);
+    builder.endpointPolicies.putAll(endpointPolicies);
+    return builder;
+  }
+
+  /**
+   * Parses a Retry-After header value, given either in seconds or as an HTTP date.
+   *
+   * @param retryAfter the header value, may be null
+   * @param clock      the clock to compare HTTP dates with
+   * @return the delay in milliseconds, 0 if the header is missing or invalid
+   */
+  public static long parseRetryAfter(String retryAfter, Clock clock) {
+    if (retryAfter == null || retryAfter.isBlank()) {
+      return 0;
+    }
+    try {
+      return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+    } catch (NumberFormatException e) {
+      try {
+        ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        return Math.max(0, Duration.between(clock.instant(), date.toInstant()).toMillis());
+      } catch (DateTimeParseException ex) {
+        return 0;
+      }
+    }
+  }
+
+  private static String key(RequestType type, String pathTemplate) {
+    return String.format("%s %s", type, pathTemplate);
+  }
+
+  /**
+   * The Builder class is used to construct a RetryPolicy.
+   */
+  public static class Builder {
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(5);
+    private double multiplier = 2;
+    private double jitter = 1;
+    private Duration maxRetryAfter = Duration.ofSeconds(30);
+    private boolean retryPost = false;
+    private boolean retryPostUnavailable = false;
+    private final Map<String, RetryPolicy> endpointPolicies = new HashMap<>();
+
+    public Builder setMaxAttempts(int maxAttempts) {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException(String.format("Invalid max attempts: %d", maxAttempts));
+      }
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    public Builder setInitialBackoff(Duration initialBackoff) {
+      this.initialBackoff = initialBackoff;
+      return this;
+    }
+
+    public Builder setMaxBackoff(Duration maxBackoff) {
+      this.maxBackoff = maxBackoff;
+      return this;
+    }
+
+    public Builder setMultiplier(double multiplier) {
+      if (multiplier < 1) {
+        throw new IllegalArgumentException(String.format("Invalid multiplier: %s", multiplier));
+      }
+      this.multiplier = multiplier;
+      return this;
+    }
+
+    public Builder setJitter(double jitter) {
+      if (jitter < 0 || jitter > 1) {
+        throw new IllegalArgumentException(String.format("Invalid jitter: %s", jitter));
+      }
+      this.jitter = jitter;
+      return this;
+    }
+
+    public Builder setMaxRetryAfter(Duration maxRetryAfter) {
+      this.maxRetryAfter = maxRetryAfter;
+      return this;
+    }
+
+    public Builder setRetryPost(boolean retryPost) {
+      this.retryPost = retryPost;
+      return this;
+    }
+
+    public Builder setRetryPostUnavailable(boolean retryPostUnavailable) {
+      this.retryPostUnavailable = retryPostUnavailable;
+      return this;
+    }
+
+    /**
+     * Overrides the policy of one endpoint.
+     *
+     * @param type         the HTTP method
+     * @param pathTemplate the path template, e.g. {@code package/{id}/labels.pdf}
+     * @param policy       the policy of the endpoint
+     * @return this builder
+     */
+    public Builder setEndpointPolicy(RequestType type, String pathTemplate, RetryPolicy policy) {
+      this.endpointPolicies.put(key(type, pathTemplate), policy);
+      return this;
+    }
+
+    public RetryPolicy build() {
+      return new RetryPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package cz.wedo.api.services.tenant;
+
+import lombok.Getter;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Maximum number of calls of one tenant in flight at once, so that a tenant cannot take all connections of a shared pool.
+ * A call holds its permit from the first attempt until its response has been read.
+ * Waiting calls are granted permits in the order they asked for them; asynchronous calls wait without blocking a thread.
+ */
+public class ConcurrencyQuota {
+  /**
+   * Maximum number of calls in flight.
+   */
+  @Getter
+  private final int limit;
+
+  private int available;
+
+  private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+  /**
+   * Creates a quota.
+   *
+   * @param limit the maximum number of calls in flight, at least 1
+   */
+  public ConcurrencyQuota(int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException(String.format("Invalid concurrency limit: %d", limit));
+    }
+    this.limit = limit;
+    this.available = limit;
+  }
+
+  /**
+   * Returns a future completed once a permit is granted to the caller, who must {@link #release()} it afterwards.
+   * A caller giving up cancels the future, which leaves the queue at once and never takes a permit.
+   *
+   * @return the future of the permit
+   */
+  public synchronized CompletableFuture<Void> acquireAsync() {
+    if (available > 0 && waiters.isEmpty()) {
+      available--;
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> waiter = new CompletableFuture<>();
+    waiters.add(waiter);
+    // a waiter which gave up leaves the queue at once
+    waiter.whenComplete((permit, e) -> {
+      if (e != null) {
+        dequeue(waiter);
+      }
+    });
+    return waiter;
+  }
+
+  /**
+   * Waits for a permit, which the caller must {@link #release()} afterwards.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit    the unit of the timeout
+   * @throws ConnectionPoolTimeoutException if no permit is granted in time
+   * @throws InterruptedIOException         if the thread is interrupted while waiting
+   */
+  public void acquire(long timeout, TimeUnit unit) throws InterruptedIOException {
+    CompletableFuture<Void> permit = acquireAsync();
+    try {
+      permit.get(timeout, unit);
+    } catch (TimeoutException e) {
+      if (permit.cancel(false)) {
+        throw new ConnectionPoolTimeoutException(String.format("Timeout waiting for one of %d calls of the tenant quota", limit));
+      }
+      // granted meanwhile
+    } catch (InterruptedException e) {
+      if (permit.cancel(false)) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for the tenant quota");
+      }
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | CancellationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns a permit, granting it to the longest waiting call if there is one.
+   */
+  public void release() {
+    while (true) {
+      CompletableFuture<Void> next;
+      synchronized (this) {
+        next = waiters.poll();
+        if (next == null) {
+          available = Math.min(available + 1, limit);
+          return;
+        }
+      }
+      // a waiter which gave up does not take the permit
+      if (next.complete(null)) {
+        return;
+      }
+    }
+  }
+
+  private synchronized void dequeue(CompletableFuture<Void> waiter) {
+    waiters.remove(waiter);
+  }
+
+  /**
+   * Returns the number of calls currently holding a permit.
+   *
+   * @return the calls in flight
+   */
+  public synchronized int getInFlight() {
+    return limit - available;
+  }
+
+  /**
+   * Returns the number of calls waiting for a permit.
+   *
+   * @return the waiting calls
+   */
+  public synchronized int getWaiting() {
+    return waiters.size();
+  }
+}
@@ -0,0 +1,215 @@
+package cz.wedo.api.services.timeout;
+
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.services.breaker.EndpointGroup;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.http.client.config.RequestConfig;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Timeouts of the API calls: connecting, waiting for data on the socket, waiting for a pooled connection,
+ * and an optional deadline bounding the whole call including retries and rate limiter waits.
+ * When the deadline runs out the request in flight is aborted and the call fails with an I/O error caused by
+ * {@link cz.wedo.api.exceptions.DeadlineExceededException}.
+ * Label and manifest downloads get a longer read timeout than the other calls.
+ * Policies are immutable; overrides per endpoint group or per endpoint are looked up by {@link #forEndpoint(RequestType, String)}.
+ */
+@Getter
+public class TimeoutPolicy {
+  /**
+   * Default policy: connect in 10 s, 30 s without data on the socket (180 s for label and manifest downloads),
+   * 30 s waiting for a pooled connection, no deadline.
+   */
+  public static final TimeoutPolicy DEFAULT = new Builder().build();
+
+  /**
+   * Timeout of establishing the connection.
+   */
+  private final Duration connectTimeout;
+
+  /**
+   * Longest period without data on the socket (time to the response headers for the asynchronous API).
+   */
+  private final Duration readTimeout;
+
+  /**
+   * Longest wait for a connection from the pool.
+   */
+  private final Duration poolAcquireTimeout;
+
+  /**
+   * Budget of the whole call including retries, null for none.
+   */
+  private final Duration deadline;
+
+  /**
+   * Longest period without data on the socket while downloading labels and manifests.
+   */
+  private final Duration downloadReadTimeout;
+
+  @Getter(AccessLevel.NONE)
+  private final TimeoutPolicy downloadPolicy;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<EndpointGroup, TimeoutPolicy> groupPolicies;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, TimeoutPolicy> endpointPolicies;
+
+  private TimeoutPolicy(Builder builder) {
+    this.connectTimeout = builder.connectTimeout;
+    this.readTimeout = builder.readTimeout;
+    this.poolAcquireTimeout = builder.poolAcquireTimeout;
+    this.deadline = builder.deadline;
+    this.downloadReadTimeout = builder.downloadReadTimeout;
+    this.groupPolicies = Collections.unmodifiableMap(new EnumMap<>(builder.groupPolicies));
+    this.endpointPolicies = Collections.unmodifiableMap(new HashMap<>(builder.endpointPolicies));
+    this.downloadPolicy = downloadReadTimeout.equals(readTimeout) ? this : new TimeoutPolicy(this, downloadReadTimeout);
+  }
+
+  private TimeoutPolicy(TimeoutPolicy base, Duration readTimeout) {
+    this.connectTimeout = base.connectTimeout;
+    this.readTimeout = readTimeout;
+    this.poolAcquireTimeout = base.poolAcquireTimeout;
+    this.deadline = base.deadline;
+    this.downloadReadTimeout = readTimeout;
+    this.groupPolicies = Collections.emptyMap();
+    this.endpointPolicies = Collections.emptyMap();
+    this.downloadPolicy = this;
+  }
+
+  /**
+   * Returns the policy for the given endpoint: the endpoint override, else the override of its group,
+   * else this policy with the download read timeout for labels and manifests.
+   *
+   * @param type         the HTTP method
+   * @param pathTemplate the path template, e.g. {@code package/{id}/labels.pdf}
+   * @return the policy to apply
+   */
+  public TimeoutPolicy forEndpoint(RequestType type, String pathTemplate) {
+    TimeoutPolicy policy = endpointPolicies.get(key(type, pathTemplate));
+    if (policy != null) {
+      return policy;
+    }
+    EndpointGroup group = EndpointGroup.of(pathTemplate);
+    policy = groupPolicies.get(group);
+    if (policy != null) {
+      return policy;
+    }
+    return group == EndpointGroup.LABELS || pathTemplate.endsWith("/manifest.pdf") ? downloadPolicy : this;
+  }
+
+  /**
+   * Returns the request configuration of Apache HttpClient, with every timeout capped by the time left until the deadline.
+   *
+   * @param remainingMillis the time left until the deadline in milliseconds
+   * @return the request configuration
+   */
+  public RequestConfig toRequestConfig(long remainingMillis) {
+    return RequestConfig.custom()
+        .setConnectTimeout(capped(connectTimeout, remainingMillis))
+        .setSocketTimeout(capped(readTimeout, remainingMillis))
+        .setConnectionRequestTimeout(capped(poolAcquireTimeout, remainingMillis))
+        .build();
+  }
+
+  private static int capped(Duration timeout, long remainingMillis) {
+    return (int) Math.max(1, Math.min(Math.min(timeout.toMillis(), remainingMillis), Integer.MAX_VALUE));
+  }
+
+  private static String key(RequestType type, String pathTemplate) {
+    return String.format("%s %s", type, pathTemplate);
+  }
+
+  /**
+   * The Builder class is used to construct a TimeoutPolicy.
+   */
+  public static class Builder {
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    private Duration downloadReadTimeout = Duration.ofSeconds(180);
+    private Duration poolAcquireTimeout = Duration.ofSeconds(30);
+    private Duration deadline = null;
+    private final Map<EndpointGroup, TimeoutPolicy> groupPolicies = new EnumMap<>(EndpointGroup.class);
+    private final Map<String, TimeoutPolicy> endpointPolicies = new HashMap<>();
+
+    public Builder setConnectTimeout(Duration connectTimeout) {
+      this.connectTimeout = positive(connectTimeout);
+      return this;
+    }
+
+    public Builder setReadTimeout(Duration readTimeout) {
+      this.readTimeout = positive(readTimeout);
+      return this;
+    }
+
+    /**
+     * Sets the read timeout of label and manifest downloads, which the server renders before sending any data.
+     *
+     * @param downloadReadTimeout the read timeout of downloads
+     * @return this builder
+     */
+    public Builder setDownloadReadTimeout(Duration downloadReadTimeout) {
+      this.downloadReadTimeout = positive(downloadReadTimeout);
+      return this;
+    }
+
+    public Builder setPoolAcquireTimeout(Duration poolAcquireTimeout) {
+      this.poolAcquireTimeout = positive(poolAcquireTimeout);
+      return this;
+    }
+
+    /**
+     * Sets the budget of a whole call including retries, null for none.
+     *
+     * @param deadline the budget
+     * @return this builder
+     */
+    public Builder setDeadline(Duration deadline) {
+      this.deadline = deadline != null ? positive(deadline) : null;
+      return this;
+    }
+
+    /**
+     * Overrides the policy of an endpoint group, e.g. to give label downloads a deadline of their own.
+     *
+     * @param group  the endpoint group
+     * @param policy the policy of the group
+     * @return this builder
+     */
+    public Builder setGroupPolicy(EndpointGroup group, TimeoutPolicy policy) {
+      this.groupPolicies.put(group, policy);
+      return this;
+    }
+
+    /**
+     * Overrides the policy of one endpoint.
+     *
+     * @param type         the HTTP method
+     * @param pathTemplate the path template, e.g. {@code package/{id}}
+     * @param policy       the policy of the endpoint
+     * @return this builder
+     */
+    public Builder setEndpointPolicy(RequestType type, String pathTemplate, TimeoutPolicy policy) {
+      this.endpointPolicies.put(key(type, pathTemplate), policy);
+      return this;
+    }
+
+    public TimeoutPolicy build() {
+      return new TimeoutPolicy(this);
+    }
+
+    private static Duration positive(Duration timeout) {
+      if (timeout.isNegative() || timeout.isZero()) {
+        throw new IllegalArgumentException(String.format("Invalid timeout: %s", timeout));
+      }
+      return timeout;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package cz.wedo.api.services.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Conversion of Apache HttpCore messages for the engines which do not use them natively.
+ */
+final class HttpMessages {
+  /**
+   * Headers set by the engines themselves.
+   */
+  private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade", "transfer-encoding");
+
+  private HttpMessages() {
+  }
+
+  /**
+   * Tells whether the header of the request is passed to the engine.
+   *
+   * @param header the header
+   * @return false for the headers managed by the engine
+   */
+  static boolean isForwarded(Header header) {
+    return !RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the entity of the request, null for requests without body.
+   *
+   * @param request the request
+   * @return the entity or null
+   */
+  static HttpEntity entity(Object request) {
+    return request instanceof HttpEntityEnclosingRequest ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+  }
+
+  /**
+   * Writes the entity, compressing it when it is a compressing entity.
+   *
+   * @param entity the entity
+   * @return the body bytes
+   * @throws IOException if the entity cannot be written
+   */
+  static byte[] body(HttpEntity entity) throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream(entity.getContentLength() > 0 ? (int) entity.getContentLength() : 256);
+    entity.writeTo(body);
+    return body.toByteArray();
+  }
+
+  /**
+   * Creates the response carrying the streamed body.
+   *
+   * @param statusCode      the status code
+   * @param contentType     the Content-Type header, may be null
+   * @param contentEncoding the Content-Encoding header, may be null
+   * @param contentLength   the length of the body, negative when unknown
+   * @param content         the body stream
+   * @return the response, headers are added by the caller
+   */
+  static HttpResponse response(int statusCode, String contentType, String contentEncoding, long contentLength, InputStream content) {
+    BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode,
+        EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, Locale.ROOT)));
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContent(content);
+    entity.setContentLength(contentLength);
+    entity.setContentType(contentType);
+    entity.setContentEncoding(contentEncoding);
+    response.setEntity(entity);
+    return response;
+  }
+}
@@ -0,0 +1,118 @@
+package cz.wedo.api.services.transport;
+
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+
+/**
+ * Long-lived HTTP transport backed by a pooling connection manager.
+ * One instance is owned by a {@link cz.wedo.api.WeDoApi} client and shared by all of its requests,
+ * so TCP and TLS connections are reused instead of being opened for every call.
+ */
+@Slf4j
+public class HttpTransport implements Transport {
+  /**
+   * Default maximum number of pooled connections in total.
+   */
+  public static final int DEFAULT_MAX_TOTAL = 20;
+
+  /**
+   * Default maximum number of pooled connections per route (host).
+   */
+  public static final int DEFAULT_MAX_PER_ROUTE = 10;
+
+  /**
+   * Pooling connection manager.
+   */
+  private final PoolingHttpClientConnectionManager connectionManager;
+
+  /**
+   * Shared HTTP client using the pooling connection manager.
+   */
+  @Getter
+  private final CloseableHttpClient httpClient;
+
+  /**
+   * Creates a transport with the default pool sizes.
+   */
+  public HttpTransport() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE);
+  }
+
+  /**
+   * Creates a transport with the given pool sizes.
+   *
+   * @param maxTotal    maximum number of pooled connections in total
+   * @param maxPerRoute maximum number of pooled connections per route
+   */
+  public HttpTransport(int maxTotal, int maxPerRoute) {
+    this(maxTotal, maxPerRoute, false);
+  }
+
+  /**
+   * Creates a transport with the given pool sizes and certificate verification.
+   *
+   * @param maxTotal    maximum number of pooled connections in total
+   * @param maxPerRoute maximum number of pooled connections per route
+   * @param sslVerify   whether server certificates must be trusted by the JVM, otherwise self-signed ones are accepted too
+   */
+  public HttpTransport(int maxTotal, int maxPerRoute, boolean sslVerify) {
+    if (maxTotal < 1 || maxPerRoute < 1) {
+      throw new IllegalArgumentException(String.format("Invalid pool size: maxTotal=%d, maxPerRoute=%d", maxTotal, maxPerRoute));
+    }
+    this.connectionManager = new PoolingHttpClientConnectionManager(prepareSocketFactoryRegistry(sslVerify));
+    this.connectionManager.setMaxTotal(maxTotal);
+    this.connectionManager.setDefaultMaxPerRoute(Math.min(maxPerRoute, maxTotal));
+    this.httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        // response compression is driven by the gzip flag of each request
+        .disableContentCompression()
+        // retries are decided by the retry policy of the requester
+        .disableAutomaticRetries()
+        // every request carries the timeouts of its endpoint, these only bound requests sent without them
+        .setDefaultRequestConfig(TimeoutPolicy.DEFAULT.toRequestConfig(Long.MAX_VALUE))
+        .build();
+  }
+
+  @Override
+  public HttpResponse execute(HttpRequestBase request) throws IOException {
+    return httpClient.execute(request);
+  }
+
+  /**
+   * Prepares the socket factory registry used by the connection manager.
+   *
+   * @param sslVerify whether server certificates must be trusted by the JVM
+   * @return registry with plain and SSL socket factories
+   */
+  private static Registry<ConnectionSocketFactory> prepareSocketFactoryRegistry(boolean sslVerify) {
+    return RegistryBuilder.<ConnectionSocketFactory>create()
+        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+        .register("https", SslContexts.socketFactory(sslVerify))
+        .build();
+  }
+
+  /**
+   * Closes the HTTP client and releases all pooled connections.
+   */
+  @Override
+  public void close() {
+    try {
+      httpClient.close();
+    } catch (IOException e) {
+      log.error(String.format("Exception closing HTTP client: %s", e.getMessage()), e);
+    }
+    connectionManager.shutdown();
+  }
+}
@@ -0,0 +1,158 @@
+package cz.wedo.api.services.transport;
+
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import lombok.Getter;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking HTTP transport backed by the JDK {@link HttpClient}.
+ * Requests are sent asynchronously, so many of them can be in flight without parking one thread per request.
+ * As a {@link Transport} it also serves the blocking calls, waiting for the response headers and streaming the body.
+ */
+public class JdkHttpTransport implements Transport {
+  /**
+   * Shared JDK HTTP client.
+   */
+  @Getter
+  private final HttpClient httpClient;
+
+  /**
+   * Creates a new non-blocking transport with the default connect timeout.
+   */
+  public JdkHttpTransport() {
+    this(TimeoutPolicy.DEFAULT.getConnectTimeout());
+  }
+
+  /**
+   * Creates a new non-blocking HTTP/1.1 transport.
+   *
+   * @param connectTimeout timeout of establishing a connection
+   */
+  public JdkHttpTransport(Duration connectTimeout) {
+    this(connectTimeout, HttpClient.Version.HTTP_1_1);
+  }
+
+  /**
+   * Creates a new non-blocking transport.
+   * With HTTP/2, concurrent requests to a host share one connection as multiplexed streams; the version is negotiated
+   * by ALPN over TLS (or an upgrade over plain HTTP), and hosts which do not support it are served over HTTP/1.1.
+   *
+   * @param connectTimeout timeout of establishing a connection
+   * @param version        the preferred HTTP version
+   */
+  public JdkHttpTransport(Duration connectTimeout, HttpClient.Version version) {
+    this(connectTimeout, version, false);
+  }
+
+  /**
+   * Creates a new non-blocking transport with the given certificate verification.
+   *
+   * @param connectTimeout timeout of establishing a connection
+   * @param version        the preferred HTTP version
+   * @param sslVerify      whether server certificates must be trusted by the JVM, otherwise self-signed ones are accepted too
+   */
+  public JdkHttpTransport(Duration connectTimeout, HttpClient.Version version, boolean sslVerify) {
+    this.httpClient = HttpClient.newBuilder()
+        .version(version)
+        .sslContext(SslContexts.get(sslVerify))
+        .connectTimeout(connectTimeout)
+        .build();
+  }
+
+  @Override
+  public org.apache.http.HttpResponse execute(HttpRequestBase request) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(request.getURI());
+    HttpEntity entity = HttpMessages.entity(request);
+    builder.method(request.getMethod(), entity != null ? HttpRequest.BodyPublishers.ofByteArray(HttpMessages.body(entity)) : HttpRequest.BodyPublishers.noBody());
+    for (Header header : request.getAllHeaders()) {
+      if (HttpMessages.isForwarded(header)) {
+        builder.header(header.getName(), header.getValue());
+      }
+    }
+    if (entity != null && entity.getContentType() != null && !request.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+      builder.header(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+    }
+    if (entity != null && entity.getContentEncoding() != null && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+      builder.header(HttpHeaders.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+    }
+    RequestConfig config = request.getConfig();
+    if (config != null && config.getSocketTimeout() > 0) {
+      builder.timeout(Duration.ofMillis(config.getSocketTimeout()));
+    }
+
+    CompletableFuture<HttpResponse<InputStream>> sent = httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+    AtomicReference<InputStream> body = new AtomicReference<>();
+    request.setCancellable(() -> {
+      sent.cancel(true);
+      Optional.ofNullable(body.get()).ifPresent(JdkHttpTransport::closeQuietly);
+      return true;
+    });
+    HttpResponse<InputStream> received;
+    try {
+      received = sent.get();
+    } catch (InterruptedException e) {
+      sent.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the response");
+    } catch (CancellationException e) {
+      throw new RequestAbortedException("Request aborted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+    body.set(received.body());
+    if (request.isAborted()) {
+      closeQuietly(received.body());
+      throw new RequestAbortedException("Request aborted");
+    }
+
+    java.net.http.HttpHeaders headers = received.headers();
+    org.apache.http.HttpResponse response = HttpMessages.response(received.statusCode(),
+        headers.firstValue(HttpHeaders.CONTENT_TYPE).orElse(null),
+        headers.firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null),
+        headers.firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1),
+        received.body());
+    headers.map().forEach((name, values) -> {
+      // HTTP/2 pseudo-headers are not headers of the response
+      if (!name.startsWith(":")) {
+        values.forEach(value -> response.addHeader(name, value));
+      }
+    });
+    return response;
+  }
+
+  private static void closeQuietly(InputStream stream) {
+    try {
+      stream.close();
+    } catch (IOException e) {
+      // the exchange is abandoned anyway
+    }
+  }
+
+  /**
+   * The JDK client releases its connections once it is no longer referenced, there is nothing to close explicitly.
+   */
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,149 @@
+package cz.wedo.api.services.transport;
+
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import lombok.Getter;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport backed by OkHttp, keeping idle connections in its own pool.
+ * Redirects are followed as by the other engines, failed connections are not retried by OkHttp, the retry policy decides.
+ */
+public class OkHttpTransport implements Transport {
+  /**
+   * How long an idle pooled connection is kept.
+   */
+  private static final long KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  /**
+   * Methods which OkHttp sends with a body only.
+   */
+  private static final Set<String> BODY_METHODS = Set.of("POST", "PUT", "PATCH");
+
+  /**
+   * Shared OkHttp client.
+   */
+  @Getter
+  private final OkHttpClient httpClient;
+
+  /**
+   * Creates a transport with the default pool size and timeouts.
+   */
+  public OkHttpTransport() {
+    this(HttpTransport.DEFAULT_MAX_PER_ROUTE, TimeoutPolicy.DEFAULT);
+  }
+
+  /**
+   * Creates a transport.
+   *
+   * @param maxIdleConnections maximum number of idle connections kept in the pool
+   * @param timeouts           the timeouts of requests sent without request config
+   */
+  public OkHttpTransport(int maxIdleConnections, TimeoutPolicy timeouts) {
+    this(maxIdleConnections, timeouts, false);
+  }
+
+  /**
+   * Creates a transport with the given certificate verification.
+   *
+   * @param maxIdleConnections maximum number of idle connections kept in the pool
+   * @param timeouts           the timeouts of requests sent without request config
+   * @param sslVerify          whether server certificates must be trusted by the JVM, otherwise self-signed ones are accepted too
+   */
+  public OkHttpTransport(int maxIdleConnections, TimeoutPolicy timeouts, boolean sslVerify) {
+    if (maxIdleConnections < 1) {
+      throw new IllegalArgumentException(String.format("Invalid pool size: %d", maxIdleConnections));
+    }
+    this.httpClient = new OkHttpClient();
+    httpClient.setConnectionPool(new ConnectionPool(maxIdleConnections, KEEP_ALIVE_MILLIS));
+    httpClient.setConnectTimeout(timeouts.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    httpClient.setReadTimeout(timeouts.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    httpClient.setWriteTimeout(timeouts.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    httpClient.setRetryOnConnectionFailure(false);
+    httpClient.setSslSocketFactory(SslContexts.get(sslVerify).getSocketFactory());
+  }
+
+  @Override
+  public HttpResponse execute(HttpRequestBase request) throws IOException {
+    Request.Builder builder = new Request.Builder().url(request.getURI().toURL());
+    for (Header header : request.getAllHeaders()) {
+      if (HttpMessages.isForwarded(header)) {
+        builder.addHeader(header.getName(), header.getValue());
+      }
+    }
+    HttpEntity entity = HttpMessages.entity(request);
+    RequestBody body = null;
+    if (entity != null) {
+      String contentType = request.containsHeader(HttpHeaders.CONTENT_TYPE) ? request.getFirstHeader(HttpHeaders.CONTENT_TYPE).getValue()
+          : entity.getContentType() != null ? entity.getContentType().getValue() : null;
+      body = RequestBody.create(contentType != null ? MediaType.parse(contentType) : null, HttpMessages.body(entity));
+      if (entity.getContentEncoding() != null && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+        builder.header(HttpHeaders.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+      }
+    } else if (BODY_METHODS.contains(request.getMethod())) {
+      body = RequestBody.create(null, new byte[0]);
+    }
+    builder.method(request.getMethod(), body);
+
+    Call call = client(request.getConfig()).newCall(builder.build());
+    request.setCancellable(() -> {
+      call.cancel();
+      return true;
+    });
+    if (request.isAborted()) {
+      throw new RequestAbortedException("Request aborted");
+    }
+    Response received = call.execute();
+
+    Headers headers = received.headers();
+    HttpResponse response = HttpMessages.response(received.code(), headers.get(HttpHeaders.CONTENT_TYPE), headers.get(HttpHeaders.CONTENT_ENCODING),
+        received.body().contentLength(), received.body().byteStream());
+    for (int i = 0; i < headers.size(); i++) {
+      response.addHeader(headers.name(i), headers.value(i));
+    }
+    return response;
+  }
+
+  /**
+   * Returns the client applying the timeouts of the request, sharing the pool of this transport.
+   */
+  private OkHttpClient client(RequestConfig config) {
+    if (config == null || (config.getConnectTimeout() <= 0 && config.getSocketTimeout() <= 0)) {
+      return httpClient;
+    }
+    OkHttpClient client = httpClient.clone();
+    if (config.getConnectTimeout() > 0) {
+      client.setConnectTimeout(config.getConnectTimeout(), TimeUnit.MILLISECONDS);
+    }
+    if (config.getSocketTimeout() > 0) {
+      client.setReadTimeout(config.getSocketTimeout(), TimeUnit.MILLISECONDS);
+      client.setWriteTimeout(config.getSocketTimeout(), TimeUnit.MILLISECONDS);
+    }
+    return client;
+  }
+
+  /**
+   * Evicts the idle pooled connections.
+   */
+  @Override
+  public void close() {
+    httpClient.getConnectionPool().evictAll();
+  }
+}
@@ -0,0 +1,86 @@
+package cz.wedo.api.services.transport;
+
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.ssl.SSLContextBuilder;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SSL contexts shared by all transports and requesters, built once per verification mode.
+ * Sharing the context shares its client session cache, so a new connection to a host resumes the TLS session
+ * of a previous one (an abbreviated handshake) instead of running a full handshake.
+ * <p>
+ * With verification, servers must present a certificate trusted by the JVM; without it (the default of the clients),
+ * self-signed certificates are accepted as well. Host names are verified against the certificate in both modes.
+ */
+public final class SslContexts {
+  /**
+   * Maximum number of TLS sessions kept for resumption.
+   */
+  public static final int SESSION_CACHE_SIZE = 1000;
+
+  /**
+   * Lifetime of a cached TLS session in seconds.
+   */
+  public static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+  private SslContexts() {
+  }
+
+  /**
+   * Returns the shared SSL context.
+   *
+   * @param verify whether the server certificate must be trusted by the JVM, otherwise self-signed certificates are accepted
+   * @return the SSL context
+   */
+  public static SSLContext get(boolean verify) {
+    return verify ? Verifying.CONTEXT : Lenient.CONTEXT;
+  }
+
+  /**
+   * Returns the shared Apache socket factory over {@link #get(boolean)}, verifying host names.
+   *
+   * @param verify whether the server certificate must be trusted by the JVM
+   * @return the socket factory
+   */
+  public static SSLConnectionSocketFactory socketFactory(boolean verify) {
+    return verify ? Verifying.SOCKET_FACTORY : Lenient.SOCKET_FACTORY;
+  }
+
+  private static SSLContext create(boolean verify) {
+    try {
+      SSLContextBuilder builder = new SSLContextBuilder();
+      if (!verify) {
+        builder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
+      }
+      SSLContext context = builder.build();
+      SSLSessionContext sessions = context.getClientSessionContext();
+      sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+      sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+      return context;
+    } catch (NoSuchAlgorithmException | KeyStoreException | KeyManagementException e) {
+      throw new IllegalStateException(String.format("Cannot initialize SSL context: %s", e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Context trusting the certificates trusted by the JVM, created on first use.
+   */
+  private static final class Verifying {
+    private static final SSLContext CONTEXT = create(true);
+    private static final SSLConnectionSocketFactory SOCKET_FACTORY = new SSLConnectionSocketFactory(CONTEXT);
+  }
+
+  /**
+   * Context also trusting self-signed certificates, created on first use.
+   */
+  private static final class Lenient {
+    private static final SSLContext CONTEXT = create(false);
+    private static final SSLConnectionSocketFactory SOCKET_FACTORY = new SSLConnectionSocketFactory(CONTEXT);
+  }
+}
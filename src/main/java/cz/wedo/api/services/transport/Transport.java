@@ -0,0 +1,33 @@
+package cz.wedo.api.services.transport;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.io.IOException;
+
+/**
+ * HTTP engine sending the requests of {@link cz.wedo.api.services.Requester} over the wire.
+ * Requests and responses are represented by Apache HttpCore messages whatever the engine, so retries, rate limiting,
+ * circuit breakers, deadlines and metrics work the same over every engine, see {@link TransportType}.
+ * <p>
+ * An implementation applies the timeouts of the request config ({@link HttpRequestBase#getConfig()}), registers a
+ * cancellable on the request so that {@link HttpRequestBase#abort()} interrupts the exchange, returns the response body
+ * as sent by the server (without decompressing it) and is safe to use from many threads.
+ */
+public interface Transport extends AutoCloseable {
+  /**
+   * Sends the request and returns the response once its headers are received; the body is read from the response entity.
+   *
+   * @param request the request
+   * @return the response, whose entity must be consumed or closed
+   * @throws IOException if the request cannot be sent or the response cannot be received
+   */
+  HttpResponse execute(HttpRequestBase request) throws IOException;
+
+  /**
+   * Releases the connections of the engine.
+   */
+  @Override
+  default void close() {
+  }
+}
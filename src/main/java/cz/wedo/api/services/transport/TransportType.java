@@ -0,0 +1,44 @@
+package cz.wedo.api.services.transport;
+
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+
+import java.net.http.HttpClient;
+
+/**
+ * HTTP engines available for the blocking calls of a {@link cz.wedo.api.WeDoApi} client.
+ */
+public enum TransportType {
+  /**
+   * Apache HttpClient 4.5 with a pooling connection manager, the default.
+   */
+  APACHE,
+  /**
+   * JDK {@link HttpClient}, negotiating HTTP/2 when configured so.
+   */
+  JDK,
+  /**
+   * OkHttp 2.7 with its connection pool.
+   */
+  OKHTTP;
+
+  /**
+   * Creates a transport of this type.
+   *
+   * @param maxTotal    maximum number of pooled connections in total (the JDK engine sizes its pool itself)
+   * @param maxPerRoute maximum number of pooled connections per route, kept idle by OkHttp
+   * @param timeouts    the default timeouts, the connect timeout of the JDK engine is fixed by it
+   * @param version     the preferred HTTP version of the JDK engine
+   * @param sslVerify   whether server certificates must be trusted by the JVM, otherwise self-signed ones are accepted too
+   * @return the transport
+   */
+  public Transport create(int maxTotal, int maxPerRoute, TimeoutPolicy timeouts, HttpClient.Version version, boolean sslVerify) {
+    switch (this) {
+      case JDK:
+        return new JdkHttpTransport(timeouts.getConnectTimeout(), version, sslVerify);
+      case OKHTTP:
+        return new OkHttpTransport(maxPerRoute, timeouts, sslVerify);
+      default:
+        return new HttpTransport(maxTotal, maxPerRoute, sslVerify);
+    }
+  }
+}
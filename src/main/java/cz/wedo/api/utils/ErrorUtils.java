@@ -1,9 +1,10 @@
 package cz.wedo.api.utils;
 
 import com.google.gson.Gson;
+import cz.wedo.api.exceptions.BadRequestException;
+import cz.wedo.api.exceptions.UnauthorizedException;
 import cz.wedo.api.models.errors.ErrorMessageException;
 import org.apache.http.HttpEntity;
-import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
 
@@ -23,6 +24,23 @@ public class ErrorUtils {
     return gson.fromJson(content, ErrorMessageException.class);
   }
 
+  /**
+   * Retrieves an ErrorMessageException object from the given JSON content and status code using the given Gson object.
+   *
+   * @param content    the JSON content containing the error message exception details
+   * @param statusCode the status code associated with the error response
+   * @param gson       the Gson object used to parse the JSON content
+   * @return an ErrorMessageException object populated with the error message details
+   */
+  public static ErrorMessageException getErrorMessageException(String content, int statusCode, Gson gson) {
+    ErrorMessageException errorMessageException = gson.fromJson(content, ErrorMessageException.class);
+    if (errorMessageException == null) {
+      errorMessageException = new ErrorMessageException();
+    }
+    errorMessageException.setStatusCode(statusCode);
+    return errorMessageException;
+  }
+
   /**
    * Retrieves an ErrorMessageException object from the given HTTP entity and status code using Gson library.
    *
@@ -31,15 +49,7 @@ public class ErrorUtils {
    * @return an ErrorMessageException object populated with the error message details
    */
   public static ErrorMessageException getErrorMessageException(HttpEntity httpEntity, int statusCode) {
-    try {
-      String content = EntityUtils.toString(httpEntity);
-      Gson gson = GsonUtils.getGsonStandardDate();
-      ErrorMessageException errorMessageException = gson.fromJson(content, ErrorMessageException.class);
-      errorMessageException.setStatusCode(statusCode);
-      return errorMessageException;
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+    return getErrorMessageException(httpEntity, statusCode, GsonUtils.getGsonStandardDate());
   }
 
   /**
@@ -47,18 +57,50 @@ public class ErrorUtils {
    *
    * @param httpEntity The HTTP entity containing the error message exception details
    * @param statusCode The status code associated with the error response
-   * @param gson The Gson object used to parse the JSON content
+   * @param gson The Gson object used to parse the JSON content, the standard date Gson if null
    * @return An ErrorMessageException object populated with the error message details
    * @throws RuntimeException if an IOException occurs while reading the HTTP entity
    */
   public static ErrorMessageException getErrorMessageException(HttpEntity httpEntity, int statusCode, Gson gson) {
     try {
-      String content = EntityUtils.toString(httpEntity);
-      ErrorMessageException errorMessageException = gson.fromJson(content, ErrorMessageException.class);
+      ErrorMessageException errorMessageException = GsonUtils.fromJson(gson != null ? gson : GsonUtils.getGsonStandardDate(), httpEntity, ErrorMessageException.class);
+      if (errorMessageException == null) {
+        errorMessageException = new ErrorMessageException();
+      }
       errorMessageException.setStatusCode(statusCode);
       return errorMessageException;
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Wraps a network error (after the retries are exhausted) into an ErrorMessageException without status code.
+   *
+   * @param e the network error
+   * @return an ErrorMessageException with status code 0 and the network error as its cause
+   */
+  public static ErrorMessageException getErrorMessageException(IOException e) {
+    ErrorMessageException errorMessageException = new ErrorMessageException();
+    errorMessageException.setMessage(String.format("I/O error: %s", e));
+    errorMessageException.setStatusCode(0);
+    errorMessageException.initCause(e);
+    return errorMessageException;
+  }
+
+  /**
+   * Wraps an unchecked failure of a call (rejected credentials or request, open circuit breaker) into an ErrorMessageException.
+   * Rejected credentials get status code 401, rejected requests 400, other failures 0.
+   *
+   * @param e the failure, possibly wrapping a checked exception
+   * @return an ErrorMessageException with the failure as its cause
+   */
+  public static ErrorMessageException getErrorMessageException(RuntimeException e) {
+    Throwable cause = e.getClass() == RuntimeException.class && e.getCause() != null ? e.getCause() : e;
+    ErrorMessageException errorMessageException = new ErrorMessageException();
+    errorMessageException.setMessage(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+    errorMessageException.setStatusCode(cause instanceof UnauthorizedException ? 401 : cause instanceof BadRequestException ? 400 : 0);
+    errorMessageException.initCause(cause);
+    return errorMessageException;
+  }
 }
@@ -1,19 +1,25 @@
 package cz.wedo.api.utils;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.util.EntityUtils;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A utility class for file and directory operations.
@@ -21,19 +27,77 @@ import java.util.List;
 @Slf4j
 public class FileUtils {
 
+  /**
+   * Maximum number of bytes transferred from the response to the file in one step.
+   */
+  private static final long TRANSFER_CHUNK_SIZE = 64 * 1024;
+
   /**
    * Saves the contents of the response entity to a file.
+   * The content is streamed to a temporary file next to the target, which is then atomically renamed,
+   * so readers never see a partially written file.
    *
    * @param targetFile The path to the target file.
    * @param response The HttpResponse object containing the response entity.
    * @throws IOException if an I/O error occurs while writing to the file.
    */
   public static void saveResponseEntityToFile(String targetFile, HttpResponse response) throws IOException {
-    byte[] bytes = EntityUtils.toByteArray(response.getEntity());
+    saveEntityToFile(targetFile, response.getEntity());
+  }
 
-    File outputFile = new File(targetFile);
-    try (FileOutputStream outputStream = new FileOutputStream(outputFile)) {
-      outputStream.write(bytes);
+  /**
+   * Streams the contents of the entity to a file without buffering it on the heap.
+   * The content is written to a temporary file next to the target, which is then atomically renamed.
+   *
+   * @param targetFile The path to the target file.
+   * @param entity The HttpEntity containing the content.
+   * @throws IOException if an I/O error occurs while writing to the file.
+   */
+  public static void saveEntityToFile(String targetFile, HttpEntity entity) throws IOException {
+    final Path target = Paths.get(targetFile);
+    final Path tempFile = prepareTempFile(target);
+    try {
+      try (InputStream inputStream = entity.getContent();
+           ReadableByteChannel source = Channels.newChannel(inputStream);
+           FileChannel destination = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        long position = 0;
+        long transferred;
+        while ((transferred = destination.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+          position += transferred;
+        }
+      }
+      moveAtomically(tempFile, target);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Creates an empty temporary file in the directory of the target file.
+   * Keeping it in the same directory lets it be renamed atomically onto the target.
+   *
+   * @param target the target file
+   * @return the path of the created temporary file
+   * @throws IOException if the file cannot be created
+   */
+  public static Path prepareTempFile(Path target) throws IOException {
+    final Path absoluteTarget = target.toAbsolutePath();
+    final String name = String.format(".%s.%x.part", absoluteTarget.getFileName(), ThreadLocalRandom.current().nextLong());
+    return Files.createFile(absoluteTarget.resolveSibling(name));
+  }
+
+  /**
+   * Moves the source file onto the target, atomically where the file system supports it.
+   *
+   * @param source the file to move
+   * @param target the target file, replaced if it exists
+   * @throws IOException if the file cannot be moved
+   */
+  public static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
     }
   }
 
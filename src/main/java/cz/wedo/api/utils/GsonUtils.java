@@ -2,12 +2,58 @@ package cz.wedo.api.utils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import cz.wedo.api.models.AdditionalService;
+import cz.wedo.api.models.Articles;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.Receiver;
+import cz.wedo.api.models.Sender;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.models.responses.*;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
- * Utility class for creating Gson objects with different date formats.
+ * Utility class providing shared Gson objects with different date formats.
+ * Gson objects are thread-safe and cache the type adapters they build, so the instances are created once
+ * and the adapters of all request and response models are resolved up front instead of on every call.
  */
 public class GsonUtils {
 
+  /**
+   * Request and response models whose type adapters are resolved when the Gson objects are created.
+   */
+  private static final List<Class<?>> MODELS = List.of(
+      Pkg.class, Receiver.class, Sender.class, AdditionalService.class, Articles.class,
+      AddressResponse.class, ArticleResponse.class, Batch.class, BatchDetailResponse.class, BatchResponse.class,
+      ContactResponse.class, DeleteResponse.class, PickupPlaceItemResponse.class, PickupPlaceResponse.class,
+      PickupResponse.class, PkgList.class, PkgResponse.class, PkgResponseState.class, SenderContactResponse.class,
+      WedoPickupPlaceResponse.class, ErrorMessageException.class
+  );
+
+  private static final Gson GSON_DEFAULT = warmUp(new Gson());
+
+  private static final Gson GSON_STANDARD_DATE = warmUp(new GsonBuilder().setDateFormat("yyyy-MM-dd HH:mm:ss").create());
+
+  private static final Gson GSON_T_DATE = warmUp(new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss").create());
+
+  /**
+   * Returns a shared Gson object with default settings, used for serializing request bodies.
+   *
+   * @return a Gson object with default settings
+   */
+  public static Gson getGsonDefault() {
+    return GSON_DEFAULT;
+  }
+
   /**
    * Returns a Gson object configured with a standard date format.
    * The date format is specified as "yyyy-MM-dd HH:mm:ss".
@@ -15,7 +61,7 @@ public class GsonUtils {
    * @return a Gson object with standard date format
    */
   public static Gson getGsonStandardDate() {
-    return new GsonBuilder().setDateFormat("yyyy-MM-dd HH:mm:ss").create();
+    return GSON_STANDARD_DATE;
   }
 
   /**
@@ -24,7 +70,74 @@ public class GsonUtils {
    * @return a Gson object with a custom date format.
    */
   public static Gson getGsonTDate() {
-    return new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss").create();
+    return GSON_T_DATE;
+  }
+
+  /**
+   * Resolves the type adapters of all models, so they are cached by the Gson object before the first request.
+   *
+   * @param gson the Gson object
+   * @return the same Gson object
+   */
+  private static Gson warmUp(Gson gson) {
+    MODELS.forEach(gson::getAdapter);
+    return gson;
+  }
+
+  /**
+   * Deserializes the content of the given HTTP entity directly from its stream, without buffering it into a String.
+   * The entity stream is closed afterwards, which releases a pooled connection.
+   *
+   * @param <T>  the type of the desired object
+   * @param gson the Gson object used for deserialization
+   * @param entity the HTTP entity containing JSON content, may be null
+   * @param type the type of the desired object
+   * @return the deserialized object, or null if the entity is missing or empty
+   * @throws IOException if an error occurs while reading the entity
+   */
+  public static <T> T fromJson(Gson gson, HttpEntity entity, Type type) throws IOException {
+    if (entity == null) {
+      return null;
+    }
+    try (JsonReader reader = newJsonReader(gson, entity)) {
+      return gson.fromJson(reader, type);
+    }
+  }
+
+  /**
+   * Opens a JSON reader over the content stream of the given HTTP entity.
+   *
+   * @param gson   the Gson object providing the reader settings
+   * @param entity the HTTP entity containing JSON content
+   * @return the JSON reader, the caller is responsible for closing it
+   * @throws IOException if the entity content cannot be opened
+   */
+  public static JsonReader newJsonReader(Gson gson, HttpEntity entity) throws IOException {
+    return newJsonReader(gson, entity.getContent(), getCharset(entity));
+  }
+
+  /**
+   * Opens a JSON reader over the given stream, e.g. the body of a response of the non-blocking transport.
+   *
+   * @param gson    the Gson object providing the reader settings
+   * @param content the JSON content
+   * @param charset the charset of the content
+   * @return the JSON reader, the caller is responsible for closing it
+   */
+  public static JsonReader newJsonReader(Gson gson, InputStream content, Charset charset) {
+    return gson.newJsonReader(new InputStreamReader(content, charset));
+  }
+
+  /**
+   * Returns the charset declared by the entity content type, UTF-8 if none is declared.
+   *
+   * @param entity the HTTP entity
+   * @return the charset of the entity content
+   */
+  private static Charset getCharset(HttpEntity entity) {
+    ContentType contentType = ContentType.get(entity);
+    Charset charset = contentType != null ? contentType.getCharset() : null;
+    return charset != null ? charset : StandardCharsets.UTF_8;
   }
 
 }
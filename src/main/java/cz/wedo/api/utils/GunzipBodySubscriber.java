@@ -0,0 +1,236 @@
+package cz.wedo.api.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Body subscriber of the JDK HTTP client decompressing a gzip-encoded body as it arrives and passing the decompressed
+ * bytes to the wrapped subscriber, so neither the compressed nor the decompressed body has to be held in memory at once.
+ * Decompression runs on the thread delivering the body, without blocking; concatenated gzip members are decompressed in turn.
+ *
+ * @param <T> the type of the response body
+ */
+public class GunzipBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private final HttpResponse.BodySubscriber<T> delegate;
+
+  private final Inflater inflater = new Inflater(true);
+
+  private final CRC32 crc = new CRC32();
+
+  /**
+   * Bytes of a gzip header or trailer received so far.
+   */
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+  private boolean inHeader = true;
+
+  private boolean inTrailer = false;
+
+  private boolean members = false;
+
+  private Flow.Subscription subscription;
+
+  private boolean failed = false;
+
+  /**
+   * Wraps the subscriber.
+   *
+   * @param delegate the subscriber receiving the decompressed body
+   */
+  public GunzipBodySubscriber(HttpResponse.BodySubscriber<T> delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Decompresses the body of gzip-encoded responses before passing it to the subscribers of the handler.
+   *
+   * @param <T>     the type of the response body
+   * @param handler the body handler receiving the decompressed body
+   * @return the body handler
+   */
+  public static <T> HttpResponse.BodyHandler<T> wrap(HttpResponse.BodyHandler<T> handler) {
+    return responseInfo -> GzipUtils.isGzip(responseInfo.headers().firstValue("Content-Encoding").orElse(null))
+        ? new GunzipBodySubscriber<>(handler.apply(responseInfo))
+        : handler.apply(responseInfo);
+  }
+
+  @Override
+  public CompletionStage<T> getBody() {
+    return delegate.getBody();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    delegate.onSubscribe(subscription);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> items) {
+    if (failed) {
+      return;
+    }
+    List<ByteBuffer> decoded = new ArrayList<>();
+    try {
+      for (ByteBuffer item : items) {
+        byte[] bytes = new byte[item.remaining()];
+        item.get(bytes);
+        decode(bytes, decoded);
+      }
+    } catch (ZipException | DataFormatException e) {
+      fail(e);
+      return;
+    }
+    delegate.onNext(decoded);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    inflater.end();
+    if (!failed) {
+      delegate.onError(throwable);
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    inflater.end();
+    if (failed) {
+      return;
+    }
+    if (!members || !inHeader || pending.size() > 0) {
+      delegate.onError(new EOFException("Unexpected end of gzip stream"));
+      return;
+    }
+    delegate.onComplete();
+  }
+
+  private void fail(Exception e) {
+    failed = true;
+    subscription.cancel();
+    inflater.end();
+    delegate.onError(e);
+  }
+
+  /**
+   * Decompresses the next bytes of the body.
+   *
+   * @param bytes   the received bytes
+   * @param decoded the decompressed buffers
+   */
+  private void decode(byte[] bytes, List<ByteBuffer> decoded) throws ZipException, DataFormatException {
+    while (bytes.length > 0) {
+      if (inHeader) {
+        pending.writeBytes(bytes);
+        byte[] header = pending.toByteArray();
+        int length = headerLength(header);
+        if (length < 0) {
+          return;
+        }
+        pending.reset();
+        inHeader = false;
+        inflater.reset();
+        crc.reset();
+        bytes = Arrays.copyOfRange(header, length, header.length);
+      } else if (inTrailer) {
+        pending.writeBytes(bytes);
+        if (pending.size() < 8) {
+          return;
+        }
+        byte[] trailer = pending.toByteArray();
+        if (readInt(trailer, 0) != (int) crc.getValue() || readInt(trailer, 4) != (int) inflater.getBytesWritten()) {
+          throw new ZipException("Corrupt gzip trailer");
+        }
+        pending.reset();
+        inTrailer = false;
+        inHeader = true;
+        members = true;
+        bytes = Arrays.copyOfRange(trailer, 8, trailer.length);
+      } else {
+        inflater.setInput(bytes);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = inflater.inflate(buffer)) > 0) {
+          crc.update(buffer, 0, count);
+          decoded.add(ByteBuffer.wrap(Arrays.copyOf(buffer, count)));
+        }
+        if (!inflater.finished()) {
+          if (inflater.needsDictionary()) {
+            throw new ZipException("Unsupported gzip dictionary");
+          }
+          return;
+        }
+        inTrailer = true;
+        bytes = Arrays.copyOfRange(bytes, bytes.length - inflater.getRemaining(), bytes.length);
+      }
+    }
+  }
+
+  /**
+   * Returns the length of the gzip member header at the start of the bytes.
+   *
+   * @param header the bytes received since the end of the previous member
+   * @return the header length, -1 if the header is not complete yet
+   * @throws ZipException if the bytes do not start a gzip member
+   */
+  private static int headerLength(byte[] header) throws ZipException {
+    if (header.length >= 1 && (header[0] & 0xff) != 0x1f || header.length >= 2 && (header[1] & 0xff) != 0x8b) {
+      throw new ZipException("Not in gzip format");
+    }
+    if (header.length < 10) {
+      return -1;
+    }
+    if (header[2] != 8) {
+      throw new ZipException("Unsupported compression method");
+    }
+    int flags = header[3] & 0xff;
+    int length = 10;
+    if ((flags & FEXTRA) != 0) {
+      if (header.length < length + 2) {
+        return -1;
+      }
+      length += 2 + ((header[length] & 0xff) | (header[length + 1] & 0xff) << 8);
+    }
+    if ((flags & FNAME) != 0) {
+      length = skipString(header, length);
+    }
+    if ((flags & FCOMMENT) != 0 && length >= 0) {
+      length = skipString(header, length);
+    }
+    if ((flags & FHCRC) != 0 && length >= 0) {
+      length += 2;
+    }
+    return length >= 0 && length <= header.length ? length : -1;
+  }
+
+  private static int skipString(byte[] header, int offset) {
+    for (int i = offset; i < header.length; i++) {
+      if (header[i] == 0) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8 | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+  }
+}
@@ -0,0 +1,76 @@
+package cz.wedo.api.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Utility class for gzip compression of request and response bodies.
+ */
+public class GzipUtils {
+  /**
+   * Request bodies smaller than this size (in bytes) are sent uncompressed, the gzip overhead is not worth it.
+   */
+  public static final int MIN_COMPRESS_SIZE = 1024;
+
+  /**
+   * Header value announcing gzip encoding.
+   */
+  public static final String GZIP = "gzip";
+
+  /**
+   * Checks whether the given Content-Encoding header value denotes gzip.
+   *
+   * @param contentEncoding the header value, may be null
+   * @return true if the content is gzip encoded
+   */
+  public static boolean isGzip(String contentEncoding) {
+    return contentEncoding != null && contentEncoding.toLowerCase().contains(GZIP);
+  }
+
+  /**
+   * Checks whether a request body of the given size should be compressed.
+   *
+   * @param gzip whether gzip compression is enabled
+   * @param size the size of the body in bytes
+   * @return true if the body should be compressed
+   */
+  public static boolean shouldCompress(Boolean gzip, long size) {
+    return Boolean.TRUE.equals(gzip) && size >= MIN_COMPRESS_SIZE;
+  }
+
+  /**
+   * Compresses the given bytes with gzip.
+   *
+   * @param bytes the bytes to compress
+   * @return the compressed bytes
+   */
+  public static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * Decompresses the given gzip bytes into a string.
+   *
+   * @param bytes   the gzip compressed bytes
+   * @param charset the charset of the decompressed content
+   * @return the decompressed string
+   */
+  public static String gunzip(byte[] bytes, Charset charset) {
+    try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(gzipInputStream.readAllBytes(), charset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package cz.wedo.api.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator decoding the elements of a JSON array one at a time from an open reader.
+ * Only the current element is held in memory, whatever the size of the array.
+ * The iterator closes the reader (and the given resource) once the array is exhausted or when it is closed.
+ *
+ * @param <T> the type of the array elements
+ */
+@Slf4j
+public class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+  private final Gson gson;
+  private final JsonReader reader;
+  private final Type elementType;
+  private final Closeable resource;
+  private boolean closed = false;
+
+  /**
+   * Creates an iterator over the JSON array the reader is positioned at.
+   *
+   * @param gson        the Gson object used for deserialization
+   * @param reader      the reader positioned at the beginning of a JSON array (or a JSON null)
+   * @param elementType the type of the array elements
+   * @param resource    additional resource to close together with the reader, may be null
+   * @throws IOException if the array cannot be opened
+   */
+  public JsonArrayIterator(Gson gson, JsonReader reader, Type elementType, Closeable resource) throws IOException {
+    this.gson = gson;
+    this.reader = reader;
+    this.elementType = elementType;
+    this.resource = resource;
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      close();
+    } else {
+      reader.beginArray();
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (closed) {
+      return false;
+    }
+    try {
+      if (reader.hasNext()) {
+        return true;
+      }
+      reader.endArray();
+      close();
+      return false;
+    } catch (IOException e) {
+      close();
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return gson.fromJson(reader, elementType);
+  }
+
+  /**
+   * Closes the reader and the additional resource.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      reader.close();
+      if (resource != null) {
+        resource.close();
+      }
+    } catch (IOException e) {
+      log.error(String.format("Exception closing JSON stream: %s", e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Wraps the iterator into a sequential stream which closes the iterator when the stream is closed.
+   *
+   * @return the stream of the array elements
+   */
+  public Stream<T> stream() {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(this::close);
+  }
+}
@@ -0,0 +1,82 @@
+package cz.wedo.api.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+/**
+ * Body subscriber of the JDK HTTP client deserializing a JSON body directly from the body stream as it arrives,
+ * without copying it into a String first.
+ * The stream is read on a thread of its own: reading it on the thread delivering the body would wait for bytes
+ * that thread never gets to deliver. The body completes once it is deserialized, so the response does too.
+ *
+ * @param <T> the type of the response body
+ */
+public class JsonBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+  /**
+   * Threads deserializing the response bodies.
+   */
+  private static final ExecutorService DECODER = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "wedo-api-json-decoder");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final HttpResponse.BodySubscriber<InputStream> stream = HttpResponse.BodySubscribers.ofInputStream();
+
+  private final CompletionStage<T> body;
+
+  /**
+   * Creates the subscriber.
+   *
+   * @param gson    the Gson object used for deserialization
+   * @param type    the type of the response body
+   * @param charset the charset of the body
+   */
+  public JsonBodySubscriber(Gson gson, Type type, Charset charset) {
+    this.body = stream.getBody().thenApplyAsync(content -> {
+      try (JsonReader reader = GsonUtils.newJsonReader(gson, content, charset)) {
+        return gson.fromJson(reader, type);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, DECODER);
+  }
+
+  @Override
+  public CompletionStage<T> getBody() {
+    return body;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    stream.onSubscribe(subscription);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> items) {
+    stream.onNext(items);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    stream.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    stream.onComplete();
+  }
+}
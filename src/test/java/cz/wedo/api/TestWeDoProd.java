@@ -19,10 +19,11 @@ public class TestWeDoProd {
   private String apiUser = "";
   private String apiKey = "";
   private String customerId = "";
+  private final WeDoApi api;
 
   public TestWeDoProd() {
-    WeDoApi.Builder builder = new WeDoApi.Builder();
-    builder.setApiUser(apiUser)
+    api = new WeDoApi.Builder()
+        .setApiUser(apiUser)
         .setApiKey(apiKey)
         .setApi(API.TESTV2)
         .setCustomerId(customerId)
@@ -35,7 +36,7 @@ public class TestWeDoProd {
 //	@Test
   public void testPackageGet() {
     try {
-      ArrayList<PkgList> packageList = WeDoApi.getInstance().getPackageList();
+      ArrayList<PkgList> packageList = api.getPackageList();
       packageList.forEach(p -> log.info(String.format("Pkg: %s", p)));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -48,7 +49,7 @@ public class TestWeDoProd {
 //	@Test
   public void testPackageGetPP() {
     try {
-      ArrayList<PkgList> packageList = WeDoApi.getInstance().getPackageList("N2079");
+      ArrayList<PkgList> packageList = api.getPackageList("N2079");
       packageList.forEach(p -> log.info(String.format("Pkg: %s", p)));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -107,7 +108,7 @@ public class TestWeDoProd {
     pkg.setAdditive(false);
     pkg.setProduct("S-24-CZ");
     try {
-      PkgResponse pr = WeDoApi.getInstance().createPackage(pkg, "N2079");
+      PkgResponse pr = api.createPackage(pkg, "N2079");
       log.info(String.format("Package response: %s", pr));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -121,7 +122,7 @@ public class TestWeDoProd {
   public void testPackageGetOrderNumber() {
     try {
       String orderNumber = "46F00051075";
-      PkgResponse pkgResponse = WeDoApi.getInstance().getPackageListByOrderNumber(orderNumber);
+      PkgResponse pkgResponse = api.getPackageListByOrderNumber(orderNumber);
       log.info(String.format("Package response: %s", pkgResponse));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -135,7 +136,7 @@ public class TestWeDoProd {
   public void testPackageDeleteOrderNumber() {
     try {
       String orderNumber = "46F00000008";
-      ArrayList<DeleteResponse> deleteResponses = WeDoApi.getInstance().deletePackageByOrderNumber(orderNumber);
+      ArrayList<DeleteResponse> deleteResponses = api.deletePackageByOrderNumber(orderNumber);
       deleteResponses.forEach(dr -> log.info(String.format("Delete response: %s", dr)));
     } catch (ErrorMessageException e) {
       log.info(String.valueOf(e));
@@ -149,7 +150,7 @@ public class TestWeDoProd {
   public void testPackageGetOrderNumberIdLabels() {
     try {
       String id = "51225";
-      WeDoApi.getInstance().savePdfLabelsForIdAs(Format.PDF, Dimensions.LABEL, id, "./data/id_labels.pdf");
+      api.savePdfLabelsForIdAs(Format.PDF, Dimensions.LABEL, id, "./data/id_labels.pdf");
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
     }
@@ -162,7 +163,7 @@ public class TestWeDoProd {
   public void testPackageGetOrderNumberLabels() {
     try {
       String orderNumber = "46F00051924";
-      WeDoApi.getInstance().savePdfLabelsForIdAs(Format.PDF, Dimensions.LABELA6, orderNumber, "./data/id_labels_v2_38.pdf");
+      api.savePdfLabelsForIdAs(Format.PDF, Dimensions.LABELA6, orderNumber, "./data/id_labels_v2_38.pdf");
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
     }
@@ -175,7 +176,7 @@ public class TestWeDoProd {
   public void testPackagePostBatch() {
     try {
       Articles articles = new Articles(new ArrayList<>(List.of("46F00000009")));
-      BatchResponse batch = WeDoApi.getInstance().createBatch(articles);
+      BatchResponse batch = api.createBatch(articles);
       log.info(String.format("Batch response: %s", batch));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -189,7 +190,7 @@ public class TestWeDoProd {
   public void testOrderPickup() {
     try {
       SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-      PickupResponse pickup = WeDoApi.getInstance().orderPickup(sdf.parse("2023-09-14"), "N14684");
+      PickupResponse pickup = api.orderPickup(sdf.parse("2023-09-14"), "N14684");
       log.info(String.format("Pickup response: %s", pickup));
     } catch (ErrorMessageException | ParseException e) {
       throw new RuntimeException(e);
@@ -203,7 +204,7 @@ public class TestWeDoProd {
   public void testPackageGetBatchNumber() {
     try {
       String number = "IT-46F-20230412212520";
-      BatchDetailResponse batchDetailResponse = WeDoApi.getInstance().getBatchByNumber(number);
+      BatchDetailResponse batchDetailResponse = api.getBatchByNumber(number);
       log.info(String.format("Batch detail response: %s", batchDetailResponse));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -217,7 +218,7 @@ public class TestWeDoProd {
   public void testPackageGetBatchNumberManifestPdf() {
     try {
       String number = "IT-46F-20230412212520";
-      WeDoApi.getInstance().saveBatchManifestPdfByNumber(number, "./data/manifest.pdf");
+      api.saveBatchManifestPdfByNumber(number, "./data/manifest.pdf");
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
     }
@@ -230,7 +231,7 @@ public class TestWeDoProd {
   public void testPackageGetBatchNumberLabelsPdf() {
     try {
       String number = "IT-46F-20230412212520";
-      WeDoApi.getInstance().saveBatchLabelsPdfByNumber(number, Dimensions.LABEL, "./data/labels.pdf");
+      api.saveBatchLabelsPdfByNumber(number, Dimensions.LABEL, "./data/labels.pdf");
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
     }
@@ -242,7 +243,7 @@ public class TestWeDoProd {
 //	@Test
   public void testGetPickupPlaceList() {
     try {
-      PickupPlaceResponse pickupPlaceResponse = WeDoApi.getInstance().getPickupPlaceList();
+      PickupPlaceResponse pickupPlaceResponse = api.getPickupPlaceList();
       log.info(String.format("PickupPlaceResponse: %s", pickupPlaceResponse));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -256,7 +257,7 @@ public class TestWeDoProd {
 //	@Test
   public void testGetDistributionPointList() {
     try {
-      PickupPlaceResponse pickupPlaceResponse = WeDoApi.getInstance().getDistributionPointList();
+      PickupPlaceResponse pickupPlaceResponse = api.getDistributionPointList();
       log.info(String.format("PickupPlaceResponse: %s", pickupPlaceResponse));
     } catch (ErrorMessageException e) {
       throw new RuntimeException(e);
@@ -0,0 +1,127 @@
+package cz.wedo.api;
+
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `WeDoApiTest` class contains test methods for building and sharing `WeDoApi` clients.
+ */
+public class WeDoApiTest {
+
+  private static WeDoApi.Builder builder(WeDoSimulator simulator) {
+    return new WeDoApi.Builder()
+        .setApiUser("api_user")
+        .setApiKey("api_key")
+        .setBaseUrl(simulator.getBaseUrl())
+        .setRetryPolicy(RetryPolicy.NONE);
+  }
+
+  /**
+   * Every build returns a new client; clients built side by side keep their own settings and transports.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testIndependentClients() throws Exception {
+    try (WeDoSimulator first = new WeDoSimulator.Builder().setPackageCount(2).start();
+         WeDoSimulator second = new WeDoSimulator.Builder().setPackageCount(7).start();
+         WeDoApi firstApi = builder(first).setCustomerId("C1").build();
+         WeDoApi secondApi = builder(second).setCustomerId("C2").setGzip(true).build()) {
+      assertNotSame(firstApi, secondApi);
+      assertSame(secondApi, WeDoApi.getInstance());
+      assertEquals("C1", firstApi.getCustomerId());
+      assertFalse(firstApi.isGzip());
+
+      assertEquals(2, firstApi.getPackageList().size());
+      assertEquals(7, secondApi.getPackageList().size());
+
+      secondApi.close();
+      assertEquals(2, firstApi.getPackageList().size());
+    }
+  }
+
+  /**
+   * A closed client fails its calls instead of opening new connection pools.
+   */
+  @Test
+  public void testClosedClient() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(3).start()) {
+      WeDoApi api = builder(simulator).build();
+      assertEquals(3, api.getPackageList().size());
+      api.close();
+      assertThrows(IllegalStateException.class, api::getPackageList);
+      assertThrows(IllegalStateException.class, () -> api.async().getPackageList());
+      api.close();
+    }
+  }
+
+  /**
+   * Building another client leaves the connection pool of the previous one open, even with calls in flight.
+   */
+  @Test
+  public void testBuildKeepsPreviousClientOpen() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(3).setLatency(LatencyDistribution.fixed(200)).start();
+         WeDoApi first = builder(simulator).setCoalesceRequests(false).build()) {
+      List<Future<Integer>> sizes = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        sizes.add(executor.submit(() -> first.getPackageList().size()));
+      }
+      Thread.sleep(50);
+      try (WeDoApi second = builder(simulator).build()) {
+        for (Future<Integer> size : sizes) {
+          assertEquals(3, size.get());
+        }
+        assertEquals(3, first.getPackageList().size());
+        assertEquals(3, second.getPackageList().size());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A base URL given without the trailing slash resolves the request paths below it.
+   */
+  @Test
+  public void testBaseUrlWithoutSlash() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(3).start();
+         WeDoApi api = builder(simulator).setBaseUrl(new URL(simulator.getBaseUrl().toString().replaceAll("/$", ""))).build()) {
+      assertEquals(3, api.getPackageList().size());
+      assertNotNull(api.createPackage(new Pkg(), "N2079").getOrderNumber());
+      assertEquals(2, simulator.getRequestCount());
+    }
+  }
+
+  /**
+   * One client is driven from many threads at once.
+   */
+  @Test
+  public void testSharedClient() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(3).start();
+         WeDoApi api = builder(simulator).setCoalesceRequests(false).build()) {
+      List<Future<Integer>> sizes = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        sizes.add(i % 2 == 0 ? executor.submit(() -> api.getPackageList().size()) : executor.submit(() -> api.async().getPackageList().get().size()));
+      }
+      for (Future<Integer> size : sizes) {
+        assertEquals(3, size.get());
+      }
+      assertEquals(40, simulator.getRequestCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
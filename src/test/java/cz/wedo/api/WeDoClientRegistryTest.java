@@ -0,0 +1,123 @@
+package cz.wedo.api;
+
+import cz.wedo.api.exceptions.DeadlineExceededException;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.services.idempotency.InMemoryPackageIndex;
+import cz.wedo.api.services.ratelimit.RateLimiter;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `WeDoClientRegistryTest` class contains test methods for the `WeDoClientRegistry` class.
+ */
+public class WeDoClientRegistryTest {
+
+  /**
+   * Tenants keep their own customer ID and quota, and share the connections of the registry.
+   */
+  @Test
+  public void testTenants() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(3).setLatency(LatencyDistribution.fixed(100)).start();
+         WeDoClientRegistry registry = new WeDoClientRegistry(new WeDoApi.Builder()
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setCoalesceRequests(false))) {
+      WeDoApi small = registry.register("small", "small_user", "small_key", "C1", 0);
+      WeDoApi large = registry.register("large", "large_user", "large_key", "C2", 2);
+      assertSame(large, registry.get("large"));
+      assertEquals("C1", small.getCustomerId());
+      assertEquals("large_user", large.getApiUser());
+      assertEquals(2, registry.getTenants().size());
+
+      long start = System.nanoTime();
+      List<CompletableFuture<?>> calls = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        calls.add(large.async().getPackageList());
+      }
+      assertTrue(large.getQuota().getInFlight() <= 2);
+      CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get();
+      // 6 calls, at most 2 at a time
+      assertTrue(System.nanoTime() - start >= 300_000_000L);
+      assertEquals(0, large.getQuota().getInFlight());
+
+      assertEquals(3, small.getPackageList().size());
+      assertEquals(3, large.getPackageList().size());
+      assertEquals(0, large.getQuota().getInFlight());
+      small.close();
+      assertThrows(IllegalStateException.class, small::getPackageList);
+      assertEquals(3, large.getPackageList().size());
+      assertNotNull(registry.remove("small"));
+      assertNull(registry.get("small"));
+    }
+  }
+
+  /**
+   * Tenants share the package index and the rate limiter settings of the template, but not their keys and buckets.
+   */
+  @Test
+  public void testTenantState() throws Exception {
+    RateLimiter limiter = new RateLimiter.Builder().setRate(100).build();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+         WeDoClientRegistry registry = new WeDoClientRegistry(new WeDoApi.Builder()
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setRateLimiter(limiter)
+             .setPackageIndex(new InMemoryPackageIndex()))) {
+      WeDoApi first = registry.register("first", "first_user", "first_key", "C1", 0);
+      WeDoApi second = registry.register("second", "second_user", "second_key", "C2", 0);
+
+      Pkg pkg = new Pkg();
+      pkg.setReferenceNumber("R1");
+      first.createPackage(pkg, "N2079");
+      first.createPackage(pkg, "N2079");
+      assertEquals(1, simulator.getCreatedPackageCount());
+      // the same reference number of another tenant is a package of its own
+      second.createPackage(pkg, "N2079");
+      assertEquals(2, simulator.getCreatedPackageCount());
+
+      assertTrue(limiter.getBuckets().isEmpty());
+      assertNotSame(first.getRateLimiter(), second.getRateLimiter());
+      assertEquals(1, first.getRateLimiter().getBuckets().size());
+      assertEquals(100, second.getRateLimiter().getRate());
+    }
+  }
+
+  /**
+   * An asynchronous call waiting for the quota past its deadline leaves the queue and is never sent.
+   */
+  @Test
+  public void testQuotaDeadline() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(300)).start();
+         WeDoClientRegistry registry = new WeDoClientRegistry(new WeDoApi.Builder()
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setTimeoutPolicy(new TimeoutPolicy.Builder().setDeadline(Duration.ofMillis(150)).build()))) {
+      WeDoApi tenant = registry.register("tenant", "api_user", "api_key", "C1", 1);
+      List<CompletableFuture<?>> calls = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        calls.add(tenant.async().createPackage(new Pkg(), "N2079"));
+      }
+      for (CompletableFuture<?> call : calls) {
+        ExecutionException e = assertThrows(ExecutionException.class, call::get);
+        assertInstanceOf(DeadlineExceededException.class, e.getCause().getCause());
+      }
+      assertEquals(0, tenant.getQuota().getWaiting());
+      TimeUnit.MILLISECONDS.sleep(1000);
+      assertEquals(1, simulator.getCreatedPackageCount());
+      assertEquals(0, tenant.getQuota().getInFlight());
+      assertEquals(0, tenant.getQuota().getWaiting());
+    }
+  }
+}
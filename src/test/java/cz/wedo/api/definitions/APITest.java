@@ -2,6 +2,8 @@ package cz.wedo.api.definitions;
 
 import org.junit.jupiter.api.Test;
 
+import java.net.URL;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -41,4 +43,15 @@ public class APITest {
         // Then the returned API environment is null, as there's no matching label
         assertNull(result);
     }
-}
\ No newline at end of file
+
+    /**
+     * Custom base URLs are normalized to end with a slash, whether given as a string or as a URL.
+     */
+    @Test
+    public void testBaseUrl() throws Exception {
+        assertEquals(new URL("http://localhost:8080/v2/"), API.parseBaseUrl("http://localhost:8080/v2"));
+        assertEquals(new URL("http://localhost:8080/v2/"), API.normalizeBaseUrl(new URL("http://localhost:8080/v2")));
+        assertEquals(new URL("http://localhost:8080/v2/"), API.normalizeBaseUrl(new URL("http://localhost:8080/v2/")));
+        assertEquals(new URL("http://localhost:8080/"), API.normalizeBaseUrl(new URL("http://localhost:8080")));
+    }
+}
@@ -0,0 +1,144 @@
+package cz.wedo.api.services.breaker;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.exceptions.CircuitBreakerOpenException;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.metrics.InMemoryMetricsRegistry;
+import cz.wedo.api.services.metrics.MetricsRegistry;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `CircuitBreakerTest` class contains test methods for the `CircuitBreaker` class.
+ */
+public class CircuitBreakerTest {
+  private static final long SECONDS = TimeUnit.SECONDS.toNanos(1);
+
+  private static CircuitBreaker breaker(AtomicLong now) {
+    return new CircuitBreakerRegistry.Builder()
+        .setWindowSize(4)
+        .setMinimumCalls(4)
+        .setSlowCallRateThreshold(0.75)
+        .setSlowCallDuration(Duration.ofSeconds(1))
+        .setOpenDuration(Duration.ofSeconds(10))
+        .setHalfOpenCalls(2)
+        .build(now::get)
+        .breaker("api", EndpointGroup.PACKAGE, MetricsRegistry.NOOP);
+  }
+
+  /**
+   * Endpoints are grouped by the backend part serving them.
+   */
+  @Test
+  public void testEndpointGroups() {
+    assertEquals(EndpointGroup.PACKAGE, EndpointGroup.of("package"));
+    assertEquals(EndpointGroup.PACKAGE, EndpointGroup.of("package/{id}"));
+    assertEquals(EndpointGroup.LABELS, EndpointGroup.of("package/{id}/colli/labels.zpl"));
+    assertEquals(EndpointGroup.LABELS, EndpointGroup.of("batch/{id}/labels.pdf"));
+    assertEquals(EndpointGroup.BATCH, EndpointGroup.of("batch/{id}/manifest.pdf"));
+    assertEquals(EndpointGroup.PICKUP, EndpointGroup.of("pickup"));
+    assertEquals(EndpointGroup.REFERENCE_LISTS, EndpointGroup.of("distribution-point"));
+    assertEquals(EndpointGroup.OTHER, EndpointGroup.of("unknown"));
+  }
+
+  /**
+   * The breaker opens when the failure rate reaches the threshold over the minimum number of calls.
+   */
+  @Test
+  public void testFailureRate() {
+    CircuitBreaker breaker = breaker(new AtomicLong());
+    for (boolean failed : new boolean[] {false, false, false, true}) {
+      breaker.acquire();
+      breaker.onResult(failed, 0);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertEquals(0.25, breaker.getFailureRate(), 1e-9);
+    breaker.acquire();
+    breaker.onResult(true, 0);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+    CircuitBreakerOpenException e = assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+    assertEquals(EndpointGroup.PACKAGE, e.getGroup());
+    assertEquals(Duration.ofSeconds(10), e.getRetryAfter());
+    assertEquals(1, breaker.getRejectedCalls());
+  }
+
+  /**
+   * The breaker opens when most calls are slow.
+   */
+  @Test
+  public void testSlowCallRate() {
+    CircuitBreaker breaker = breaker(new AtomicLong());
+    breaker.onResult(false, 0);
+    for (int i = 0; i < 3; i++) {
+      breaker.onResult(false, 2 * SECONDS);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  /**
+   * After the open duration probe calls close the breaker, or open it again when one fails.
+   */
+  @Test
+  public void testHalfOpen() {
+    AtomicLong now = new AtomicLong();
+    CircuitBreaker breaker = breaker(now);
+    for (int i = 0; i < 4; i++) {
+      breaker.onResult(true, 0);
+    }
+    now.addAndGet(10 * SECONDS);
+    breaker.acquire();
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    breaker.acquire();
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+    breaker.onResult(true, 0);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertEquals(2, breaker.getOpenedCount());
+
+    now.addAndGet(10 * SECONDS);
+    breaker.acquire();
+    breaker.release();
+    breaker.acquire();
+    breaker.acquire();
+    breaker.onResult(false, 0);
+    breaker.onResult(false, 0);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertEquals(0, breaker.getBufferedCalls());
+  }
+
+  /**
+   * A failing endpoint group fails fast while the other groups keep working, and the breaker shows up in the metrics.
+   */
+  @Test
+  public void testFailFast() throws Exception {
+    InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+    CircuitBreakerRegistry breakers = new CircuitBreakerRegistry.Builder().setWindowSize(4).setMinimumCalls(4).build();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE).setMetrics(metrics).setCircuitBreakers(breakers).build()) {
+      for (int i = 0; i < 4; i++) {
+        assertThrows(ErrorMessageException.class, api::getPackageList);
+      }
+      assertThrows(CircuitBreakerOpenException.class, api::getPackageList);
+      ExecutionException e = assertThrows(ExecutionException.class, () -> api.async().getPackageListByOrderNumber("46F00000012").get());
+      assertInstanceOf(CircuitBreakerOpenException.class, e.getCause());
+      assertEquals(4, simulator.getRequestCount());
+
+      assertThrows(ErrorMessageException.class, api::getPickupPlaceList);
+      assertEquals(5, simulator.getRequestCount());
+    }
+
+    String name = String.format("%s PACKAGE", breakers.getBreakers().values().iterator().next().getEnvironment());
+    assertEquals(CircuitBreaker.State.OPEN, metrics.getCircuitBreakers().get(name).getState());
+    assertEquals(2, metrics.getCircuitBreakers().get(name).getRejectedCalls());
+    assertEquals(2, metrics.getCircuitBreakers().size());
+  }
+}
@@ -0,0 +1,215 @@
+package cz.wedo.api.services.bulk;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.definitions.Dimensions;
+import cz.wedo.api.definitions.Format;
+import cz.wedo.api.exceptions.BadRequestException;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.models.responses.PkgResponse;
+import cz.wedo.api.services.idempotency.InMemoryPackageIndex;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `BulkExecutorTest` class contains test methods for the `BulkExecutor` class.
+ */
+public class BulkExecutorTest {
+
+  /**
+   * The outcomes keep the input order although the items complete out of order, and at most the parallelism is in flight.
+   */
+  @Test
+  public void testOrderAndParallelism() {
+    List<Integer> items = IntStream.range(0, 40).boxed().collect(Collectors.toList());
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    List<BulkResult<Integer>> results = BulkExecutor.run(items, 4, item -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        TimeUnit.MILLISECONDS.sleep(item % 3 * 5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      inFlight.decrementAndGet();
+      return item * 2;
+    }, null);
+
+    assertEquals(40, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertEquals(i * 2, results.get(i).getValue());
+    }
+    assertTrue(maxInFlight.get() <= 4, String.valueOf(maxInFlight.get()));
+    assertThrows(IllegalArgumentException.class, () -> BulkExecutor.run(items, 0, item -> item, null));
+    assertTrue(BulkExecutor.run(List.of(), 4, item -> item, null).isEmpty());
+  }
+
+  /**
+   * Asynchronous calls are started from the calling thread with at most the parallelism in flight, and the outcomes keep the input order.
+   */
+  @Test
+  public void testRunAsync() {
+    List<Integer> items = IntStream.range(0, 40).boxed().collect(Collectors.toList());
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    Thread caller = Thread.currentThread();
+    ConcurrentLinkedQueue<Thread> starters = new ConcurrentLinkedQueue<>();
+    AtomicInteger progress = new AtomicInteger();
+    List<BulkResult<Integer>> results = BulkExecutor.runAsync(items, 4, item -> {
+      starters.add(Thread.currentThread());
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      if (item == 7) {
+        inFlight.decrementAndGet();
+        return CompletableFuture.failedFuture(new RuntimeException(new BadRequestException("Invalid package")));
+      }
+      return CompletableFuture.supplyAsync(() -> {
+        inFlight.decrementAndGet();
+        return item * 2;
+      }, CompletableFuture.delayedExecutor(item % 3 * 5, TimeUnit.MILLISECONDS));
+    }, (result, count, total) -> progress.incrementAndGet());
+
+    assertEquals(40, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertEquals(i != 7, results.get(i).isSuccess());
+      if (i != 7) {
+        assertEquals(i * 2, results.get(i).getValue());
+      }
+    }
+    assertEquals(400, results.get(7).getError().getStatusCode());
+    assertEquals(40, progress.get());
+    assertTrue(maxInFlight.get() <= 4, String.valueOf(maxInFlight.get()));
+    assertTrue(starters.stream().allMatch(caller::equals));
+    assertThrows(IllegalArgumentException.class, () -> BulkExecutor.runAsync(items, 0, CompletableFuture::completedFuture, null));
+    assertTrue(BulkExecutor.runAsync(List.of(), 4, CompletableFuture::completedFuture, null).isEmpty());
+  }
+
+  /**
+   * Failed items carry their error and do not stop the others; every item is reported to the listener.
+   */
+  @Test
+  public void testFailuresAndProgress() {
+    ConcurrentLinkedQueue<Integer> completed = new ConcurrentLinkedQueue<>();
+    List<BulkResult<String>> results = BulkExecutor.run(List.of(1, 2, 3, 4), 2, item -> {
+      if (item == 2) {
+        ErrorMessageException e = new ErrorMessageException();
+        e.setStatusCode(503);
+        throw e;
+      }
+      if (item == 3) {
+        throw new RuntimeException(new BadRequestException("Invalid package"));
+      }
+      return String.valueOf(item);
+    }, (result, count, total) -> {
+      assertEquals(4, total);
+      completed.add(count);
+    });
+
+    assertTrue(results.get(0).isSuccess());
+    assertEquals(503, results.get(1).getError().getStatusCode());
+    assertEquals(400, results.get(2).getError().getStatusCode());
+    assertInstanceOf(BadRequestException.class, results.get(2).getError().getCause());
+    assertEquals("4", results.get(3).getValue());
+    assertEquals(List.of(1, 2, 3, 4), completed.stream().sorted().collect(Collectors.toList()));
+  }
+
+  /**
+   * A wave of packages is created concurrently and every outcome matches its package.
+   */
+  @Test
+  public void testCreatePackages() throws Exception {
+    InMemoryPackageIndex index = new InMemoryPackageIndex();
+    List<Pkg> packages = IntStream.range(0, 50).mapToObj(i -> {
+      Pkg pkg = new Pkg();
+      pkg.setReferenceNumber(String.format("REF%05d", i));
+      return pkg;
+    }).collect(Collectors.toList());
+    AtomicInteger progress = new AtomicInteger();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(5)).start();
+         WeDoApi api = new WeDoApi.Builder()
+             .setApiUser("api_user")
+             .setApiKey("api_key")
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setPackageIndex(index)
+             .build()) {
+      List<BulkResult<PkgResponse>> results = api.createPackages(packages, "N2079", 8, (result, count, total) -> progress.incrementAndGet());
+
+      assertEquals(50, simulator.getCreatedPackageCount());
+      assertEquals(50, progress.get());
+      for (int i = 0; i < packages.size(); i++) {
+        assertTrue(results.get(i).isSuccess());
+        assertEquals(index.get("N2079", packages.get(i).getReferenceNumber()), results.get(i).getValue().getOrderNumber());
+      }
+      assertTrue(simulator.getConnectionCount() <= 8);
+    }
+  }
+
+  /**
+   * Labels are downloaded concurrently into the directory; a label that cannot be saved fails alone.
+   */
+  @Test
+  public void testSaveLabels(@TempDir Path dir) throws Exception {
+    List<String> orderNumbers = IntStream.range(0, 30).mapToObj(i -> String.format("46F%08d", i)).collect(Collectors.toList());
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(5)).setLabelSize(2048).start();
+         WeDoApi api = new WeDoApi.Builder()
+             .setApiUser("api_user")
+             .setApiKey("api_key")
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .build()) {
+      List<BulkResult<Path>> results = api.saveLabels(orderNumbers, Format.PDF, Dimensions.LABEL, dir.resolve("labels"), 6);
+      for (int i = 0; i < orderNumbers.size(); i++) {
+        assertEquals(dir.resolve("labels").resolve(orderNumbers.get(i) + ".pdf"), results.get(i).getValue());
+        assertEquals(2048, Files.size(results.get(i).getValue()));
+      }
+      assertEquals(30, simulator.getRequestCount());
+
+      results = api.saveLabels(List.of("46F00000001", "46F00000002"), Format.ZPL, null,
+          id -> id.endsWith("1") ? dir.resolve("missing").resolve(id) : dir.resolve(id), 2, null);
+      assertFalse(results.get(0).isSuccess());
+      assertEquals(dir.resolve("46F00000002"), results.get(1).getValue());
+    }
+  }
+
+  /**
+   * With HTTP/2 selected, bulk operations go over the non-blocking transport, falling back to HTTP/1.1 against the simulator.
+   */
+  @Test
+  public void testHttp2(@TempDir Path dir) throws Exception {
+    List<Pkg> packages = IntStream.range(0, 20).mapToObj(i -> new Pkg()).collect(Collectors.toList());
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(5)).setLabelSize(1024).start();
+         WeDoApi api = new WeDoApi.Builder()
+             .setApiUser("api_user")
+             .setApiKey("api_key")
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setHttpVersion(HttpClient.Version.HTTP_2)
+             .build()) {
+      List<BulkResult<PkgResponse>> created = api.createPackages(packages, "N2079", 16);
+      assertTrue(created.stream().allMatch(BulkResult::isSuccess));
+      assertEquals(20, simulator.getCreatedPackageCount());
+
+      List<BulkResult<Path>> labels = api.saveLabels(List.of("46F00000001", "46F00000002"), Format.PDF, null, dir, 16);
+      assertEquals(1024, Files.size(labels.get(1).getValue()));
+      assertEquals(22, simulator.getRequestCount());
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package cz.wedo.api.services.cache;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `RefreshingCacheTest` class contains test methods for the `RefreshingCache` class.
+ */
+public class RefreshingCacheTest {
+  private static final CachePolicy POLICY = new CachePolicy.Builder().setTtl(Duration.ofSeconds(10)).setRefreshAfter(Duration.ofSeconds(5)).build();
+
+  private static final long SECOND = 1_000_000_000L;
+
+  /**
+   * A fresh value is served from the cache, a value due for refresh is served while it is refreshed in the background,
+   * an expired or invalidated value is loaded again.
+   */
+  @Test
+  public void testLifetime() throws Exception {
+    AtomicLong now = new AtomicLong();
+    AtomicInteger loads = new AtomicInteger();
+    Queue<Runnable> refreshes = new ArrayDeque<>();
+    RefreshingCache<Integer> cache = new RefreshingCache<>(POLICY, loads::incrementAndGet, refreshes::add, now::get);
+
+    assertNull(cache.getIfPresent());
+    assertEquals(1, cache.get());
+    now.set(4 * SECOND);
+    assertEquals(1, cache.get());
+    assertTrue(refreshes.isEmpty());
+
+    now.set(6 * SECOND);
+    assertEquals(1, cache.get());
+    assertEquals(1, cache.get());
+    assertEquals(1, refreshes.size());
+    refreshes.poll().run();
+    assertEquals(2, cache.get());
+
+    now.set(17 * SECOND);
+    assertNull(cache.getIfPresent());
+    assertEquals(3, cache.get());
+
+    cache.invalidate();
+    assertEquals(4, cache.get());
+    assertEquals(4, loads.get());
+  }
+
+  /**
+   * A failed refresh keeps the previous value, and a refresh finishing after an invalidation does not restore it.
+   */
+  @Test
+  public void testFailedRefresh() throws Exception {
+    AtomicLong now = new AtomicLong();
+    AtomicInteger loads = new AtomicInteger();
+    Queue<Runnable> refreshes = new ArrayDeque<>();
+    RefreshingCache<Integer> cache = new RefreshingCache<>(POLICY, () -> {
+      if (loads.incrementAndGet() == 2) {
+        throw new ErrorMessageException();
+      }
+      return loads.get();
+    }, refreshes::add, now::get);
+
+    assertEquals(1, cache.get());
+    now.set(6 * SECOND);
+    assertEquals(1, cache.get());
+    refreshes.poll().run();
+    assertEquals(1, cache.get());
+
+    refreshes.poll().run();
+    assertEquals(3, cache.get());
+    now.set(12 * SECOND);
+    cache.getIfPresent();
+    cache.invalidate();
+    refreshes.poll().run();
+    assertNull(cache.getIfPresent());
+    assertThrows(IllegalArgumentException.class, () -> new CachePolicy.Builder().setTtl(Duration.ofSeconds(1)).setRefreshAfter(Duration.ofSeconds(2)).build());
+  }
+
+  /**
+   * Pickup places and distribution points are requested once while cached, by both the blocking and the asynchronous API.
+   */
+  @Test
+  public void testReferenceData() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+         WeDoApi api = new WeDoApi.Builder()
+             .setApiUser("api_user")
+             .setApiKey("api_key")
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setCachePolicy(CachePolicy.DEFAULT)
+             .build()) {
+      for (int i = 0; i < 3; i++) {
+        assertEquals(3, api.getPickupPlaceList().getWedo().getPickupPlaces().size());
+        assertEquals(3, api.async().getPickupPlaceList().get().getWedo().getPickupPlaces().size());
+      }
+      assertEquals(1, simulator.getRequestCount());
+
+      api.async().getDistributionPointList().get();
+      api.getDistributionPointList();
+      assertEquals(2, simulator.getRequestCount());
+
+      api.invalidateReferenceData();
+      api.getPickupPlaceList();
+      api.getDistributionPointList();
+      assertEquals(4, simulator.getRequestCount());
+    }
+  }
+}
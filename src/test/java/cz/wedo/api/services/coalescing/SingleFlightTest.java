@@ -0,0 +1,138 @@
+package cz.wedo.api.services.coalescing;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.models.responses.PkgResponse;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `SingleFlightTest` class contains test methods for the `SingleFlight` class.
+ */
+public class SingleFlightTest {
+
+  /**
+   * Identical calls started while one is in flight share its outcome, a later call is sent again.
+   */
+  @Test
+  public void testCoalescing() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+        calls.incrementAndGet();
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return "value";
+      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      List<Future<String>> followers = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        followers.add(executor.submit(() -> singleFlight.execute("key", () -> "other")));
+      }
+      while (singleFlight.getCoalescedCount() < 3) {
+        Thread.sleep(1);
+      }
+      assertEquals("other", singleFlight.execute("another key", () -> "other"));
+      release.countDown();
+
+      assertEquals("value", leader.get());
+      for (Future<String> follower : followers) {
+        assertEquals("value", follower.get());
+      }
+      assertEquals(1, calls.get());
+      assertEquals(0, singleFlight.getInFlightCount());
+      assertEquals("again", singleFlight.execute("key", () -> "again"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The failure of a coalesced call is thrown to every caller, an asynchronous caller may cancel its own future alone.
+   */
+  @Test
+  public void testFailureAndAsync() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    ErrorMessageException error = new ErrorMessageException();
+    error.setStatusCode(404);
+    assertSame(error, assertThrows(ErrorMessageException.class, () -> singleFlight.execute("key", () -> {
+      throw error;
+    })));
+
+    CompletableFuture<String> response = new CompletableFuture<>();
+    CompletableFuture<String> first = singleFlight.executeAsync("key", () -> response);
+    CompletableFuture<String> second = singleFlight.executeAsync("key", () -> CompletableFuture.completedFuture("other"));
+    assertEquals(1, singleFlight.getInFlightCount());
+    second.cancel(false);
+    response.complete("value");
+    assertEquals("value", first.get());
+    assertTrue(second.isCancelled());
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  /**
+   * Concurrent lookups of the same package send one request when coalescing is enabled; it is disabled by default.
+   */
+  @Test
+  public void testIdenticalRequests() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(300)).start()) {
+      try (WeDoApi api = simulator.clientBuilder().setCoalesceRequests(true).build()) {
+        assertEquals(List.of("46F00000012"), lookup(api, 8));
+        assertTrue(simulator.getRequestCount() <= 2, String.valueOf(simulator.getRequestCount()));
+      }
+      simulator.resetCounters();
+      try (WeDoApi api = simulator.clientBuilder().setCoalesceRequests(false).build()) {
+        lookup(api, 4);
+        assertEquals(4, simulator.getRequestCount());
+      }
+      simulator.resetCounters();
+      try (WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).build()) {
+        lookup(api, 4);
+        assertEquals(4, simulator.getRequestCount());
+      }
+    }
+  }
+
+  private static List<String> lookup(WeDoApi api, int callers) throws InterruptedException, ExecutionException {
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<PkgResponse>> responses = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        responses.add(executor.submit(() -> api.getPackageListByOrderNumber("46F00000012")));
+      }
+      List<String> orderNumbers = new ArrayList<>();
+      for (Future<PkgResponse> response : responses) {
+        String orderNumber = response.get().getOrderNumber();
+        if (!orderNumbers.contains(orderNumber)) {
+          orderNumbers.add(orderNumber);
+        }
+      }
+      return orderNumbers;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
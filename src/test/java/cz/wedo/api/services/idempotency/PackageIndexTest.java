@@ -0,0 +1,180 @@
+package cz.wedo.api.services.idempotency;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.models.responses.PkgResponse;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `PackageIndexTest` class contains test methods for the package indexes and idempotent package creation.
+ */
+public class PackageIndexTest {
+
+
+  private static Pkg pkg(String referenceNumber) {
+    Pkg pkg = new Pkg();
+    pkg.setReferenceNumber(referenceNumber);
+    return pkg;
+  }
+
+  /**
+   * The file index survives reopening, replays removals and compacts its log.
+   */
+  @Test
+  public void testFileIndex(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("packages.idx");
+    try (FilePackageIndex index = new FilePackageIndex(file)) {
+      index.put(null, "777888993", PackageIndex.PENDING);
+      index.put(null, "777888993", "46F00000001");
+      index.put("D1", "777888993", "46F00000002");
+      index.put("D1", "tab\there", PackageIndex.PENDING);
+      index.put("D1", "removed", "46F00000003");
+      index.remove("D1", "removed");
+    }
+    assertEquals(6, Files.readAllLines(file).size());
+
+    try (FilePackageIndex index = new FilePackageIndex(file, true)) {
+      assertEquals("46F00000001", index.get(null, "777888993"));
+      assertEquals("46F00000002", index.get("D1", "777888993"));
+      assertEquals(PackageIndex.PENDING, index.get("D1", "tab\there"));
+      assertNull(index.get("D1", "removed"));
+      assertEquals(3, index.size());
+    }
+    assertEquals(3, Files.readAllLines(file).size());
+  }
+
+  /**
+   * A line torn by a crash is ignored.
+   */
+  @Test
+  public void testTornLine(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("packages.idx");
+    try (FilePackageIndex index = new FilePackageIndex(file)) {
+      index.put(null, "777888993", "46F00000001");
+    }
+    Files.write(file, "\t777888994\t46F0".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    try (FilePackageIndex index = new FilePackageIndex(file)) {
+      assertNull(index.get(null, "777888994"));
+      index.put(null, "777888995", "46F00000003");
+    }
+    try (FilePackageIndex index = new FilePackageIndex(file)) {
+      assertEquals("46F00000001", index.get(null, "777888993"));
+      assertEquals("46F00000003", index.get(null, "777888995"));
+    }
+  }
+
+  /**
+   * A package created again is answered from the index without posting it.
+   */
+  @Test
+  public void testCreateTwice() throws Exception {
+    InMemoryPackageIndex index = new InMemoryPackageIndex();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+         WeDoApi api = simulator.clientBuilder().setPackageIndex(index).build()) {
+      String orderNumber = api.createPackage(pkg("777888993"), null).getOrderNumber();
+      assertEquals(orderNumber, index.get(null, "777888993"));
+      assertEquals(orderNumber, api.createPackage(pkg("777888993"), null).getOrderNumber());
+      assertEquals(orderNumber, api.async().createPackage(pkg("777888993"), null).get().getOrderNumber());
+      assertEquals(1, simulator.getCreatedPackageCount());
+
+      api.createPackage(pkg("777888994"), null);
+      api.createPackage(pkg("777888994"), "D1");
+      assertEquals(3, simulator.getCreatedPackageCount());
+    }
+  }
+
+  /**
+   * A package created by the server whose response was lost is reconciled with the package list instead of failing.
+   */
+  @Test
+  public void testLostResponse() throws Exception {
+    InMemoryPackageIndex index = new InMemoryPackageIndex();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLostResponseRate(1).start();
+         WeDoApi api = simulator.clientBuilder().setPackageIndex(index).build()) {
+      PkgResponse created = api.createPackage(pkg("777888993"), null);
+      assertEquals("46F00000001", created.getOrderNumber());
+      assertEquals("46F00000001", index.get(null, "777888993"));
+
+      assertEquals("46F00000002", api.async().createPackage(pkg("777888994"), null).get().getOrderNumber());
+      assertEquals("46F00000002", index.get(null, "777888994"));
+      assertEquals(2, simulator.getCreatedPackageCount());
+    }
+  }
+
+  /**
+   * A pending package is reconciled before it is posted again, a rejected one is removed from the index.
+   */
+  @Test
+  public void testPendingPackage() throws Exception {
+    InMemoryPackageIndex index = new InMemoryPackageIndex();
+    index.put(null, "777888993", PackageIndex.PENDING);
+    index.put(null, "000000001", PackageIndex.PENDING);
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(5).start();
+         WeDoApi api = simulator.clientBuilder().setPackageIndex(index).build()) {
+      assertEquals("46F00000001", api.createPackage(pkg("000000001"), null).getOrderNumber());
+      assertEquals("46F00000001", api.createPackage(pkg("777888993"), null).getOrderNumber());
+      assertEquals(1, simulator.getCreatedPackageCount());
+      assertEquals("46F00000001", index.get(null, "777888993"));
+    }
+
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(422).start();
+         WeDoApi api = simulator.clientBuilder().setPackageIndex(index).build()) {
+      assertThrows(ErrorMessageException.class, () -> api.createPackage(pkg("777888995"), null));
+      assertNull(index.get(null, "777888995"));
+    }
+  }
+
+  /**
+   * A pending package whose lookup fails is not posted again.
+   */
+  @Test
+  public void testFailedLookup() throws Exception {
+    InMemoryPackageIndex index = new InMemoryPackageIndex();
+    index.put(null, "777888993", PackageIndex.PENDING);
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setMalformedPackageList(true).start();
+         WeDoApi api = simulator.clientBuilder().setPackageIndex(index).build()) {
+      assertThrows(ErrorMessageException.class, () -> api.streamPackageList().close());
+      assertThrows(ErrorMessageException.class, () -> api.createPackage(pkg("777888993"), null));
+      assertEquals(0, simulator.getCreatedPackageCount());
+      assertEquals(PackageIndex.PENDING, index.get(null, "777888993"));
+    }
+  }
+
+  /**
+   * Concurrent submissions of the same package create it once.
+   */
+  @Test
+  public void testConcurrentCreate() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+         WeDoApi api = simulator.clientBuilder().setPackageIndex(new InMemoryPackageIndex()).build()) {
+      List<CompletableFuture<PkgResponse>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(api.async().createPackage(pkg("777888993"), null));
+        futures.add(CompletableFuture.supplyAsync(() -> {
+          try {
+            return api.createPackage(pkg("777888993"), null);
+          } catch (ErrorMessageException e) {
+            throw new IllegalStateException(e);
+          }
+        }));
+      }
+      for (CompletableFuture<PkgResponse> future : futures) {
+        assertEquals("46F00000001", future.get().getOrderNumber());
+      }
+      assertEquals(1, simulator.getCreatedPackageCount());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package cz.wedo.api.services.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `LatencyHistogramTest` class contains test methods for the `LatencyHistogram` class.
+ */
+public class LatencyHistogramTest {
+
+  /**
+   * Percentiles of a uniform distribution are within the bucket precision.
+   */
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 10_000; i++) {
+      histogram.record(i * 1_000);
+    }
+
+    assertEquals(10_000, histogram.getCount());
+    assertEquals(10_000_000, histogram.getMax());
+    assertEquals(5_000_000, histogram.getValueAtQuantile(0.5), 5_000_000 * 0.07);
+    assertEquals(9_900_000, histogram.getValueAtQuantile(0.99), 9_900_000 * 0.07);
+    assertEquals(9_990_000, histogram.getValueAtQuantile(0.999), 9_990_000 * 0.07);
+    assertEquals(10_000_000, histogram.getValueAtQuantile(1));
+  }
+
+  /**
+   * Every value falls into a bucket whose upper bound is not below it, across the whole range.
+   */
+  @Test
+  public void testBuckets() {
+    for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000_000, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+      long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+      assertTrue(highest >= value, String.format("%d > %d", value, highest));
+      assertTrue(highest - value <= Math.max(value / 16, 0), String.format("%d much below %d", value, highest));
+    }
+  }
+
+  /**
+   * An empty or reset histogram reports zero.
+   */
+  @Test
+  public void testReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getValueAtQuantile(0.99));
+    histogram.record(42);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+  }
+}
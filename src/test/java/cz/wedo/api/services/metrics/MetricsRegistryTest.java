@@ -0,0 +1,90 @@
+package cz.wedo.api.services.metrics;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `MetricsRegistryTest` class checks the metrics recorded for calls against the simulator.
+ */
+public class MetricsRegistryTest {
+
+  /**
+   * Identifiers are replaced in the path templates.
+   */
+  @Test
+  public void testPathTemplate() {
+    assertEquals("package", MetricsRegistry.pathTemplate("package"));
+    assertEquals("package/{id}", MetricsRegistry.pathTemplate("package/46F00000012"));
+    assertEquals("package/{id}/labels.pdf", MetricsRegistry.pathTemplate("package/46F00000012/labels.pdf"));
+    assertEquals("batch/{id}/manifest.pdf", MetricsRegistry.pathTemplate("batch/IT-46F-20230412212520/manifest.pdf"));
+    assertEquals("pickup-place", MetricsRegistry.pathTemplate("pickup-place"));
+  }
+
+  /**
+   * Calls, errors, bytes and latencies are recorded per endpoint.
+   */
+  @Test
+  public void testRecordedCalls() throws Exception {
+    InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(100).start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setMetrics(metrics).build()) {
+      api.getPackageList();
+      api.getPackageList();
+      api.getPackageListByOrderNumber("46F00000012");
+      api.async().getPickupPlaceList().get();
+    }
+
+    EndpointMetrics list = metrics.getEndpoint(RequestType.GET, "package");
+    assertEquals(2, list.getCalls());
+    assertEquals(0, list.getErrors());
+    assertTrue(list.getResponseBytes() > 100 * 50);
+    assertTrue(list.getLatencyP99Millis() > 0);
+    assertEquals(1, metrics.getEndpoint(RequestType.GET, "package/{id}").getCalls());
+    assertEquals(1, metrics.getEndpoint(RequestType.GET, "pickup-place").getCalls());
+    assertTrue(metrics.getEndpoint(RequestType.GET, "pickup-place").getResponseBytes() > 0);
+  }
+
+  /**
+   * Error responses are counted by status.
+   */
+  @Test
+  public void testErrors() throws Exception {
+    InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(503).start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setMetrics(metrics)
+             .setRetryPolicy(RetryPolicy.NONE).build()) {
+      assertThrows(ErrorMessageException.class, api::getPackageList);
+    }
+
+    EndpointMetrics list = metrics.getEndpoint(RequestType.GET, "package");
+    assertEquals(1, list.getErrors());
+    assertEquals(1L, list.getErrorsByStatus().get(503));
+  }
+
+  /**
+   * The JMX exporter registers one MXBean per endpoint and unregisters them when closed.
+   */
+  @Test
+  public void testJmxExporter() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("cz.wedo.api:type=Endpoint,client=\"test\",method=GET,path=\"package/{id}\"");
+    try (JmxMetricsExporter exporter = new JmxMetricsExporter("test")) {
+      exporter.record(RequestType.GET, "package/{id}", 200, 0, 512, 2_000_000);
+
+      assertTrue(server.isRegistered(name));
+      assertEquals(1L, server.getAttribute(name, "Calls"));
+      assertEquals(512L, server.getAttribute(name, "ResponseBytes"));
+    }
+    assertFalse(server.isRegistered(name));
+  }
+}
@@ -0,0 +1,155 @@
+package cz.wedo.api.services.pickup;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.models.responses.AddressResponse;
+import cz.wedo.api.models.responses.PickupPlaceItemResponse;
+import cz.wedo.api.services.cache.CachePolicy;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `PickupPlaceIndexTest` class contains test methods for the `PickupPlaceIndex` class.
+ */
+public class PickupPlaceIndexTest {
+
+  private static PickupPlaceItemResponse place(String code, String name, String city, String postalCode, String type, boolean regularPickup) {
+    AddressResponse address = new AddressResponse();
+    address.setCity(city);
+    address.setPostalCode(postalCode);
+    PickupPlaceItemResponse place = new PickupPlaceItemResponse();
+    place.setCode(code);
+    place.setName(name);
+    place.setType(type);
+    place.setRegularPickup(regularPickup);
+    place.setAddress(address);
+    return place;
+  }
+
+  private static List<String> codes(List<PickupPlaceItemResponse> places) {
+    return places.stream().map(PickupPlaceItemResponse::getCode).collect(Collectors.toList());
+  }
+
+  private static final List<PickupPlaceItemResponse> PLACES = List.of(
+      place("N00001", "Sklad Žďár", "Žďár nad Sázavou", "591 01", "COURIER", true),
+      place("N00002", "Pobočka Brno-střed", "Brno", "60200", "BOX", false),
+      place("N00003", "Sklad Brno", "Brno", "61600", "COURIER", false),
+      place("N00004", "Výdejna Řečkovice", "Brno", "62100", "BOX", true));
+
+  /**
+   * Places are found by code and by prefixes of their words, without case and diacritics.
+   */
+  @Test
+  public void testSearch() {
+    PickupPlaceIndex index = PickupPlaceIndex.of(PLACES);
+    assertEquals(4, index.size());
+    assertEquals("Sklad Brno", index.getByCode("N00003").getName());
+    assertNull(index.getByCode("N99999"));
+
+    assertEquals(List.of("N00001"), codes(index.search("zdar", 10)));
+    assertEquals(List.of("N00001"), codes(index.search("ŽĎÁR NAD", 10)));
+    assertEquals(List.of("N00004"), codes(index.search("reck", 10)));
+    assertEquals(List.of("N00001", "N00003"), codes(index.search("sklad", 10)));
+    assertEquals(List.of("N00003"), codes(index.search("sklad brn", 10)));
+    assertEquals(List.of("N00001"), codes(index.search("591 01", 10)));
+    assertEquals(List.of("N00001"), codes(index.search("59101", 10)));
+    assertEquals(List.of("N00002"), codes(index.search("n00002", 10)));
+    assertEquals(3, index.search("brno", 10).size());
+    assertEquals(2, index.search("brno", 2).size());
+    assertTrue(index.search("praha", 10).isEmpty());
+  }
+
+  /**
+   * Results are filtered by type and pickup regime.
+   */
+  @Test
+  public void testFilters() {
+    PickupPlaceIndex index = PickupPlaceIndex.of(PLACES);
+    assertEquals(List.of("N00002", "N00004"), codes(index.search("", "BOX", null, 10)));
+    assertEquals(List.of("N00004"), codes(index.search("brno", "BOX", true, 10)));
+    assertEquals(List.of("N00001", "N00004"), codes(index.search(null, null, true, 10)));
+  }
+
+  /**
+   * An update keeps the unchanged places, re-indexes changed ones and drops removed ones, without affecting the previous index.
+   */
+  @Test
+  public void testUpdate() {
+    PickupPlaceIndex index = PickupPlaceIndex.of(PLACES);
+    PickupPlaceIndex updated = index.update(List.of(
+        PLACES.get(0),
+        place("N00003", "Sklad Olomouc", "Olomouc", "77900", "COURIER", false),
+        PLACES.get(3),
+        place("N00005", "Výdejna Praha", "Praha", "11000", "BOX", true)));
+
+    assertEquals(4, updated.size());
+    assertNull(updated.getByCode("N00002"));
+    assertEquals(List.of("N00004"), codes(updated.search("brno", 10)));
+    assertEquals(List.of("N00003"), codes(updated.search("olom", 10)));
+    assertEquals(List.of("N00005"), codes(updated.search("praha", 10)));
+    assertEquals(List.of("N00001", "N00003", "N00004", "N00005"), codes(updated.getPlaces()));
+
+    assertEquals(3, index.search("brno", 10).size());
+    assertTrue(index.search("olom", 10).isEmpty());
+    assertTrue(index.update(List.of()).search("brno", 10).isEmpty());
+  }
+
+  /**
+   * The client keeps the index of its cached pickup places.
+   */
+  @Test
+  public void testClientIndex() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPickupPlaceCount(50).start();
+         WeDoApi api = new WeDoApi.Builder()
+             .setApiUser("api_user")
+             .setApiKey("api_key")
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .setCachePolicy(CachePolicy.DEFAULT)
+             .build()) {
+      PickupPlaceIndex index = api.getPickupPlaceIndex();
+      assertEquals(50, index.size());
+      assertEquals("N00007", index.getByCode("N00007").getCode());
+      assertEquals(50, index.search("brno", 100).size());
+      assertSame(index, api.getPickupPlaceIndex());
+      assertEquals(1, simulator.getRequestCount());
+
+      api.invalidateReferenceData();
+      assertNotSame(index, api.getPickupPlaceIndex());
+    }
+  }
+
+  /**
+   * Without a cache policy, the index is built once and kept until it is refreshed explicitly.
+   */
+  @Test
+  public void testClientIndexWithoutCache() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPickupPlaceCount(50).start();
+         WeDoApi api = new WeDoApi.Builder()
+             .setApiUser("api_user")
+             .setApiKey("api_key")
+             .setBaseUrl(simulator.getBaseUrl())
+             .setRetryPolicy(RetryPolicy.NONE)
+             .build()) {
+      PickupPlaceIndex index = api.getPickupPlaceIndex();
+      assertEquals(50, index.size());
+      for (int i = 0; i < 10; i++) {
+        assertSame(index, api.getPickupPlaceIndex());
+      }
+      assertEquals(1, simulator.getRequestCount());
+
+      PickupPlaceIndex refreshed = api.refreshPickupPlaceIndex();
+      assertEquals(2, simulator.getRequestCount());
+      assertSame(refreshed, api.getPickupPlaceIndex());
+
+      api.invalidateReferenceData();
+      assertEquals(50, api.getPickupPlaceIndex().size());
+      assertEquals(3, simulator.getRequestCount());
+    }
+  }
+}
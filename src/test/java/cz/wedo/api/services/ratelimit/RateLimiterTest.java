@@ -0,0 +1,134 @@
+package cz.wedo.api.services.ratelimit;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `RateLimiterTest` class contains test methods for the `RateLimiter` and `TokenBucket` classes.
+ */
+public class RateLimiterTest {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Requests beyond the burst are queued one rate interval apart.
+   */
+  @Test
+  public void testPacing() {
+    AtomicLong now = new AtomicLong();
+    TokenBucket bucket = new RateLimiter.Builder().setRate(10).setBurst(2).build(now::get).bucket("api", null);
+    assertEquals(0, bucket.reserve());
+    assertEquals(0, bucket.reserve());
+    assertEquals(100 * MILLIS, bucket.reserve());
+    assertEquals(200 * MILLIS, bucket.reserve());
+
+    now.addAndGet(1000 * MILLIS);
+    assertEquals(2, bucket.getAvailableTokens(), 1e-9);
+  }
+
+  /**
+   * A caller that would wait too long takes no token, so the callers after it are not delayed.
+   */
+  @Test
+  public void testTryReserve() {
+    AtomicLong now = new AtomicLong();
+    TokenBucket bucket = new RateLimiter.Builder().setRate(10).setBurst(1).build(now::get).bucket("api", null);
+    assertEquals(0, bucket.tryReserve(1));
+    for (int i = 0; i < 100; i++) {
+      assertEquals(-1, bucket.tryReserve(50 * MILLIS));
+    }
+    assertEquals(0, bucket.getAvailableTokens(), 1e-9);
+    assertEquals(100 * MILLIS, bucket.tryReserve(150 * MILLIS));
+    assertEquals(200 * MILLIS, bucket.reserve());
+  }
+
+  /**
+   * A 429 halves the rate and pauses the bucket for the Retry-After delay, successes restore the rate.
+   */
+  @Test
+  public void testThrottled() {
+    AtomicLong now = new AtomicLong();
+    TokenBucket bucket = new RateLimiter.Builder().setRate(10).setMinRate(4).build(now::get).bucket("api", null);
+    assertEquals(0, bucket.reserve());
+    bucket.onResponse(429, "2");
+    assertEquals(5, bucket.getRate(), 1e-9);
+    assertEquals(2000 * MILLIS + 200 * MILLIS, bucket.reserve());
+
+    bucket.onResponse(429, null);
+    assertEquals(4, bucket.getRate(), 1e-9);
+    for (int i = 0; i < 50; i++) {
+      bucket.onResponse(200, null);
+    }
+    assertEquals(10, bucket.getRate(), 1e-9);
+    bucket.onResponse(500, null);
+    assertEquals(10, bucket.getRate(), 1e-9);
+  }
+
+  /**
+   * Environments always have their own buckets, departments only when enabled.
+   */
+  @Test
+  public void testBuckets() {
+    RateLimiter shared = new RateLimiter.Builder().build();
+    assertSame(shared.bucket("api", "D1"), shared.bucket("api", "D2"));
+    assertNotSame(shared.bucket("api", null), shared.bucket("test-api", null));
+
+    RateLimiter perDepartment = new RateLimiter.Builder().setPerDepartment(true).build();
+    assertNotSame(perDepartment.bucket("api", "D1"), perDepartment.bucket("api", "D2"));
+    assertSame(perDepartment.bucket("api", null), perDepartment.bucket("api", null));
+    assertEquals(3, perDepartment.getBuckets().size());
+  }
+
+  /**
+   * Concurrent blocking and asynchronous calls are paced together.
+   */
+  @Test
+  public void testPacedCalls() throws Exception {
+    RateLimiter limiter = new RateLimiter.Builder().setRate(20).build();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setRateLimiter(limiter)
+             .setCoalesceRequests(false).build()) {
+      long start = System.nanoTime();
+      List<CompletableFuture<?>> calls = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        calls.add(api.async().getPickupPlaceList());
+        calls.add(CompletableFuture.runAsync(() -> {
+          try {
+            api.getPickupPlaceList();
+          } catch (ErrorMessageException e) {
+            throw new IllegalStateException(e);
+          }
+        }));
+      }
+      CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get();
+      assertTrue(System.nanoTime() - start >= 9 * 50 * MILLIS - 10 * MILLIS);
+      assertEquals(10, simulator.getRequestCount());
+    }
+  }
+
+  /**
+   * A 429 response slows down the bucket of the environment.
+   */
+  @Test
+  public void testThrottledCall() throws Exception {
+    RateLimiter limiter = new RateLimiter.Builder().setRate(20).build();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(429).setRetryAfter("1").start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl())
+             .setRateLimiter(limiter).setRetryPolicy(RetryPolicy.NONE).build()) {
+      assertThrows(ErrorMessageException.class, api::getPickupPlaceList);
+      TokenBucket bucket = limiter.getBuckets().values().iterator().next();
+      assertEquals(10, bucket.getRate(), 1e-9);
+      assertTrue(bucket.reserve() > 900 * MILLIS);
+    }
+  }
+}
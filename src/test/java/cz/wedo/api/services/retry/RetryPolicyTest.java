@@ -0,0 +1,184 @@
+package cz.wedo.api.services.retry;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.models.Articles;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.idempotency.InMemoryPackageIndex;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `RetryPolicyTest` class contains test methods for the `RetryPolicy` class.
+ */
+public class RetryPolicyTest {
+  private static final RetryPolicy FAST = new RetryPolicy.Builder()
+      .setMaxAttempts(3)
+      .setInitialBackoff(Duration.ofMillis(1))
+      .setMaxBackoff(Duration.ofMillis(5))
+      .build();
+
+  /**
+   * The backoff grows exponentially up to the maximum and the jitter stays within it.
+   */
+  @Test
+  public void testBackoff() {
+    RetryPolicy policy = new RetryPolicy.Builder().setInitialBackoff(Duration.ofMillis(100)).setMaxBackoff(Duration.ofMillis(1000)).setJitter(0).build();
+    assertEquals(100, policy.backoff(1));
+    assertEquals(200, policy.backoff(2));
+    assertEquals(1000, policy.backoff(10));
+
+    RetryPolicy jittered = new RetryPolicy.Builder().setInitialBackoff(Duration.ofMillis(100)).setJitter(0.5).build();
+    for (int i = 0; i < 100; i++) {
+      long backoff = jittered.backoff(1);
+      assertTrue(backoff >= 50 && backoff <= 100, String.valueOf(backoff));
+    }
+  }
+
+  /**
+   * Only transient failures are retried, POST and PUT only when the server did not process them.
+   */
+  @Test
+  public void testRetryDecisions() {
+    assertTrue(FAST.retryDelay(RequestType.GET, 502, null, 1) >= 0);
+    assertTrue(FAST.retryDelay(RequestType.GET, 429, null, 2) >= 0);
+    assertEquals(-1, FAST.retryDelay(RequestType.GET, 502, null, 3));
+    assertEquals(-1, FAST.retryDelay(RequestType.GET, 404, null, 1));
+    assertTrue(FAST.retryDelay(RequestType.GET, new SocketTimeoutException(), 1) >= 0);
+    assertEquals(-1, FAST.retryDelay(RequestType.GET, new UnknownHostException(), 1));
+
+    assertTrue(FAST.retryDelay(RequestType.DELETE, 502, null, 1) >= 0);
+
+    assertEquals(-1, FAST.retryDelay(RequestType.POST, 500, null, 1));
+    assertEquals(-1, FAST.retryDelay(RequestType.POST, 503, null, 1));
+    assertTrue(FAST.retryDelay(RequestType.POST, 429, null, 1) >= 0);
+    assertEquals(-1, FAST.retryDelay(RequestType.POST, new SocketTimeoutException(), 1));
+    assertTrue(FAST.retryDelay(RequestType.POST, new ConnectException(), 1) >= 0);
+
+    assertEquals(-1, FAST.retryDelay(RequestType.PUT, 502, null, 1));
+    assertEquals(-1, FAST.retryDelay(RequestType.PUT, new SocketTimeoutException(), 1));
+    assertTrue(FAST.retryDelay(RequestType.PUT, 429, null, 1) >= 0);
+    assertTrue(FAST.retryDelay(RequestType.PUT, new ConnectException(), 1) >= 0);
+
+    RetryPolicy unavailable = FAST.toBuilder().setRetryPostUnavailable(true).build();
+    assertTrue(unavailable.retryDelay(RequestType.POST, 503, null, 1) >= 0);
+    assertEquals(-1, unavailable.retryDelay(RequestType.POST, 502, null, 1));
+    assertEquals(-1, unavailable.retryDelay(RequestType.PUT, 503, null, 1));
+  }
+
+  /**
+   * Retry-After is honored in seconds and as an HTTP date, and longer delays than allowed are not waited for.
+   */
+  @Test
+  public void testRetryAfter() {
+    Clock clock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC);
+    assertEquals(2000, RetryPolicy.parseRetryAfter("2", clock));
+    assertEquals(30000, RetryPolicy.parseRetryAfter("Mon, 01 Jan 2024 10:00:30 GMT", clock));
+    assertEquals(0, RetryPolicy.parseRetryAfter("soon", clock));
+    assertEquals(0, RetryPolicy.parseRetryAfter(null, clock));
+
+    assertEquals(1000, FAST.retryDelay(RequestType.GET, 429, "1", 1));
+    assertEquals(-1, FAST.retryDelay(RequestType.GET, 429, "120", 1));
+  }
+
+  /**
+   * Endpoint overrides replace the default policy.
+   */
+  @Test
+  public void testEndpointPolicy() {
+    RetryPolicy policy = new RetryPolicy.Builder().setEndpointPolicy(RequestType.GET, "package/{id}/labels.pdf", RetryPolicy.NONE).build();
+    assertSame(RetryPolicy.NONE, policy.forEndpoint(RequestType.GET, "package/{id}/labels.pdf"));
+    assertSame(policy, policy.forEndpoint(RequestType.GET, "package"));
+  }
+
+  /**
+   * GET calls are repeated until the attempts are exhausted, a non-idempotent POST is sent once.
+   */
+  @Test
+  public void testRetriedCalls() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(502).start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setRetryPolicy(FAST).build()) {
+      assertThrows(ErrorMessageException.class, api::getPackageList);
+      assertEquals(3, simulator.getRequestCount());
+
+      simulator.resetCounters();
+      ExecutionException e = assertThrows(ExecutionException.class, () -> api.async().getPackageList().get());
+      assertInstanceOf(ErrorMessageException.class, e.getCause());
+      assertEquals(3, simulator.getRequestCount());
+
+      simulator.resetCounters();
+      assertThrows(ErrorMessageException.class, () -> api.createPackage(new Pkg(), null));
+      assertEquals(1, simulator.getRequestCount());
+    }
+  }
+
+  /**
+   * A POST rejected with 503 is sent again only when it creates a package reconciled through a package index.
+   */
+  @Test
+  public void testPackageRetries() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(503).start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setRetryPolicy(FAST).build();
+         WeDoApi indexed = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setRetryPolicy(FAST)
+             .setPackageIndex(new InMemoryPackageIndex()).build()) {
+      Pkg pkg = new Pkg();
+      pkg.setReferenceNumber("R1");
+      assertThrows(ErrorMessageException.class, () -> api.createPackage(pkg, "N2079"));
+      assertEquals(1, simulator.getRequestCount());
+
+      simulator.resetCounters();
+      assertThrows(ErrorMessageException.class, () -> indexed.createPackage(pkg, "N2079"));
+      // 3 attempts to create the package, then 3 attempts to look it up
+      assertEquals(6, simulator.getRequestCount());
+
+      simulator.resetCounters();
+      assertThrows(ErrorMessageException.class, () -> indexed.createBatch(new Articles(new ArrayList<>(List.of("46F00000001")))));
+      assertEquals(1, simulator.getRequestCount());
+    }
+  }
+
+  /**
+   * A gzip-compressed body stays repeatable, so a POST rejected with 429 is sent again.
+   */
+  @Test
+  public void testRetriedGzipBody() throws Exception {
+    List<String> numbers = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      numbers.add(String.format("46F%08d", i));
+    }
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(429).start();
+         WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setGzip(true).setRetryPolicy(FAST).build()) {
+      assertThrows(ErrorMessageException.class, () -> api.createBatch(new Articles(new ArrayList<>(numbers))));
+      assertEquals(3, simulator.getRequestCount());
+    }
+  }
+
+  /**
+   * A call failing on the network ends with an error message instead of a null response.
+   */
+  @Test
+  public void testNetworkError() throws IOException {
+    WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+    simulator.close();
+    try (WeDoApi api = new WeDoApi.Builder().setApiUser("api_user").setApiKey("api_key").setBaseUrl(simulator.getBaseUrl()).setRetryPolicy(FAST).build()) {
+      ErrorMessageException e = assertThrows(ErrorMessageException.class, () -> api.getPackageListByOrderNumber("46F00000012"));
+      assertEquals(0, e.getStatusCode());
+      assertInstanceOf(IOException.class, e.getCause());
+    }
+  }
+}
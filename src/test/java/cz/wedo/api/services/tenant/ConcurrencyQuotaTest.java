@@ -0,0 +1,77 @@
+package cz.wedo.api.services.tenant;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `ConcurrencyQuotaTest` class contains test methods for the `ConcurrencyQuota` class.
+ */
+public class ConcurrencyQuotaTest {
+
+  /**
+   * Permits beyond the limit are granted in order as permits are released.
+   */
+  @Test
+  public void testPermits() {
+    ConcurrencyQuota quota = new ConcurrencyQuota(2);
+    assertTrue(quota.acquireAsync().isDone());
+    assertTrue(quota.acquireAsync().isDone());
+    CompletableFuture<Void> third = quota.acquireAsync();
+    CompletableFuture<Void> fourth = quota.acquireAsync();
+    assertFalse(third.isDone());
+    assertEquals(2, quota.getInFlight());
+    assertEquals(2, quota.getWaiting());
+
+    quota.release();
+    assertTrue(third.isDone());
+    assertFalse(fourth.isDone());
+    quota.release();
+    assertTrue(fourth.isDone());
+    quota.release();
+    quota.release();
+    assertEquals(0, quota.getInFlight());
+    assertThrows(IllegalArgumentException.class, () -> new ConcurrencyQuota(0));
+  }
+
+  /**
+   * A blocking call gives up after the timeout without taking the permit released later.
+   */
+  @Test
+  public void testTimeout() throws Exception {
+    ConcurrencyQuota quota = new ConcurrencyQuota(1);
+    quota.acquire(1, TimeUnit.SECONDS);
+    assertThrows(ConnectionPoolTimeoutException.class, () -> quota.acquire(20, TimeUnit.MILLISECONDS));
+    CompletableFuture<Void> waiting = quota.acquireAsync();
+    quota.release();
+    assertTrue(waiting.isDone());
+    quota.release();
+    assertEquals(0, quota.getInFlight());
+    quota.acquire(1, TimeUnit.SECONDS);
+    assertEquals(1, quota.getInFlight());
+  }
+
+  /**
+   * An asynchronous waiter which gave up leaves the queue at once and does not take the permit released later.
+   */
+  @Test
+  public void testAsyncCancel() {
+    ConcurrencyQuota quota = new ConcurrencyQuota(1);
+    assertTrue(quota.acquireAsync().isDone());
+    CompletableFuture<Void> cancelled = quota.acquireAsync();
+    CompletableFuture<Void> waiting = quota.acquireAsync();
+    assertTrue(cancelled.cancel(false));
+    assertEquals(1, quota.getWaiting());
+
+    quota.release();
+    assertTrue(waiting.isDone());
+    assertFalse(waiting.isCompletedExceptionally());
+    assertEquals(0, quota.getWaiting());
+    quota.release();
+    assertEquals(0, quota.getInFlight());
+  }
+}
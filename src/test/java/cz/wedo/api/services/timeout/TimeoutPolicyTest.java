@@ -0,0 +1,101 @@
+package cz.wedo.api.services.timeout;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.definitions.RequestType;
+import cz.wedo.api.exceptions.DeadlineExceededException;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.breaker.EndpointGroup;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.apache.http.client.config.RequestConfig;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `TimeoutPolicyTest` class contains test methods for the `TimeoutPolicy` class.
+ */
+public class TimeoutPolicyTest {
+
+  /**
+   * Label and manifest downloads get the download read timeout, overrides replace the policy of their endpoints.
+   */
+  @Test
+  public void testEndpointPolicy() {
+    TimeoutPolicy policy = TimeoutPolicy.DEFAULT;
+    assertSame(policy, policy.forEndpoint(RequestType.GET, "package/{id}"));
+    assertEquals(Duration.ofSeconds(180), policy.forEndpoint(RequestType.GET, "package/{id}/labels.pdf").getReadTimeout());
+    assertEquals(Duration.ofSeconds(180), policy.forEndpoint(RequestType.GET, "batch/{id}/manifest.pdf").getReadTimeout());
+    assertEquals(policy.getConnectTimeout(), policy.forEndpoint(RequestType.GET, "batch/{id}/manifest.pdf").getConnectTimeout());
+
+    TimeoutPolicy fast = new TimeoutPolicy.Builder().setReadTimeout(Duration.ofSeconds(5)).build();
+    TimeoutPolicy labels = new TimeoutPolicy.Builder().setDeadline(Duration.ofMinutes(5)).build();
+    TimeoutPolicy custom = new TimeoutPolicy.Builder()
+        .setGroupPolicy(EndpointGroup.LABELS, labels)
+        .setEndpointPolicy(RequestType.GET, "package/{id}", fast)
+        .build();
+    assertSame(fast, custom.forEndpoint(RequestType.GET, "package/{id}"));
+    assertSame(custom, custom.forEndpoint(RequestType.DELETE, "package/{id}"));
+    assertSame(labels, custom.forEndpoint(RequestType.GET, "batch/{id}/labels.pdf"));
+  }
+
+  /**
+   * The timeouts of an attempt never exceed the time left until the deadline.
+   */
+  @Test
+  public void testRequestConfig() {
+    RequestConfig config = TimeoutPolicy.DEFAULT.toRequestConfig(Long.MAX_VALUE);
+    assertEquals(10_000, config.getConnectTimeout());
+    assertEquals(30_000, config.getSocketTimeout());
+    assertEquals(30_000, config.getConnectionRequestTimeout());
+
+    config = TimeoutPolicy.DEFAULT.toRequestConfig(500);
+    assertEquals(500, config.getConnectTimeout());
+    assertEquals(500, config.getSocketTimeout());
+    assertEquals(1, TimeoutPolicy.DEFAULT.toRequestConfig(-20).getSocketTimeout());
+    assertThrows(IllegalArgumentException.class, () -> new TimeoutPolicy.Builder().setReadTimeout(Duration.ZERO));
+  }
+
+  /**
+   * A response slower than the read timeout fails the call with an I/O error.
+   */
+  @Test
+  public void testReadTimeout() throws Exception {
+    TimeoutPolicy policy = new TimeoutPolicy.Builder().setReadTimeout(Duration.ofMillis(100)).build();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(1000)).start();
+         WeDoApi api = simulator.clientBuilder().setTimeoutPolicy(policy).build()) {
+      ErrorMessageException e = assertThrows(ErrorMessageException.class, api::getPackageList);
+      assertEquals(0, e.getStatusCode());
+      assertInstanceOf(SocketTimeoutException.class, e.getCause());
+
+      ExecutionException async = assertThrows(ExecutionException.class, () -> api.async().getPackageList().get());
+      assertInstanceOf(ErrorMessageException.class, async.getCause());
+    }
+  }
+
+  /**
+   * The deadline aborts a call still waiting for its response, including its retries.
+   */
+  @Test
+  public void testDeadline() throws Exception {
+    TimeoutPolicy policy = new TimeoutPolicy.Builder().setDeadline(Duration.ofMillis(300)).build();
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(2000)).start();
+         WeDoApi api = simulator.clientBuilder().setTimeoutPolicy(policy).build()) {
+      long start = System.nanoTime();
+      ErrorMessageException e = assertThrows(ErrorMessageException.class, api::getPackageList);
+      assertInstanceOf(DeadlineExceededException.class, e.getCause());
+      assertTrue(System.nanoTime() - start < 1_500_000_000L);
+
+      start = System.nanoTime();
+      ExecutionException async = assertThrows(ExecutionException.class, () -> api.async().getPackageList().get());
+      assertInstanceOf(ErrorMessageException.class, async.getCause());
+      assertInstanceOf(DeadlineExceededException.class, async.getCause().getCause());
+      assertTrue(System.nanoTime() - start < 1_500_000_000L);
+    }
+  }
+
+}
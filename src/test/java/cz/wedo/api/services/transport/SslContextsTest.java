@@ -0,0 +1,68 @@
+package cz.wedo.api.services.transport;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `SslContextsTest` class contains test methods for the shared SSL contexts.
+ */
+public class SslContextsTest {
+
+  /**
+   * One context per verification mode is shared by all transports, with its session cache configured for resumption.
+   */
+  @Test
+  public void testSharedContexts() {
+    SSLContext verifying = SslContexts.get(true);
+    SSLContext lenient = SslContexts.get(false);
+    assertSame(verifying, SslContexts.get(true));
+    assertSame(lenient, SslContexts.get(false));
+    assertNotSame(verifying, lenient);
+    assertSame(SslContexts.socketFactory(false), SslContexts.socketFactory(false));
+
+    for (SSLContext context : new SSLContext[] {verifying, lenient}) {
+      SSLSessionContext sessions = context.getClientSessionContext();
+      assertEquals(SslContexts.SESSION_CACHE_SIZE, sessions.getSessionCacheSize());
+      assertEquals(SslContexts.SESSION_TIMEOUT_SECONDS, sessions.getSessionTimeout());
+    }
+
+    try (JdkHttpTransport first = new JdkHttpTransport(Duration.ofSeconds(1));
+         JdkHttpTransport second = new JdkHttpTransport(Duration.ofSeconds(1));
+         JdkHttpTransport verified = new JdkHttpTransport(Duration.ofSeconds(1), HttpClient.Version.HTTP_1_1, true)) {
+      assertSame(lenient, first.getHttpClient().sslContext());
+      assertSame(lenient, second.getHttpClient().sslContext());
+      assertSame(verifying, verified.getHttpClient().sslContext());
+    }
+  }
+
+  /**
+   * Certificate verification does not change calls over plain HTTP on any engine.
+   */
+  @Test
+  public void testSslVerify() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(2).start()) {
+      for (TransportType type : TransportType.values()) {
+        try (WeDoApi api = new WeDoApi.Builder()
+            .setApiUser("api_user")
+            .setApiKey("api_key")
+            .setBaseUrl(simulator.getBaseUrl())
+            .setRetryPolicy(RetryPolicy.NONE)
+            .setTransportType(type)
+            .setSslVerify(true)
+            .build()) {
+          assertEquals(2, api.getPackageList().size());
+          assertEquals(2, api.async().getPackageList().get().size());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package cz.wedo.api.services.transport;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.definitions.Dimensions;
+import cz.wedo.api.definitions.Format;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.services.timeout.TimeoutPolicy;
+import cz.wedo.api.simulator.LatencyDistribution;
+import cz.wedo.api.simulator.WeDoSimulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `TransportTest` class runs the client against the local simulator over every transport type.
+ */
+public class TransportTest {
+
+
+  /**
+   * JSON calls, gzip-compressed responses, posted bodies and streamed labels work over every engine, reusing connections.
+   */
+  @Test
+  public void testEngines(@TempDir Path dir) throws Exception {
+    for (TransportType type : TransportType.values()) {
+      try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(5).setLabelSize(4096).start();
+           WeDoApi api = simulator.clientBuilder().setTransportType(type).setGzip(true).build()) {
+        assertEquals(5, api.getPackageList().size(), type.name());
+        assertEquals("46F00000001", api.createPackage(new Pkg(), "N2079").getOrderNumber(), type.name());
+        assertEquals("46F00000012", api.deletePackageByOrderNumber("46F00000012").get(0).getOrderNumber(), type.name());
+        Path labels = dir.resolve(type + ".pdf");
+        assertTrue(api.savePdfLabelsForIdAs(Format.PDF, Dimensions.LABEL, "46F00000012", labels.toString()), type.name());
+        assertEquals(4096, Files.size(labels), type.name());
+        for (int i = 0; i < 10; i++) {
+          api.getPackageListByOrderNumber("46F00000012");
+        }
+        assertEquals(14, simulator.getRequestCount(), type.name());
+        if (type == TransportType.JDK) {
+          // the JDK client returns a connection to its pool asynchronously, so a call may open another one meanwhile
+          assertTrue(simulator.getConnectionCount() <= 3, type.name() + ": " + simulator.getConnectionCount());
+        } else {
+          assertEquals(1, simulator.getConnectionCount(), type.name());
+        }
+      }
+    }
+  }
+
+  /**
+   * Error statuses and deadlines are reported alike by every engine.
+   */
+  @Test
+  public void testErrors() throws Exception {
+    for (TransportType type : TransportType.values()) {
+      try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(503).start();
+           WeDoApi api = simulator.clientBuilder().setTransportType(type).build()) {
+        assertEquals(503, assertThrows(ErrorMessageException.class, api::getPackageList, type.name()).getStatusCode());
+      }
+      try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(2000)).start();
+           WeDoApi api = simulator.clientBuilder()
+               .setTimeoutPolicy(new TimeoutPolicy.Builder().setDeadline(Duration.ofMillis(200)).build())
+               .setTransportType(type)
+               .build()) {
+        long start = System.nanoTime();
+        assertEquals(0, assertThrows(ErrorMessageException.class, api::getPackageList, type.name()).getStatusCode());
+        assertTrue(System.nanoTime() - start < 1_500_000_000L, type.name());
+      }
+    }
+  }
+}
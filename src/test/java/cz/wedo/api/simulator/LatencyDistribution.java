@@ -0,0 +1,75 @@
+package cz.wedo.api.simulator;
+
+import java.util.Random;
+
+/**
+ * Distribution of the simulated server-side latency of one request.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+  /**
+   * Z-score of the 99th percentile of the standard normal distribution.
+   */
+  double Z_99 = 2.3263;
+
+  /**
+   * Draws the latency of the next request.
+   *
+   * @param random the random generator to draw from
+   * @return the latency in milliseconds, never negative
+   */
+  long nextMillis(Random random);
+
+  /**
+   * No added latency.
+   *
+   * @return the distribution
+   */
+  static LatencyDistribution none() {
+    return random -> 0;
+  }
+
+  /**
+   * The same latency for every request.
+   *
+   * @param millis the latency in milliseconds
+   * @return the distribution
+   */
+  static LatencyDistribution fixed(long millis) {
+    return random -> millis;
+  }
+
+  /**
+   * Latency uniformly distributed between the bounds.
+   *
+   * @param minMillis the lower bound in milliseconds (inclusive)
+   * @param maxMillis the upper bound in milliseconds (inclusive)
+   * @return the distribution
+   */
+  static LatencyDistribution uniform(long minMillis, long maxMillis) {
+    return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+  }
+
+  /**
+   * Exponentially distributed latency, i.e. a memoryless service time.
+   *
+   * @param meanMillis the mean latency in milliseconds
+   * @return the distribution
+   */
+  static LatencyDistribution exponential(double meanMillis) {
+    return random -> Math.round(-meanMillis * Math.log(1 - random.nextDouble()));
+  }
+
+  /**
+   * Log-normally distributed latency given by its median and 99th percentile, the usual shape of real API latency with a long tail.
+   *
+   * @param medianMillis the median latency in milliseconds
+   * @param p99Millis    the 99th percentile latency in milliseconds
+   * @return the distribution
+   */
+  static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+    double mu = Math.log(medianMillis);
+    double sigma = Math.log(p99Millis / medianMillis) / Z_99;
+    return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+  }
+}
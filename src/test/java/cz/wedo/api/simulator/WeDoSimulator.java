@@ -0,0 +1,433 @@
+package cz.wedo.api.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.services.retry.RetryPolicy;
+import cz.wedo.api.utils.GzipUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Embeddable stub of the WeDo API v2 for load and latency testing without the real servers.
+ * It serves the endpoints called by {@link cz.wedo.api.WeDoApi} on a loopback ephemeral port,
+ * with configurable latency, error rate and payload sizes, and counts the requests and TCP connections it sees.
+ * Point a client at it with {@code new WeDoApi.Builder().setBaseUrl(simulator.getBaseUrl())}, or start from {@link #clientBuilder()}.
+ */
+@Slf4j
+public class WeDoSimulator implements AutoCloseable {
+  private static final Pattern PACKAGE = Pattern.compile("package/([^/]+)");
+  private static final Pattern PACKAGE_LABELS = Pattern.compile("package/([^/]+)(/colli)?/labels\\.(pdf|zpl)");
+  private static final Pattern BATCH = Pattern.compile("batch/([^/]+)");
+  private static final Pattern REFERENCE_NUMBER = Pattern.compile("\"reference_number\"\\s*:\\s*\"([^\"]*)\"");
+  private static final Pattern BATCH_PDF = Pattern.compile("batch/([^/]+)/(manifest|labels)\\.pdf");
+  private static final String PICKUP_JSON = "{\"pickup_address\": {\"street\": \"Testovaci\", \"building_number\": \"493/81\", \"city\": \"Brno jih\", "
+      + "\"postal_code\": \"61900\", \"country_code\": \"CZ\"}, \"id\": \"I9999\", \"pickup_type\": \"IRREGULAR\", \"pickup_from\": \"14:24:35\", "
+      + "\"pickup_to\": null, \"created\": \"2023-08-07T14:24:35\", \"is_deletable\": true}";
+
+  private final Builder config;
+
+  private final HttpServer server;
+
+  private final ExecutorService executor;
+
+  /**
+   * Base URL of the simulated API, e.g. {@code http://127.0.0.1:40123/v2/}.
+   */
+  @Getter
+  private final URL baseUrl;
+
+  private final AtomicLong requestCount = new AtomicLong();
+
+  private final AtomicLong errorCount = new AtomicLong();
+
+  private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong packageSequence = new AtomicLong();
+
+  private final Map<String, String> createdPackages = new ConcurrentHashMap<>();
+
+  private WeDoSimulator(Builder config) throws IOException {
+    this.config = config;
+    // answer without waiting for delayed ACKs, otherwise every small response costs tens of milliseconds
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.port), config.backlog);
+    this.executor = Executors.newCachedThreadPool();
+    this.server.setExecutor(executor);
+    this.server.createContext("/v2/", this::handle);
+    this.server.start();
+    this.baseUrl = new URL(String.format("http://%s:%d/v2/", server.getAddress().getHostString(), server.getAddress().getPort()));
+    log.info(String.format("WeDo simulator listening on %s", baseUrl));
+  }
+
+  /**
+   * Returns the number of requests received.
+   *
+   * @return the request count
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Returns the number of requests answered with a simulated error.
+   *
+   * @return the error count
+   */
+  public long getErrorCount() {
+    return errorCount.get();
+  }
+
+  /**
+   * Returns a client builder pointed at the simulator, with the test credentials and without retries.
+   *
+   * @return the client builder
+   */
+  public WeDoApi.Builder clientBuilder() {
+    return new WeDoApi.Builder()
+        .setApiUser("api_user")
+        .setApiKey("api_key")
+        .setBaseUrl(baseUrl)
+        .setRetryPolicy(RetryPolicy.NONE);
+  }
+
+  /**
+   * Returns the number of distinct TCP connections the requests arrived on, which shows whether the client reuses connections.
+   *
+   * @return the connection count
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * Returns the number of packages created, including those whose response was lost.
+   *
+   * @return the created package count
+   */
+  public int getCreatedPackageCount() {
+    return createdPackages.size();
+  }
+
+  /**
+   * Resets the request, error and connection counters.
+   */
+  public void resetCounters() {
+    requestCount.set(0);
+    errorCount.set(0);
+    connections.clear();
+  }
+
+  /**
+   * Stops the server immediately.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requestCount.incrementAndGet();
+      connections.add(exchange.getRemoteAddress());
+      byte[] requestBody = readRequestBody(exchange);
+
+      Random random = ThreadLocalRandom.current();
+      long latency = config.latency.nextMillis(random);
+      if (latency > 0) {
+        TimeUnit.MILLISECONDS.sleep(latency);
+      }
+
+      if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+        sendError(exchange, 401, "Unauthorized");
+        return;
+      }
+      if (config.errorRate > 0 && random.nextDouble() < config.errorRate) {
+        errorCount.incrementAndGet();
+        if (config.retryAfter != null) {
+          exchange.getResponseHeaders().set("Retry-After", config.retryAfter);
+        }
+        sendError(exchange, config.errorStatus, "Simulated error");
+        return;
+      }
+      route(exchange, exchange.getRequestMethod(), exchange.getRequestURI().getPath().substring("/v2/".length()), requestBody);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error(String.format("Simulator failure: %s", e.getMessage()), e);
+      sendError(exchange, 500, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void route(HttpExchange exchange, String method, String path, byte[] requestBody) throws IOException {
+    Matcher matcher;
+    if (path.equals("package") && method.equals("GET")) {
+      sendJson(exchange, 200, config.malformedPackageList ? "{\"packages\": []}" : packageListJson(config.packageCount, createdPackages));
+    } else if (path.equals("package") && method.equals("POST")) {
+      String orderNumber = String.format("46F%08d", packageSequence.incrementAndGet());
+      Matcher referenceNumber = REFERENCE_NUMBER.matcher(new String(requestBody, StandardCharsets.UTF_8));
+      createdPackages.put(orderNumber, referenceNumber.find() ? referenceNumber.group(1) : "");
+      if (config.lostResponseRate > 0 && ThreadLocalRandom.current().nextDouble() < config.lostResponseRate) {
+        errorCount.incrementAndGet();
+        sendError(exchange, config.errorStatus, "Simulated error after the package was created");
+        return;
+      }
+      sendJson(exchange, 200, packageJson(orderNumber));
+    } else if ((matcher = PACKAGE_LABELS.matcher(path)).matches() && method.equals("GET")) {
+      sendBytes(exchange, matcher.group(3).equals("pdf") ? "application/pdf" : "text/plain", payload(config.labelSize));
+    } else if ((matcher = PACKAGE.matcher(path)).matches() && method.equals("GET")) {
+      sendJson(exchange, 200, packageJson(matcher.group(1)));
+    } else if ((matcher = PACKAGE.matcher(path)).matches() && method.equals("DELETE")) {
+      sendJson(exchange, 200, String.format("[{\"code\": \"0\", \"order_number\": \"%s\", \"barcode\": []}]", matcher.group(1)));
+    } else if (path.equals("batch") && method.equals("POST")) {
+      sendJson(exchange, 200, batchJson(new String(requestBody, StandardCharsets.UTF_8)));
+    } else if (BATCH_PDF.matcher(path).matches() && method.equals("GET")) {
+      sendBytes(exchange, "application/pdf", payload(config.labelSize));
+    } else if ((matcher = BATCH.matcher(path)).matches() && method.equals("GET")) {
+      sendJson(exchange, 200, batchDetailJson(matcher.group(1)));
+    } else if (path.equals("pickup") && method.equals("POST")) {
+      sendJson(exchange, 200, PICKUP_JSON);
+    } else if ((path.equals("pickup-place") || path.equals("distribution-point")) && method.equals("GET")) {
+      sendJson(exchange, 200, pickupPlacesJson(config.pickupPlaceCount));
+    } else {
+      sendError(exchange, 404, String.format("Unknown endpoint %s %s", method, path));
+    }
+  }
+
+  private static byte[] readRequestBody(HttpExchange exchange) throws IOException {
+    InputStream body = exchange.getRequestBody();
+    if (GzipUtils.isGzip(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+      body = new GZIPInputStream(body);
+    }
+    try (InputStream in = body) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+    sendJson(exchange, status, String.format("{\"message\": \"%s\", \"detail\": [], \"status_code\": %d}", message, status));
+  }
+
+  private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+    send(exchange, status, "application/json", json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void sendBytes(HttpExchange exchange, String contentType, byte[] bytes) throws IOException {
+    send(exchange, 200, contentType, bytes);
+  }
+
+  private static void send(HttpExchange exchange, int status, String contentType, byte[] bytes) throws IOException {
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (acceptEncoding != null && acceptEncoding.contains(GzipUtils.GZIP) && bytes.length >= GzipUtils.MIN_COMPRESS_SIZE) {
+      bytes = GzipUtils.gzip(bytes);
+      exchange.getResponseHeaders().set("Content-Encoding", GzipUtils.GZIP);
+    }
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static byte[] payload(int size) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) 'x');
+    return bytes;
+  }
+
+  private static String packageListJson(int count, Map<String, String> createdPackages) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(String.format("{\"reference_number\": \"%09d\", \"order_number\": \"46F%08d\", \"last_change\": \"2023-04-11T11:32:34\", \"delivered\": null}", i, i));
+    }
+    createdPackages.forEach((orderNumber, referenceNumber) -> json.append(json.length() > 1 ? "," : "")
+        .append(String.format("{\"reference_number\": \"%s\", \"order_number\": \"%s\", \"last_change\": \"2023-08-28T13:47:34\", \"delivered\": null}", referenceNumber, orderNumber)));
+    return json.append(']').toString();
+  }
+
+  private static String packageJson(String orderNumber) {
+    return String.format("{\"order_number\": \"%s\", \"reference_number\": \"777888999\", \"barcode\": [\"%s*001001\"], "
+        + "\"sorting_code\": \"S1PR053\", \"product_name\": \"Medium Colli 24-CZ - hmotnost do 30 kg\", \"delivery_price\": 0, "
+        + "\"product_code\": \"M-24-CZ\", \"last_state\": {\"id\": 99983622, \"code\": \"NEW\", \"created\": \"2023-08-28 13:47:34\"}}", orderNumber, orderNumber);
+  }
+
+  private static String batchJson(String requestBody) {
+    Matcher orderNumbers = Pattern.compile("\"(46F\\d+)\"").matcher(requestBody);
+    StringBuilder articles = new StringBuilder();
+    while (orderNumbers.find()) {
+      if (articles.length() > 0) {
+        articles.append(',');
+      }
+      articles.append(String.format("{\"code\": \"0\", \"order_number\": \"%s\"}", orderNumbers.group(1)));
+    }
+    return String.format("{\"articles\": [%s], \"batch\": {\"protocol_url\": \"http://localhost/protocol.html\", \"id\": \"51225\", \"number\": \"IT-46F-20230412212520\"}}", articles);
+  }
+
+  private static String batchDetailJson(String number) {
+    return String.format("{\"transport_date\": \"2023-04-13 17:00:00\", \"sender_contact\": {\"city\": \"Brno\", \"depot_email\": \"dispecer.brno@intime.cz\", "
+        + "\"name\": \"Nazev.cz\", \"depot_name\": \"Brno 06\", \"note\": null, \"phone\": \"\", \"street\": \"Testerska 48\", \"postal_code\": \"61600\", "
+        + "\"customer_name\": \"C s.r.o.\"}, \"packages\": [\"46F00000001\"], \"labels_pdf\": \"http://localhost/v2/batch/%s/labels.pdf\"}", number);
+  }
+
+  private static String pickupPlacesJson(int count) {
+    StringBuilder json = new StringBuilder("{\"wedo\": {\"pickup_places\": [");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(String.format("{\"name\": \"Nazev.cz\", \"code\": \"N%05d\", \"type\": \"COURIER\", \"regular_pickup\": true, "
+          + "\"contact\": {\"name\": \"Tester\", \"phone\": null, \"mobile\": \"+420111222333\", \"email\": \"tester@testovic.cz\"}, "
+          + "\"address\": {\"street\": \"Testerska\", \"city\": \"Brno\", \"postal_code\": \"61600\", \"building_number\": \"48\", \"country_code\": \"CZ\"}}", i));
+    }
+    return json.append("]}}").toString();
+  }
+
+  /**
+   * The Builder class is used to configure and start a simulator.
+   */
+  public static class Builder {
+    private int port = 0;
+    private int backlog = 0;
+    private LatencyDistribution latency = LatencyDistribution.none();
+    private double errorRate = 0;
+    private int errorStatus = 500;
+    private String retryAfter = null;
+    private double lostResponseRate = 0;
+    private int packageCount = 10;
+    private boolean malformedPackageList = false;
+    private int pickupPlaceCount = 3;
+    private int labelSize = 16 * 1024;
+
+    /**
+     * Sets the port to listen on, 0 (the default) picks a free ephemeral port.
+     */
+    public Builder setPort(int port) {
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * Sets the TCP accept backlog, 0 (the default) uses the system default.
+     */
+    public Builder setBacklog(int backlog) {
+      this.backlog = backlog;
+      return this;
+    }
+
+    /**
+     * Sets the latency added to every request.
+     */
+    public Builder setLatency(LatencyDistribution latency) {
+      this.latency = latency;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of requests (0 to 1) answered with an error.
+     */
+    public Builder setErrorRate(double errorRate) {
+      if (errorRate < 0 || errorRate > 1) {
+        throw new IllegalArgumentException(String.format("Invalid error rate: %s", errorRate));
+      }
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    /**
+     * Sets the HTTP status of the simulated errors, 500 by default.
+     */
+    public Builder setErrorStatus(int errorStatus) {
+      this.errorStatus = errorStatus;
+      return this;
+    }
+
+    /**
+     * Sets the Retry-After header sent with the simulated errors, none by default.
+     */
+    public Builder setRetryAfter(String retryAfter) {
+      this.retryAfter = retryAfter;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of package creations (0 to 1) which are processed but answered with an error, as if the response was lost.
+     * Created packages, including those, appear in the package list.
+     */
+    public Builder setLostResponseRate(double lostResponseRate) {
+      if (lostResponseRate < 0 || lostResponseRate > 1) {
+        throw new IllegalArgumentException(String.format("Invalid lost response rate: %s", lostResponseRate));
+      }
+      this.lostResponseRate = lostResponseRate;
+      return this;
+    }
+
+    /**
+     * Sets the number of packages returned by the package list.
+     */
+    public Builder setPackageCount(int packageCount) {
+      this.packageCount = packageCount;
+      return this;
+    }
+
+    /**
+     * Sets whether the package list is answered with a JSON object instead of an array.
+     */
+    public Builder setMalformedPackageList(boolean malformedPackageList) {
+      this.malformedPackageList = malformedPackageList;
+      return this;
+    }
+
+    /**
+     * Sets the number of places returned by the pickup place and distribution point lists.
+     */
+    public Builder setPickupPlaceCount(int pickupPlaceCount) {
+      this.pickupPlaceCount = pickupPlaceCount;
+      return this;
+    }
+
+    /**
+     * Sets the size in bytes of the label and manifest documents.
+     */
+    public Builder setLabelSize(int labelSize) {
+      this.labelSize = labelSize;
+      return this;
+    }
+
+    /**
+     * Starts the simulator.
+     *
+     * @return the running simulator
+     * @throws IOException if the server socket cannot be opened
+     */
+    public WeDoSimulator start() throws IOException {
+      return new WeDoSimulator(this);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package cz.wedo.api.simulator;
+
+import cz.wedo.api.WeDoApi;
+import cz.wedo.api.definitions.Dimensions;
+import cz.wedo.api.definitions.Format;
+import cz.wedo.api.models.Articles;
+import cz.wedo.api.models.Pkg;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.models.responses.BatchResponse;
+import cz.wedo.api.models.responses.PkgResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `WeDoSimulatorTest` class runs the client against the local simulator.
+ */
+public class WeDoSimulatorTest {
+
+
+  /**
+   * Every endpoint called by the client is served by the simulator.
+   */
+  @Test
+  public void testEndpoints(@TempDir Path dir) throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(5).setLabelSize(4096).start();
+         WeDoApi api = simulator.clientBuilder().build()) {
+      assertEquals(5, api.getPackageList().size());
+      PkgResponse created = api.createPackage(new Pkg(), null);
+      assertEquals("46F00000001", created.getOrderNumber());
+      assertEquals("46F00000012", api.getPackageListByOrderNumber("46F00000012").getOrderNumber());
+      assertEquals("46F00000012", api.deletePackageByOrderNumber("46F00000012").get(0).getOrderNumber());
+
+      Articles articles = new Articles(new ArrayList<>(List.of("46F00000001")));
+      BatchResponse batch = api.createBatch(articles);
+      assertEquals("46F00000001", batch.getArticles().get(0).getOrderNumber());
+      assertEquals("Brno", api.getBatchByNumber(batch.getBatch().getNumber()).getSenderContact().getCity());
+      assertEquals("I9999", api.orderPickup(new Date(), null).getId());
+      assertEquals(3, api.getPickupPlaceList().getWedo().getPickupPlaces().size());
+      assertEquals(3, api.getDistributionPointList().getWedo().getPickupPlaces().size());
+
+      Path labels = dir.resolve("labels.pdf");
+      assertTrue(api.savePdfLabelsForIdAs(Format.PDF, Dimensions.LABEL, "46F00000012", labels.toString()));
+      assertEquals(4096, Files.size(labels));
+      Path manifest = dir.resolve("manifest.pdf");
+      assertTrue(api.saveBatchManifestPdfByNumber(batch.getBatch().getNumber(), manifest.toString()));
+      assertEquals(4096, Files.size(manifest));
+    }
+  }
+
+  /**
+   * Sequential requests reuse one pooled connection.
+   */
+  @Test
+  public void testConnectionReuse() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().start();
+         WeDoApi api = simulator.clientBuilder().build()) {
+      for (int i = 0; i < 20; i++) {
+        assertNotNull(api.getPackageListByOrderNumber("46F00000012"));
+      }
+      assertEquals(20, simulator.getRequestCount());
+      assertEquals(1, simulator.getConnectionCount());
+    }
+  }
+
+  /**
+   * Simulated errors reach the caller as error messages with the configured status.
+   */
+  @Test
+  public void testErrorRate() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setErrorRate(1).setErrorStatus(503).start();
+         WeDoApi api = simulator.clientBuilder().build()) {
+      ErrorMessageException e = assertThrows(ErrorMessageException.class, api::getPackageList);
+      assertEquals(503, e.getStatusCode());
+      assertEquals(1, simulator.getErrorCount());
+    }
+  }
+
+  /**
+   * The configured latency delays the responses.
+   */
+  @Test
+  public void testLatency() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLatency(LatencyDistribution.fixed(100)).start();
+         WeDoApi api = simulator.clientBuilder().build()) {
+      long start = System.nanoTime();
+      assertNotNull(api.getPackageList());
+      assertTrue(System.nanoTime() - start >= 100_000_000L);
+    }
+  }
+
+  /**
+   * Large payloads are transferred gzip-compressed when the client enables gzip.
+   */
+  @Test
+  public void testGzipPayload() throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setPackageCount(1000).start();
+         WeDoApi api = simulator.clientBuilder().setGzip(true).build()) {
+      assertEquals(1000, api.getPackageList().size());
+      assertEquals(1000, api.async().getPackageList().get().size());
+    }
+  }
+
+  /**
+   * Labels downloaded asynchronously are decompressed as they are written when the client enables gzip.
+   */
+  @Test
+  public void testGzipLabels(@TempDir Path dir) throws Exception {
+    try (WeDoSimulator simulator = new WeDoSimulator.Builder().setLabelSize(64 * 1024).start();
+         WeDoApi api = simulator.clientBuilder().setGzip(true).build()) {
+      Path labels = dir.resolve("labels.zpl");
+      assertTrue(api.async().savePdfLabelsForIdAs(Format.ZPL, Dimensions.LABEL, "46F00000012", labels.toString()).get());
+      byte[] content = Files.readAllBytes(labels);
+      assertEquals(64 * 1024, content.length);
+      for (byte b : content) {
+        assertEquals('x', b);
+      }
+    }
+  }
+}
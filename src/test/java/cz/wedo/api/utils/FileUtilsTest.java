@@ -0,0 +1,54 @@
+package cz.wedo.api.utils;
+
+import org.apache.http.entity.BasicHttpEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `FileUtilsTest` class contains test methods for the `FileUtils` class.
+ */
+public class FileUtilsTest {
+
+    /**
+     * The entity content larger than one transfer chunk is written completely and no temporary file is left behind.
+     */
+    @Test
+    public void testSaveEntityToFile(@TempDir Path dir) throws IOException {
+        byte[] content = new byte[300 * 1024];
+        Arrays.fill(content, (byte) 'x');
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream(content));
+        Path target = dir.resolve("labels.pdf");
+
+        FileUtils.saveEntityToFile(target.toString(), entity);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * An existing file is replaced by the new content.
+     */
+    @Test
+    public void testSaveEntityToFileReplacesExisting(@TempDir Path dir) throws IOException {
+        Path target = dir.resolve("manifest.pdf");
+        Files.write(target, "old".getBytes());
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream("new".getBytes()));
+
+        FileUtils.saveEntityToFile(target.toString(), entity);
+
+        assertEquals("new", Files.readString(target));
+    }
+}
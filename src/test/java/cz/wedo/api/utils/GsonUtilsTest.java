@@ -0,0 +1,67 @@
+package cz.wedo.api.utils;
+
+import com.google.gson.reflect.TypeToken;
+import cz.wedo.api.models.errors.ErrorMessageException;
+import cz.wedo.api.models.responses.PkgList;
+import org.apache.http.entity.BasicHttpEntity;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `GsonUtilsTest` class contains test methods for the `GsonUtils` class.
+ */
+public class GsonUtilsTest {
+
+    /**
+     * A JSON array is decoded straight from the entity stream.
+     */
+    @Test
+    public void testFromJsonEntity() throws IOException {
+        String content = "[{\"reference_number\": \"777888999\", \"order_number\": \"46F00000001\", \"last_change\": \"2023-04-11T11:32:34\", \"delivered\": null}]";
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        ArrayList<PkgList> packages = GsonUtils.fromJson(GsonUtils.getGsonTDate(), entity, new TypeToken<ArrayList<PkgList>>() {}.getType());
+
+        assertEquals(1, packages.size());
+        assertEquals("46F00000001", packages.get(0).getOrderNumber());
+    }
+
+    /**
+     * An empty or missing entity is decoded as null.
+     */
+    @Test
+    public void testFromJsonEmptyEntity() throws IOException {
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream(new byte[0]));
+
+        assertNull(GsonUtils.fromJson(GsonUtils.getGsonTDate(), entity, PkgList.class));
+        assertNull(GsonUtils.fromJson(GsonUtils.getGsonTDate(), null, PkgList.class));
+    }
+
+    /**
+     * The shared Gson objects load, and read and write error bodies without reflecting into {@link Throwable},
+     * which the JDK refuses from Java 16 on (run with the jdk17 profile).
+     */
+    @Test
+    public void testErrorMessageException() {
+        String content = "{\"message\": \"Invalid package\", \"detail\": [\"weight\", \"receiver\"], \"status_code\": 400, \"extra\": {}}";
+
+        ErrorMessageException e = GsonUtils.getGsonDefault().fromJson(content, ErrorMessageException.class);
+
+        assertEquals("Invalid package", e.getMessage());
+        assertEquals(List.of("weight", "receiver"), e.getDetail());
+        assertEquals(400, e.getStatusCode());
+        assertEquals(List.of("weight"), GsonUtils.getGsonStandardDate().fromJson("{\"detail\": \"weight\"}", ErrorMessageException.class).getDetail());
+        ErrorMessageException copy = GsonUtils.getGsonTDate().fromJson(GsonUtils.getGsonTDate().toJson(e), ErrorMessageException.class);
+        assertEquals(e.toString(), copy.toString());
+        assertNull(GsonUtils.getGsonDefault().fromJson("{\"message\": null}", ErrorMessageException.class).getMessage());
+    }
+}
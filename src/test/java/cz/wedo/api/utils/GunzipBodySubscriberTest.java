@@ -0,0 +1,103 @@
+package cz.wedo.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `GunzipBodySubscriberTest` class contains test methods for the `GunzipBodySubscriber` class.
+ */
+public class GunzipBodySubscriberTest {
+
+  private static CompletableFuture<String> decode(byte[] body, int chunkSize) {
+    GunzipBodySubscriber<String> subscriber = new GunzipBodySubscriber<>(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+    for (int offset = 0; offset < body.length; offset += chunkSize) {
+      List<ByteBuffer> items = new ArrayList<>();
+      items.add(ByteBuffer.wrap(body, offset, Math.min(chunkSize, body.length - offset)));
+      subscriber.onNext(items);
+    }
+    subscriber.onComplete();
+    return subscriber.getBody().toCompletableFuture();
+  }
+
+  private static String content() {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      content.append("{\"order_number\": \"46F").append(i).append("\", \"city\": \"Žďár nad Sázavou\"},");
+    }
+    return content.toString();
+  }
+
+  /**
+   * The body is decompressed whatever the size of the received chunks.
+   */
+  @Test
+  public void testChunks() throws Exception {
+    String content = content();
+    byte[] compressed = GzipUtils.gzip(content.getBytes(StandardCharsets.UTF_8));
+    for (int chunkSize : new int[] {1, 7, 1000, compressed.length}) {
+      assertEquals(content, decode(compressed, chunkSize).get());
+    }
+  }
+
+  /**
+   * Optional header fields are skipped and concatenated members are decompressed in turn.
+   */
+  @Test
+  public void testHeaderFieldsAndMembers() throws Exception {
+    byte[] first = GzipUtils.gzip("first ".getBytes(StandardCharsets.UTF_8));
+    byte[] second = GzipUtils.gzip("second".getBytes(StandardCharsets.UTF_8));
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    body.write(first, 0, 3);
+    body.write(0x04 | 0x08 | 0x10);                                // FEXTRA, FNAME and FCOMMENT
+    body.write(first, 4, 6);
+    body.writeBytes(new byte[] {2, 0, 'a', 'b'});                  // extra field
+    body.writeBytes("labels.json\0".getBytes(StandardCharsets.US_ASCII));
+    body.writeBytes("comment\0".getBytes(StandardCharsets.US_ASCII));
+    body.write(first, 10, first.length - 10);
+    body.writeBytes(second);
+    for (int chunkSize : new int[] {1, 5, body.size()}) {
+      assertEquals("first second", decode(body.toByteArray(), chunkSize).get());
+    }
+  }
+
+  /**
+   * Bodies which are not gzip, corrupt or truncated complete the body with an error.
+   */
+  @Test
+  public void testInvalidBody() {
+    byte[] compressed = GzipUtils.gzip(content().getBytes(StandardCharsets.UTF_8));
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> decode("plain".getBytes(StandardCharsets.UTF_8), 100).get());
+    assertInstanceOf(ZipException.class, e.getCause());
+
+    byte[] corrupt = compressed.clone();
+    corrupt[corrupt.length - 6] ^= 0xff;
+    e = assertThrows(ExecutionException.class, () -> decode(corrupt, 100).get());
+    assertInstanceOf(ZipException.class, e.getCause());
+
+    byte[] truncated = new byte[compressed.length / 2];
+    System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+    assertThrows(ExecutionException.class, () -> decode(truncated, 100).get());
+  }
+}
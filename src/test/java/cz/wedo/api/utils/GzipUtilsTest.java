@@ -0,0 +1,47 @@
+package cz.wedo.api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `GzipUtilsTest` class contains test methods for the `GzipUtils` class.
+ */
+public class GzipUtilsTest {
+
+    /**
+     * Compressed content is decompressed back to the original string.
+     */
+    @Test
+    public void testGzipRoundTrip() {
+        String content = "{\"articles\": [\"46F00000001\", \"46F00000002\"]}";
+
+        byte[] compressed = GzipUtils.gzip(content.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(content, GzipUtils.gunzip(compressed, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Only large bodies are compressed and only when gzip is enabled.
+     */
+    @Test
+    public void testShouldCompress() {
+        assertTrue(GzipUtils.shouldCompress(true, GzipUtils.MIN_COMPRESS_SIZE));
+        assertFalse(GzipUtils.shouldCompress(true, GzipUtils.MIN_COMPRESS_SIZE - 1));
+        assertFalse(GzipUtils.shouldCompress(false, GzipUtils.MIN_COMPRESS_SIZE));
+        assertFalse(GzipUtils.shouldCompress(null, GzipUtils.MIN_COMPRESS_SIZE));
+    }
+
+    /**
+     * Content-Encoding header values are recognized case-insensitively.
+     */
+    @Test
+    public void testIsGzip() {
+        assertTrue(GzipUtils.isGzip("gzip"));
+        assertTrue(GzipUtils.isGzip("GZIP"));
+        assertFalse(GzipUtils.isGzip("identity"));
+        assertFalse(GzipUtils.isGzip(null));
+    }
+}
@@ -0,0 +1,60 @@
+package cz.wedo.api.utils;
+
+import com.google.gson.stream.JsonReader;
+import cz.wedo.api.models.responses.PkgList;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `JsonArrayIteratorTest` class contains test methods for the `JsonArrayIterator` class.
+ */
+public class JsonArrayIteratorTest {
+
+    /**
+     * Elements are decoded in order and the resource is closed once the array is exhausted.
+     */
+    @Test
+    public void testStreamElements() throws IOException {
+        String content = "[{\"order_number\": \"46F00000001\"}, {\"order_number\": \"46F00000002\"}]";
+        AtomicBoolean closed = new AtomicBoolean(false);
+
+        JsonArrayIterator<PkgList> iterator = new JsonArrayIterator<>(GsonUtils.getGsonTDate(), new JsonReader(new StringReader(content)), PkgList.class, () -> closed.set(true));
+        List<String> orderNumbers = iterator.stream().map(PkgList::getOrderNumber).collect(Collectors.toList());
+
+        assertEquals(List.of("46F00000001", "46F00000002"), orderNumbers);
+        assertTrue(closed.get());
+    }
+
+    /**
+     * Closing the stream early closes the resource.
+     */
+    @Test
+    public void testCloseEarly() throws IOException {
+        String content = "[{\"order_number\": \"46F00000001\"}, {\"order_number\": \"46F00000002\"}]";
+        AtomicBoolean closed = new AtomicBoolean(false);
+
+        try (Stream<PkgList> stream = new JsonArrayIterator<PkgList>(GsonUtils.getGsonTDate(), new JsonReader(new StringReader(content)), PkgList.class, () -> closed.set(true)).stream()) {
+            assertEquals("46F00000001", stream.findFirst().map(PkgList::getOrderNumber).orElse(null));
+        }
+
+        assertTrue(closed.get());
+    }
+
+    /**
+     * A JSON null is treated as an empty array.
+     */
+    @Test
+    public void testNullArray() throws IOException {
+        JsonArrayIterator<PkgList> iterator = new JsonArrayIterator<>(GsonUtils.getGsonTDate(), new JsonReader(new StringReader("null")), PkgList.class, null);
+
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,81 @@
+package cz.wedo.api.utils;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import cz.wedo.api.models.responses.PkgList;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The `JsonBodySubscriberTest` class contains test methods for the `JsonBodySubscriber` class.
+ */
+public class JsonBodySubscriberTest {
+
+  /**
+   * Delivers the body in chunks as the subscriber asks for them, from the calling thread like the HTTP client does.
+   */
+  private static <T> CompletableFuture<T> decode(JsonBodySubscriber<T> subscriber, byte[] body, int chunkSize) throws InterruptedException {
+    Semaphore demand = new Semaphore(0);
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        demand.release((int) Math.min(n, Integer.MAX_VALUE));
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+    for (int offset = 0; offset < body.length; offset += chunkSize) {
+      assertTrue(demand.tryAcquire(5, TimeUnit.SECONDS));
+      List<ByteBuffer> items = new ArrayList<>();
+      items.add(ByteBuffer.wrap(body, offset, Math.min(chunkSize, body.length - offset)));
+      subscriber.onNext(items);
+    }
+    subscriber.onComplete();
+    return subscriber.getBody().toCompletableFuture();
+  }
+
+  /**
+   * A JSON array is decoded from the body stream as the chunks arrive.
+   */
+  @Test
+  public void testDecode() throws Exception {
+    StringBuilder content = new StringBuilder("[");
+    for (int i = 0; i < 2000; i++) {
+      content.append(i > 0 ? "," : "").append("{\"order_number\": \"46F").append(i).append("\", \"reference_number\": \"Žďár\"}");
+    }
+    byte[] body = content.append("]").toString().getBytes(StandardCharsets.UTF_8);
+
+    List<PkgList> packages = decode(new JsonBodySubscriber<List<PkgList>>(GsonUtils.getGsonTDate(), new TypeToken<List<PkgList>>() {}.getType(),
+        StandardCharsets.UTF_8), body, 1000).get(5, TimeUnit.SECONDS);
+
+    assertEquals(2000, packages.size());
+    assertEquals("46F1999", packages.get(1999).getOrderNumber());
+    assertEquals("Žďár", packages.get(0).getReferenceNumber());
+  }
+
+  /**
+   * An invalid body fails the body, an empty one is decoded as null.
+   */
+  @Test
+  public void testInvalidBody() throws Exception {
+    ExecutionException e = assertThrows(ExecutionException.class, () -> decode(new JsonBodySubscriber<PkgList>(GsonUtils.getGsonTDate(), PkgList.class,
+        StandardCharsets.UTF_8), "[1, 2]".getBytes(StandardCharsets.UTF_8), 2).get(5, TimeUnit.SECONDS));
+    assertInstanceOf(JsonSyntaxException.class, e.getCause());
+
+    assertNull(decode(new JsonBodySubscriber<PkgList>(GsonUtils.getGsonTDate(), PkgList.class, StandardCharsets.UTF_8), new byte[0], 1)
+        .get(5, TimeUnit.SECONDS));
+  }
+}